@@ -0,0 +1,87 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.benchmarks;
+
+import com.weebkun.tree.BinarySearchTree;
+import com.weebkun.tree.TraversalOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks for building a {@link BinarySearchTree} from shuffled values and traversing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinarySearchTreeBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private List<Integer> values;
+    private BinarySearchTree tree;
+
+    @Setup
+    public void setup() {
+        this.values = new ArrayList<>(this.size);
+        for(int i = 0; i < this.size; i++) {
+            this.values.add(i);
+        }
+        // shuffle with a fixed seed so every run builds the same tree
+        Collections.shuffle(this.values, new Random(42));
+        this.tree = new BinarySearchTree(this.values);
+    }
+
+    @Benchmark
+    public BinarySearchTree build() {
+        return new BinarySearchTree(this.values);
+    }
+
+    @Benchmark
+    public List<Integer> traverse() {
+        return this.tree.traverse(TraversalOrder.IN_ORDER);
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for(int value : this.tree) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * folds over the nodes directly, without the traversal cache used by {@link #traverse()} and {@link #iterate()}.
+     */
+    @Benchmark
+    public long fold() {
+        return this.tree.fold(0L, (sum, value) -> sum + value, Long::sum);
+    }
+}
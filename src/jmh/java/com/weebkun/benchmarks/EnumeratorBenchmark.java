@@ -0,0 +1,75 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.benchmarks;
+
+import com.weebkun.ListUtil;
+import com.weebkun.enumerate.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks for iterating over an {@link com.weebkun.enumerate.Enumerator} of a list and of an array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EnumeratorBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private List<Integer> list;
+    private Integer[] array;
+
+    @Setup
+    public void setup() {
+        this.list = new ArrayList<>(this.size);
+        this.array = new Integer[this.size];
+        for(int i = 0; i < this.size; i++) {
+            this.list.add(i);
+            this.array[i] = i;
+        }
+    }
+
+    @Benchmark
+    public long enumerateList() {
+        long sum = 0;
+        for(Item<Integer> item : ListUtil.enumerate(this.list)) {
+            sum += item.getIndex() + item.getElement();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long enumerateArray() {
+        long sum = 0;
+        for(Item<Integer> item : ListUtil.enumerate(this.array)) {
+            sum += item.getIndex() + item.getElement();
+        }
+        return sum;
+    }
+}
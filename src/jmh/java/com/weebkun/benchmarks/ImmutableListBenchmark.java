@@ -0,0 +1,88 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.benchmarks;
+
+import com.weebkun.utils.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks for {@link ImmutableList#contains(Object)} with a value in the middle of the list and a missing value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ImmutableListBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private ImmutableList<Key> list;
+    private Key present;
+    private Key missing;
+
+    @Setup
+    public void setup() {
+        Key[] array = new Key[this.size];
+        for(int i = 0; i < this.size; i++) {
+            array[i] = new Key(i);
+        }
+        this.list = new ImmutableList<>(array);
+        this.present = new Key(this.size / 2);
+        this.missing = new Key(-1);
+    }
+
+    @Benchmark
+    public boolean containsPresent() {
+        return this.list.contains(this.present);
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return this.list.contains(this.missing);
+    }
+
+    /**
+     * {@link ImmutableList} only holds {@link Cloneable} elements, so the benchmark uses this instead of {@link Integer}.
+     */
+    public static class Key implements Cloneable {
+
+        private final int value;
+
+        public Key(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value;
+        }
+    }
+}
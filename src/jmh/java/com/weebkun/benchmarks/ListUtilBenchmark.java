@@ -0,0 +1,81 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.benchmarks;
+
+import com.weebkun.ListUtil;
+import com.weebkun.tuples.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks for the list operations of {@link ListUtil}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListUtilBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private List<Integer> numbers;
+    private Collection<Object> left;
+    private Collection<Object> right;
+
+    @Setup
+    public void setup() {
+        this.numbers = new ArrayList<>(this.size);
+        this.left = new ArrayList<>(this.size);
+        this.right = new ArrayList<>(this.size);
+        for(int i = 0; i < this.size; i++) {
+            this.numbers.add(i);
+            this.left.add(i);
+            this.right.add("value " + i);
+        }
+    }
+
+    @Benchmark
+    public List<Object> comprehend() {
+        return ListUtil.comprehend(x -> x * 2, this.numbers, x -> x % 2 == 0);
+    }
+
+    @Benchmark
+    public List<Integer> map() {
+        return ListUtil.map(this.numbers, x -> x + 1);
+    }
+
+    @Benchmark
+    public List<Integer> filter() {
+        return ListUtil.filter(this.numbers, x -> x % 3 == 0);
+    }
+
+    @Benchmark
+    public List<Tuple> zip() {
+        return ListUtil.zip(this.left, this.right);
+    }
+}
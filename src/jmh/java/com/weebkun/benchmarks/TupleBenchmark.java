@@ -0,0 +1,72 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.benchmarks;
+
+import com.weebkun.tuples.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks for constructing and reading {@link Tuple}s of different lengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TupleBenchmark {
+
+    @Param({"2", "8", "64"})
+    public int length;
+
+    private Object[] elements;
+    private Tuple tuple;
+
+    @Setup
+    public void setup() {
+        this.elements = new Object[this.length];
+        for(int i = 0; i < this.length; i++) {
+            this.elements[i] = i;
+        }
+        this.tuple = new Tuple(this.elements);
+    }
+
+    @Benchmark
+    public Tuple create() {
+        return Tuple.create(this.elements);
+    }
+
+    @Benchmark
+    public long get() {
+        long sum = 0;
+        for(int i = 0; i < this.tuple.length; i++) {
+            sum += (Integer) this.tuple.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return this.tuple.contains(-1);
+    }
+}
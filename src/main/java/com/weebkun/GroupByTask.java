@@ -0,0 +1,109 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * fork/join task that groups a range of elements into a map of partial aggregates.
+ * ranges larger than the leaf size are split in half, each half is grouped into its own hash map,
+ * and the smaller map is merged into the larger one, combining the aggregates of keys found in both.
+ * @param <T> the type of the elements
+ * @param <K> the type of the keys
+ * @param <A> the type of the partial aggregates
+ * @see ListUtil#groupBy(java.util.List, Function, Collector)
+ */
+class GroupByTask<T, K, A> extends RecursiveTask<Map<K, A>> {
+
+    private static final long serialVersionUID = 1L;
+
+    // number of elements from which ListUtil.groupBy groups in parallel
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+    // ranges of at most this many elements are always grouped sequentially
+    private static final int MIN_LEAF_SIZE = 1 << 12;
+    // number of leaves per thread of the pool, so that threads that finish early can steal work
+    private static final int LEAVES_PER_THREAD = 4;
+
+    private final Object[] elements;
+    private final int from;
+    private final int to;
+    private final Function<? super T, ? extends K> key;
+    private final Collector<? super T, A, ?> aggregator;
+    private final int leafSize;
+
+    /**
+     * constructs a task grouping all elements of an array, sized for the parallelism of {@code pool}.
+     * every leaf builds its own map, so leaves are kept as large as possible
+     * to avoid creating and merging an aggregate per key per leaf when there are many distinct keys.
+     */
+    GroupByTask(Object[] elements, Function<? super T, ? extends K> key, Collector<? super T, A, ?> aggregator, ForkJoinPool pool) {
+        this(elements, 0, elements.length, key, aggregator,
+                Math.max(MIN_LEAF_SIZE, elements.length / (pool.getParallelism() * LEAVES_PER_THREAD) + 1));
+    }
+
+    private GroupByTask(Object[] elements, int from, int to, Function<? super T, ? extends K> key,
+                        Collector<? super T, A, ?> aggregator, int leafSize) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+        this.key = key;
+        this.aggregator = aggregator;
+        this.leafSize = leafSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Map<K, A> compute() {
+        if(this.to - this.from <= this.leafSize) {
+            Map<K, A> groups = new HashMap<>();
+            Supplier<A> supplier = this.aggregator.supplier();
+            Function<K, A> create = k -> supplier.get();
+            BiConsumer<A, ? super T> accumulator = this.aggregator.accumulator();
+            for(int i = this.from; i < this.to; i++) {
+                T elem = (T) this.elements[i];
+                accumulator.accept(groups.computeIfAbsent(this.key.apply(elem), create), elem);
+            }
+            return groups;
+        }
+        int middle = (this.from + this.to) >>> 1;
+        GroupByTask<T, K, A> left = new GroupByTask<>(this.elements, this.from, middle, this.key, this.aggregator, this.leafSize);
+        left.fork();
+        Map<K, A> right = new GroupByTask<T, K, A>(this.elements, middle, this.to, this.key, this.aggregator, this.leafSize).compute();
+        return merge(left.join(), right, this.aggregator.combiner());
+    }
+
+    /**
+     * merges the partial aggregates of two adjacent ranges.
+     * the aggregates of the left range are always passed first to the combiner, so the encounter order is kept.
+     */
+    private static <K, A> Map<K, A> merge(Map<K, A> left, Map<K, A> right, BinaryOperator<A> combiner) {
+        if(left.size() >= right.size()) {
+            right.forEach((k, a) -> left.merge(k, a, combiner));
+            return left;
+        }
+        left.forEach((k, a) -> right.merge(k, a, (r, l) -> combiner.apply(l, r)));
+        return right;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import com.weebkun.tuples.Tuple;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * the result of a hash join of two lists, yielded lazily.
+ *
+ * <p>
+ *     a hash table is built over the keys of the smaller list when the join is created.
+ *     the table is an open addressing {@code int} array holding the index of the first element with each key,
+ *     and elements with equal keys are chained through another {@code int} array, so nothing is allocated per key.
+ *     from {@value #PARALLEL_THRESHOLD} elements, the keys are computed in parallel and the table is split into
+ *     partitions by the top bits of the hash, which are built in parallel since every element belongs to exactly
+ *     one partition. slots within a partition are chosen by the following bits, so every slot of every partition
+ *     is used. the larger list is then probed as the result is iterated.
+ * </p>
+ * <p>
+ *     results follow the order of the probed list. for {@link JoinType#LEFT} joins probed from the right,
+ *     left elements without a match are yielded at the end. null keys never match.
+ * </p>
+ * @param <L> the type of the left elements
+ * @param <R> the type of the right elements
+ * @see ListUtil#hashJoin(List, List, Function, Function, JoinType)
+ */
+class HashJoin<L, R> implements Iterable<Tuple> {
+
+    // number of elements of the smaller list from which the hash table is built in parallel
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private final Object[] left;
+    private final Object[] right;
+    private final Function<? super L, ?> leftKey;
+    private final Function<? super R, ?> rightKey;
+    private final JoinType type;
+    // true if the table is built over the left list and the right list is probed
+    private final boolean buildLeft;
+
+    // the keys of the build elements and their hashes
+    private final Object[] keys;
+    private final int[] hashes;
+    // the hash tables over the build side, one per partition. a slot holds the index of the first build element
+    // with a key plus one, or 0 if it is free
+    private final int[][] tables;
+    // the number of top bits of a hash that select the partition
+    private final int partitionBits;
+    // the index of the next build element with the same key, or -1
+    private final int[] next;
+
+    HashJoin(List<L> left, List<R> right, Function<? super L, ?> leftKey, Function<? super R, ?> rightKey, JoinType type) {
+        this.left = left.toArray();
+        this.right = right.toArray();
+        this.leftKey = leftKey;
+        this.rightKey = rightKey;
+        this.type = type;
+        this.buildLeft = this.left.length < this.right.length;
+        Object[] build = this.buildLeft ? this.left : this.right;
+        int n = build.length;
+        boolean parallel = n >= PARALLEL_THRESHOLD;
+        this.keys = new Object[n];
+        this.hashes = new int[n];
+        this.next = new int[n];
+        IntStream indices = parallel ? IntStream.range(0, n).parallel() : IntStream.range(0, n);
+        indices.forEach(i -> {
+            Object key = buildKey(build[i]);
+            this.keys[i] = key;
+            if(key != null) this.hashes[i] = hash(key);
+        });
+        if(parallel) {
+            this.partitionBits = Integer.numberOfTrailingZeros(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+            this.tables = buildParallel();
+        } else {
+            this.partitionBits = 0;
+            this.tables = new int[][] {buildTable(null, 0, n)};
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object buildKey(Object elem) {
+        return this.buildLeft ? this.leftKey.apply((L) elem) : this.rightKey.apply((R) elem);
+    }
+
+    /**
+     * spreads the hash code of a key, so that its top bits depend on all of its bits.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int partition(int hash) {
+        return this.partitionBits == 0 ? 0 : hash >>> (32 - this.partitionBits);
+    }
+
+    /**
+     * returns the first slot to probe for a hash, from the bits below the partition bits.
+     */
+    private int slot(int hash, int length) {
+        return (hash << this.partitionBits) >>> (32 - Integer.numberOfTrailingZeros(length));
+    }
+
+    /**
+     * builds a table over the build elements {@code order[from, to)}, or {@code [from, to)} if {@code order} is null.
+     * the table is at most half full, even if every key is distinct.
+     */
+    private int[] buildTable(int[] order, int from, int to) {
+        int[] table = new int[Integer.highestOneBit(Math.max(1, to - from) * 2 - 1) << 1];
+        // insert backwards so every chain lists its elements in their original order
+        for(int k = to - 1; k >= from; k--) {
+            int i = order != null ? order[k] : k;
+            if(this.keys[i] != null) insert(table, i);
+        }
+        return table;
+    }
+
+    private void insert(int[] table, int i) {
+        int mask = table.length - 1;
+        for(int slot = slot(this.hashes[i], table.length); ; slot = (slot + 1) & mask) {
+            int head = table[slot] - 1;
+            if(head < 0 || this.hashes[head] == this.hashes[i] && this.keys[head].equals(this.keys[i])) {
+                table[slot] = i + 1;
+                this.next[i] = head;
+                return;
+            }
+        }
+    }
+
+    private int[][] buildParallel() {
+        int n = this.keys.length;
+        int count = 1 << this.partitionBits;
+        // group the indices by partition with a counting sort, keeping their order within each partition
+        int[] start = new int[count + 1];
+        for(int i = 0; i < n; i++) {
+            if(this.keys[i] != null) start[partition(this.hashes[i]) + 1]++;
+        }
+        for(int p = 0; p < count; p++) {
+            start[p + 1] += start[p];
+        }
+        int[] order = new int[start[count]];
+        int[] position = start.clone();
+        for(int i = 0; i < n; i++) {
+            if(this.keys[i] != null) order[position[partition(this.hashes[i])]++] = i;
+        }
+        int[][] tables = new int[count][];
+        IntStream.range(0, count).parallel().forEach(p -> tables[p] = buildTable(order, start[p], start[p + 1]));
+        return tables;
+    }
+
+    /**
+     * returns the index of the first build element with the given key.
+     * @return the index, or -1 if there is none
+     */
+    private int first(Object key) {
+        if(key == null) return -1;
+        int hash = hash(key);
+        int[] table = this.tables[partition(hash)];
+        int mask = table.length - 1;
+        for(int slot = slot(hash, table.length); ; slot = (slot + 1) & mask) {
+            int head = table[slot] - 1;
+            if(head < 0 || this.hashes[head] == hash && this.keys[head].equals(key)) return head;
+        }
+    }
+
+    /**
+     * returns an iterator that probes the hash table as it advances.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Tuple> iterator() {
+        return new Iterator<>() {
+            private final Object[] probe = buildLeft ? right : left;
+            // matched build elements, for left and semi joins probed from the right
+            private final boolean[] matched = buildLeft && type != JoinType.INNER ? new boolean[left.length] : null;
+            // index of the probe element, the chain position within the build side, and the next unmatched left
+            private int index = -1;
+            private int chain = -1;
+            private int unmatched = 0;
+            private Tuple pending;
+
+            @Override
+            public boolean hasNext() {
+                if(this.pending == null) this.pending = advance();
+                return this.pending != null;
+            }
+
+            @Override
+            public Tuple next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                Tuple tuple = this.pending;
+                this.pending = null;
+                return tuple;
+            }
+
+            @SuppressWarnings("unchecked")
+            private Tuple advance() {
+                while(true) {
+                    if(this.chain != -1) {
+                        int match = this.chain;
+                        this.chain = next[match];
+                        if(!buildLeft) return Tuple.create(left[this.index], right[match]);
+                        if(type == JoinType.INNER) return Tuple.create(left[match], right[this.index]);
+                        boolean first = !this.matched[match];
+                        this.matched[match] = true;
+                        if(type == JoinType.LEFT) return Tuple.create(left[match], right[this.index]);
+                        if(first) return Tuple.create(left[match]);
+                        continue;
+                    }
+                    if(this.index + 1 < this.probe.length) {
+                        Object elem = this.probe[++this.index];
+                        this.chain = first(buildLeft ? rightKey.apply((R) elem) : leftKey.apply((L) elem));
+                        if(buildLeft) continue;
+                        if(type == JoinType.SEMI) {
+                            if(this.chain != -1) {
+                                this.chain = -1;
+                                return Tuple.create(elem);
+                            }
+                        } else if(type == JoinType.LEFT && this.chain == -1) {
+                            return Tuple.create(elem);
+                        }
+                        continue;
+                    }
+                    // the probe side is exhausted. left joins probed from the right yield the unmatched left elements
+                    if(this.matched == null || type != JoinType.LEFT) return null;
+                    while(this.unmatched < left.length && this.matched[this.unmatched]) this.unmatched++;
+                    if(this.unmatched == left.length) return null;
+                    return Tuple.create(left[this.unmatched++]);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+/**
+ * the kinds of joins supported by {@link ListUtil#hashJoin(java.util.List, java.util.List, java.util.function.Function, java.util.function.Function, JoinType)}
+ * and {@link ListUtil#sortMergeJoin(java.util.List, java.util.List, java.util.function.Function, java.util.function.Function, JoinType)}.
+ * since a {@link com.weebkun.tuples.Tuple} cannot contain null, results without a right element are 1-element tuples.
+ */
+public enum JoinType {
+
+    /**
+     * yields a tuple {@code (left, right)} for every pair of elements with equal keys.
+     */
+    INNER,
+
+    /**
+     * like {@link #INNER}, but also yields a tuple {@code (left)} for every left element without a matching right element.
+     */
+    LEFT,
+
+    /**
+     * yields a tuple {@code (left)} once for every left element that has at least one matching right element.
+     */
+    SEMI
+}
@@ -0,0 +1,55 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * an element decorated with its key, so that sorting by key computes every key only once.
+ * used by {@link ListUtil#sorted(List, Function, java.util.Comparator)} and {@link SortMergeJoin}.
+ * @param <T> the type of the element
+ * @param <K> the type of the key
+ */
+final class Keyed<T, K> {
+
+    final K key;
+    final T value;
+
+    Keyed(K key, T value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * decorates every element of a list with its key, in the order of the list.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param <T> the type of the elements
+     * @param <K> the type of the keys
+     * @return the decorated elements
+     */
+    @SuppressWarnings("unchecked")
+    static <T, K> Keyed<T, K>[] of(List<T> list, Function<? super T, ? extends K> key) {
+        Keyed<T, K>[] keyed = (Keyed<T, K>[]) new Keyed<?, ?>[list.size()];
+        int i = 0;
+        for(T elem : list) {
+            keyed[i++] = new Keyed<>(key.apply(elem), elem);
+        }
+        return keyed;
+    }
+}
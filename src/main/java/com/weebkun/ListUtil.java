@@ -17,14 +17,36 @@
 package com.weebkun;
 
 import com.weebkun.enumerate.Enumerator;
+import com.weebkun.io.CloseableIterable;
+import com.weebkun.io.ExternalSorter;
+import com.weebkun.io.SpillBuffer;
+import com.weebkun.io.ValueCodec;
+import com.weebkun.jfr.ZipEvent;
+import com.weebkun.metrics.ListUtilMetrics;
+import com.weebkun.metrics.Metrics;
+import com.weebkun.metrics.Operation;
+import com.weebkun.sketch.BloomFilter;
+import com.weebkun.sketch.HyperLogLog;
 import com.weebkun.tuples.Tuple;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
 
 /**
  * util class for working with lists and collections.
@@ -34,6 +56,9 @@ import java.util.function.Predicate;
  */
 public class ListUtil {
 
+    // number of elements from which sorts run in parallel
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
     /**
      * returns an {@link Enumerator} for a specified iterable starting at index {@code start}.
      * @param iter the iterable
@@ -94,6 +119,8 @@ public class ListUtil {
      * @see java.util.stream.Stream#filter
      */
     public static <T> List<Object> comprehend(Function<T, Object> expression, Iterable<T> list, Predicate<T> condition){
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
         List<Object> rList = new ArrayList<>();
         for(T elem : list){
             //tests each element if it passes the predicate
@@ -102,6 +129,7 @@ public class ListUtil {
                 rList.add(expression.apply(elem));
             }
         }
+        if(metrics != null) metrics.operation(Operation.COMPREHEND, rList.size(), System.nanoTime() - start);
         return rList;
     }
 
@@ -145,6 +173,39 @@ public class ListUtil {
         return ListUtil.comprehend(x -> x, list, x -> true);
     }
 
+    /**
+     * list comprehension for results that may not fit in memory.
+     * like {@link #comprehend(Function, Iterable, Predicate)}, but the results are kept in a {@link SpillBuffer},
+     * which writes them to temporary files with {@code codec} once their estimated size exceeds {@code memoryBudget}.
+     * the results are read back lazily, in order, when the returned iterable is iterated.
+     * e.g.
+     * <pre>{@code
+     * try(CloseableIterable<String> lines = ListUtil.comprehend(Record::toCsv, records, Record::isValid, ValueCodec.STRING, 64L << 20)) {
+     *     for(String line : lines) ...
+     * }
+     * }</pre>
+     * @param expression the expression to apply to each element
+     * @param list the sequence
+     * @param condition the condition to filter the sequence with
+     * @param codec the codec to write the results with
+     * @param memoryBudget the approximate number of bytes of results to keep in memory
+     * @param <T> the type of the elements in {@code list}
+     * @param <R> the type of the results
+     * @return an iterable of the results, which must be closed to delete the temporary files
+     * @throws java.io.UncheckedIOException if the results cannot be written
+     */
+    public static <T, R> CloseableIterable<R> comprehend(Function<? super T, ? extends R> expression, Iterable<T> list,
+                                                         Predicate<? super T> condition, ValueCodec<R> codec, long memoryBudget) {
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
+        SpillBuffer<R> results = new SpillBuffer<>(codec, memoryBudget);
+        for(T elem : list) {
+            if(condition.test(elem)) results.add(expression.apply(elem));
+        }
+        if(metrics != null) metrics.operation(Operation.COMPREHEND, (int) Math.min(Integer.MAX_VALUE, results.size()), System.nanoTime() - start);
+        return results.finish();
+    }
+
     /**
      * returns a zipped object containing tuples of elements constructed from the provided iterables.
      * attempted implementation of python zip() function.
@@ -157,6 +218,11 @@ public class ListUtil {
         // py: zip = zip([1, 2, 3, ...], ['a', 'b', 'c', ...], [...])
         // zip: [(1, 'a'), (2, 'b'), (3, 'c'), ...]
 
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
+        ZipEvent event = new ZipEvent();
+        event.begin();
+
         // local variable to store iterators
         List<Iterator<Object>> iterators = new ArrayList<>();
 
@@ -184,22 +250,452 @@ public class ListUtil {
             //add elements at index i to zipped
             zipped.add(new Tuple(elements));
         }
+        if(metrics != null) metrics.operation(Operation.ZIP, zipped.size(), System.nanoTime() - start);
+        event.end();
+        if(event.isEnabled()) {
+            event.collections = iterables.length;
+            event.rows = zipped.size();
+            event.commit();
+        }
         return zipped;
     }
 
     public static <T, R> List<R> map(List<T> list, Function<T, R> transform) {
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
         ArrayList<R> result = new ArrayList<>();
         for(T elem : list) {
             result.add(transform.apply(elem));
         }
+        if(metrics != null) metrics.operation(Operation.MAP, list.size(), System.nanoTime() - start);
         return result;
     }
 
     public static <T> List<T> filter(Collection<T> list, Predicate<T> predicate) {
+        return filter((Iterable<T>) list, predicate);
+    }
+
+    /**
+     * returns a list of the elements of an iterable that satisfy a predicate,
+     * e.g. the records of a {@link com.weebkun.io.MappedRecords} without reading them all into a list first.
+     * @param iterable the iterable
+     * @param predicate the predicate
+     * @param <T> the type of the elements in {@code iterable}
+     * @return a new list of the elements that satisfy the predicate
+     */
+    public static <T> List<T> filter(Iterable<T> iterable, Predicate<T> predicate) {
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
         ArrayList<T> result = new ArrayList<>();
-        for (T elem : list) {
+        int size = 0;
+        for (T elem : iterable) {
             if(predicate.test(elem)) result.add(elem);
+            size++;
         }
+        if(metrics != null) metrics.operation(Operation.FILTER, size, System.nanoTime() - start);
         return result;
     }
+
+    /**
+     * filters a collection with an expensive predicate, using a {@link BloomFilter} as a cheap pre-check.
+     * elements that are definitely not in {@code candidates} are rejected without calling {@code predicate},
+     * so the filter must contain every element that can satisfy the predicate.
+     * e.g. {@code filter(events, BloomFilter.of(knownIds, 0.01), event -> database.exists(event))}
+     * @param list the collection
+     * @param candidates the filter of the elements that can satisfy {@code predicate}
+     * @param predicate the predicate to test the remaining elements with
+     * @param <T> the type of the elements in {@code list}
+     * @return a list of the elements that are in the filter and satisfy the predicate
+     * @see #filter(Collection, Predicate)
+     */
+    public static <T> List<T> filter(Collection<T> list, BloomFilter<? super T> candidates, Predicate<T> predicate) {
+        if(candidates == null) throw new IllegalArgumentException("candidates cannot be null.");
+        return filter(list, elem -> candidates.mightContain(elem) && predicate.test(elem));
+    }
+
+    /**
+     * estimates the number of distinct elements in an iterable with a {@link HyperLogLog} sketch,
+     * in 16KB of memory with a standard error of about 0.8%.
+     * collections of at least 65536 elements are counted in parallel.
+     * elements are told apart by their hashes rather than by {@code equals}. {@code Long}s, {@code Integer}s,
+     * {@code Short}s, {@code Byte}s and {@code Character}s are hashed by their numeric value, so {@code 5}, {@code 5L}
+     * and the character with code 5 count as one element. strings are hashed over their characters,
+     * and other objects from their 32-bit {@code hashCode}.
+     * @param iterable the iterable. cannot contain null
+     * @return the estimated number of distinct elements
+     * @see HyperLogLog#of(Iterable)
+     */
+    public static long approxDistinct(Iterable<?> iterable) {
+        return HyperLogLog.of(iterable).cardinality();
+    }
+
+    /**
+     * estimates the number of distinct values in an array with a {@link HyperLogLog} sketch, without boxing them.
+     * @param values the values
+     * @return the estimated number of distinct values
+     * @see #approxDistinct(Iterable)
+     */
+    public static long approxDistinct(long[] values) {
+        return HyperLogLog.of(values).cardinality();
+    }
+
+    /**
+     * estimates the number of distinct values in an array with a {@link HyperLogLog} sketch, without boxing them.
+     * @param values the values
+     * @return the estimated number of distinct values
+     * @see #approxDistinct(Iterable)
+     */
+    public static long approxDistinct(int[] values) {
+        return HyperLogLog.of(values).cardinality();
+    }
+
+    /**
+     * returns a new list containing the elements of {@code list} sorted by a key, like python's {@code sorted(list, key=...)}.
+     * the key of each element is computed only once before sorting, instead of on every comparison.
+     * the sort is stable, so elements with equal keys keep their order.
+     * lists of at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted with a parallel merge sort.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return the sorted list
+     * @see #sorted(List, Function, Comparator)
+     */
+    public static <T, K extends Comparable<? super K>> List<T> sorted(List<T> list, Function<? super T, ? extends K> key) {
+        return sorted(list, key, Comparator.naturalOrder());
+    }
+
+    /**
+     * returns a new list containing the elements of {@code list} sorted by a key, comparing the keys with a comparator.
+     * the key of each element is computed only once before sorting, instead of on every comparison.
+     * the sort is stable, so elements with equal keys keep their order.
+     * lists of at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted with a parallel merge sort.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param comparator the comparator for the keys
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return the sorted list
+     * @see Arrays#parallelSort(Object[], Comparator)
+     */
+    public static <T, K> List<T> sorted(List<T> list, Function<? super T, ? extends K> key, Comparator<? super K> comparator) {
+        // decorate each element with its key, sort the pairs, then undecorate
+        Keyed<T, K>[] keyed = Keyed.of(list, key);
+        Comparator<Keyed<T, K>> byKey = (a, b) -> comparator.compare(a.key, b.key);
+        if(keyed.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(keyed, byKey);
+        } else {
+            Arrays.sort(keyed, byKey);
+        }
+        List<T> result = new ArrayList<>(keyed.length);
+        for(Keyed<T, K> pair : keyed) {
+            result.add(pair.value);
+        }
+        return result;
+    }
+
+    /**
+     * sorts an iterable that may not fit in memory with an {@link ExternalSorter}.
+     * elements are buffered up to {@code memoryBudget} bytes, written to temporary files with {@code codec} as sorted runs,
+     * and the runs are merged lazily when the returned iterable is iterated. the sort is stable.
+     * @param iterable the iterable
+     * @param comparator the order to sort in
+     * @param codec the codec to write the runs with
+     * @param memoryBudget the approximate number of bytes of elements to keep in memory
+     * @param <T> the type of the elements in {@code iterable}
+     * @return an iterable of the sorted elements, which must be closed to delete the temporary files
+     * @throws java.io.UncheckedIOException if a run cannot be written
+     */
+    public static <T> CloseableIterable<T> sorted(Iterable<? extends T> iterable, Comparator<? super T> comparator,
+                                                  ValueCodec<T> codec, long memoryBudget) {
+        return ExternalSorter.sort(iterable, comparator, codec, memoryBudget);
+    }
+
+    /**
+     * returns a new list of tuples sorted by the values at the given column indices.
+     * tuples are compared by the first column, then by the next column where the first is equal, and so on.
+     * the sort is stable, so tuples that are equal in every column keep their order.
+     * lists of at least {@value #PARALLEL_SORT_THRESHOLD} tuples are sorted with a parallel merge sort.
+     * @param tuples the tuples
+     * @param columns the column indices to sort by, in order of priority
+     * @return the sorted list
+     * @throws IllegalArgumentException if no columns are given
+     * @throws IndexOutOfBoundsException if a tuple is shorter than a column index
+     * @throws ClassCastException if the values of a column are not mutually {@link Comparable}
+     */
+    public static List<Tuple> sortedByColumns(List<Tuple> tuples, int... columns)
+            throws IllegalArgumentException, IndexOutOfBoundsException, ClassCastException {
+        if(columns.length == 0) throw new IllegalArgumentException("at least 1 column must be given.");
+        Tuple[] array = tuples.toArray(new Tuple[0]);
+        Comparator<Tuple> comparator = (a, b) -> {
+            for(int column : columns) {
+                @SuppressWarnings("unchecked")
+                int comparison = ((Comparable<Object>) a.get(column)).compareTo(b.get(column));
+                if(comparison != 0) return comparison;
+            }
+            return 0;
+        };
+        if(array.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(array, comparator);
+        } else {
+            Arrays.sort(array, comparator);
+        }
+        return new ArrayList<>(Arrays.asList(array));
+    }
+
+    /**
+     * returns the {@code k} largest elements of an iterable by a comparator, from largest to smallest,
+     * without sorting the whole iterable. pass {@code comparator.reversed()} for the {@code k} smallest elements.
+     *
+     * <p>
+     *     {@code RandomAccess} lists are copied and partitioned with an introselect in linear time on average,
+     *     splitting lists of at least 65536 elements into chunks that are partitioned in parallel.
+     *     other iterables are streamed through a bounded heap in {@code O(n log k)} time, keeping at most {@code k} elements.
+     *     which of several equal elements are returned is unspecified.
+     * </p>
+     * e.g. {@code topK(scores, 100, Comparator.naturalOrder())}
+     * @param iterable the iterable
+     * @param k the number of elements to return. if the iterable has fewer elements, all of them are returned
+     * @param comparator the comparator
+     * @param <T> the type of the elements in {@code iterable}
+     * @return a new list of the largest elements
+     * @see IntListUtil#topK(int[], int)
+     * @see LongListUtil#topK(long[], int)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> topK(Iterable<T> iterable, int k, Comparator<? super T> comparator) {
+        if(k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        if(comparator == null) throw new IllegalArgumentException("comparator cannot be null.");
+        if(k == 0) return new ArrayList<>();
+        if(iterable instanceof List && iterable instanceof RandomAccess) {
+            T[] array = (T[]) ((List<T>) iterable).toArray();
+            Comparator<? super T> descending = Collections.reverseOrder(comparator);
+            if(k >= array.length) {
+                Arrays.sort(array, descending);
+                return new ArrayList<>(Arrays.asList(array));
+            }
+            TopK.selectSorted(array, k, descending);
+            return new ArrayList<>(Arrays.asList(array).subList(0, k));
+        }
+        return new ArrayList<>((List<T>) Arrays.asList(TopK.heapSelect(iterable.iterator(), k, comparator)));
+    }
+
+    /**
+     * returns the {@code k} largest elements of an iterable, from largest to smallest, without sorting the whole iterable.
+     * @param iterable the iterable
+     * @param k the number of elements to return
+     * @param <T> the type of the elements in {@code iterable}
+     * @return a new list of the largest elements
+     * @see #topK(Iterable, int, Comparator)
+     */
+    public static <T extends Comparable<? super T>> List<T> topK(Iterable<T> iterable, int k) {
+        return topK(iterable, k, Comparator.naturalOrder());
+    }
+
+    /**
+     * groups the elements of a list by a key and aggregates each group with a {@link Collector},
+     * like {@link java.util.stream.Collectors#groupingBy(Function, Collector)}.
+     * lists of at least 16384 elements are split into ranges that are grouped into separate hash maps in parallel,
+     * and the partial aggregates are merged at the end. the collector's combiner is called with the aggregate
+     * of the earlier range first, so order dependent collectors such as {@code toList()} keep the order of the list.
+     * e.g. {@code groupBy(words, String::length, Collectors.toList())}
+     * @param list the list
+     * @param key the function computing the key of an element. may return null
+     * @param aggregator the collector aggregating the elements of a group
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @param <A> the type of the partial aggregates
+     * @param <R> the type of the aggregated results
+     * @return a map from each key to the aggregate of its group
+     * @see #countBy(List, Function)
+     * @see #sumBy(List, Function, ToLongFunction)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, K, A, R> Map<K, R> groupBy(List<T> list, Function<? super T, ? extends K> key, Collector<? super T, A, R> aggregator) {
+        Map<K, A> groups;
+        if(list.size() >= GroupByTask.PARALLEL_THRESHOLD) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            groups = pool.invoke(new GroupByTask<>(list.toArray(), key, aggregator, pool));
+        } else {
+            groups = new HashMap<>();
+            Supplier<A> supplier = aggregator.supplier();
+            Function<K, A> create = k -> supplier.get();
+            BiConsumer<A, ? super T> accumulator = aggregator.accumulator();
+            for(T elem : list) {
+                accumulator.accept(groups.computeIfAbsent(key.apply(elem), create), elem);
+            }
+        }
+        if(aggregator.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) return (Map<K, R>) groups;
+        Map<K, R> result = new HashMap<>(groups.size() * 4 / 3 + 1);
+        Function<A, R> finisher = aggregator.finisher();
+        groups.forEach((k, a) -> result.put(k, finisher.apply(a)));
+        return result;
+    }
+
+    /**
+     * counts the elements of a list by key. counts are not boxed until the result map is built.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return a map from each key to the number of elements with that key
+     * @see #groupBy(List, Function, Collector)
+     */
+    public static <T, K> Map<K, Long> countBy(List<T> list, Function<? super T, ? extends K> key) {
+        return groupBy(list, key, Collector.of(() -> new long[1], (a, elem) -> a[0]++,
+                (a, b) -> { a[0] += b[0]; return a; }, a -> a[0]));
+    }
+
+    /**
+     * sums a {@code long} value of the elements of a list by key. sums are not boxed until the result map is built.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param value the function computing the value to sum
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return a map from each key to the sum of the values of its elements
+     * @see #groupBy(List, Function, Collector)
+     */
+    public static <T, K> Map<K, Long> sumBy(List<T> list, Function<? super T, ? extends K> key, ToLongFunction<? super T> value) {
+        return groupBy(list, key, Collector.<T, long[], Long>of(() -> new long[1], (a, elem) -> a[0] += value.applyAsLong(elem),
+                (a, b) -> { a[0] += b[0]; return a; }, a -> a[0]));
+    }
+
+    /**
+     * sums a {@code double} value of the elements of a list by key. sums are not boxed until the result map is built.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param value the function computing the value to sum
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return a map from each key to the sum of the values of its elements
+     * @see #groupBy(List, Function, Collector)
+     */
+    public static <T, K> Map<K, Double> sumByDouble(List<T> list, Function<? super T, ? extends K> key, ToDoubleFunction<? super T> value) {
+        return groupBy(list, key, Collector.<T, double[], Double>of(() -> new double[1], (a, elem) -> a[0] += value.applyAsDouble(elem),
+                (a, b) -> { a[0] += b[0]; return a; }, a -> a[0]));
+    }
+
+    /**
+     * finds the smallest {@code long} value of the elements of a list by key.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param value the function computing the value to compare
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return a map from each key to the smallest value of its elements
+     * @see #groupBy(List, Function, Collector)
+     */
+    public static <T, K> Map<K, Long> minBy(List<T> list, Function<? super T, ? extends K> key, ToLongFunction<? super T> value) {
+        return groupBy(list, key, Collector.<T, long[], Long>of(() -> new long[] {Long.MAX_VALUE},
+                (a, elem) -> a[0] = Math.min(a[0], value.applyAsLong(elem)),
+                (a, b) -> { a[0] = Math.min(a[0], b[0]); return a; }, a -> a[0]));
+    }
+
+    /**
+     * finds the largest {@code long} value of the elements of a list by key.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param value the function computing the value to compare
+     * @param <T> the type of the elements in {@code list}
+     * @param <K> the type of the keys
+     * @return a map from each key to the largest value of its elements
+     * @see #groupBy(List, Function, Collector)
+     */
+    public static <T, K> Map<K, Long> maxBy(List<T> list, Function<? super T, ? extends K> key, ToLongFunction<? super T> value) {
+        return groupBy(list, key, Collector.<T, long[], Long>of(() -> new long[] {Long.MIN_VALUE},
+                (a, elem) -> a[0] = Math.max(a[0], value.applyAsLong(elem)),
+                (a, b) -> { a[0] = Math.max(a[0], b[0]); return a; }, a -> a[0]));
+    }
+
+    /**
+     * joins two lists by key with a hash table, pairing each left element with every right element with an equal key.
+     * the table is built over the smaller list, in parallel for large lists, and the other list is probed lazily
+     * as the result is iterated. the result is not cached, so each iteration probes again.
+     * <ul>
+     *     <li>{@link JoinType#INNER} yields a {@code Tuple(left, right)} for each matching pair.</li>
+     *     <li>{@link JoinType#LEFT} also yields a {@code Tuple(left)} for each left element without a match.</li>
+     *     <li>{@link JoinType#SEMI} yields a {@code Tuple(left)} once for each left element with a match.</li>
+     * </ul>
+     * keys are compared with {@code equals} and {@code hashCode}. null keys never match.
+     * e.g. {@code hashJoin(orders, customers, Order::getCustomerId, Customer::getId, JoinType.INNER)}
+     * @param left the left list
+     * @param right the right list
+     * @param leftKey the function computing the key of a left element
+     * @param rightKey the function computing the key of a right element
+     * @param type the type of join
+     * @param <L> the type of the left elements
+     * @param <R> the type of the right elements
+     * @return an iterable of the joined tuples
+     * @see #sortMergeJoin(List, List, Function, Function, JoinType)
+     */
+    public static <L, R> Iterable<Tuple> hashJoin(List<L> left, List<R> right, Function<? super L, ?> leftKey,
+                                                  Function<? super R, ?> rightKey, JoinType type) {
+        checkJoinArguments(left, right, leftKey, rightKey, type);
+        return new HashJoin<>(left, right, leftKey, rightKey, type);
+    }
+
+    /**
+     * inner joins two lists by key with a hash table.
+     * @param left the left list
+     * @param right the right list
+     * @param leftKey the function computing the key of a left element
+     * @param rightKey the function computing the key of a right element
+     * @param <L> the type of the left elements
+     * @param <R> the type of the right elements
+     * @return an iterable of a {@code Tuple(left, right)} for each matching pair
+     * @see #hashJoin(List, List, Function, Function, JoinType)
+     */
+    public static <L, R> Iterable<Tuple> hashJoin(List<L> left, List<R> right, Function<? super L, ?> leftKey,
+                                                  Function<? super R, ?> rightKey) {
+        return hashJoin(left, right, leftKey, rightKey, JoinType.INNER);
+    }
+
+    /**
+     * joins two lists by key by sorting both lists and merging them.
+     * the lists are sorted when the join is created, and merged lazily as the result is iterated.
+     * results are yielded in ascending order of their keys, so this is preferable to {@link #hashJoin(List, List, Function, Function, JoinType)}
+     * when sorted output is needed or the keys have no useful hash code.
+     * the results for each join type are the same as for {@code hashJoin}. null keys never match.
+     * @param left the left list
+     * @param right the right list
+     * @param leftKey the function computing the key of a left element
+     * @param rightKey the function computing the key of a right element
+     * @param type the type of join
+     * @param <L> the type of the left elements
+     * @param <R> the type of the right elements
+     * @param <K> the type of the keys
+     * @return an iterable of the joined tuples
+     */
+    public static <L, R, K extends Comparable<? super K>> Iterable<Tuple> sortMergeJoin(List<L> left, List<R> right,
+            Function<? super L, ? extends K> leftKey, Function<? super R, ? extends K> rightKey, JoinType type) {
+        checkJoinArguments(left, right, leftKey, rightKey, type);
+        return new SortMergeJoin<>(left, right, leftKey, rightKey, type);
+    }
+
+    /**
+     * inner joins two lists by key by sorting both lists and merging them.
+     * @param left the left list
+     * @param right the right list
+     * @param leftKey the function computing the key of a left element
+     * @param rightKey the function computing the key of a right element
+     * @param <L> the type of the left elements
+     * @param <R> the type of the right elements
+     * @param <K> the type of the keys
+     * @return an iterable of a {@code Tuple(left, right)} for each matching pair, in ascending order of their keys
+     * @see #sortMergeJoin(List, List, Function, Function, JoinType)
+     */
+    public static <L, R, K extends Comparable<? super K>> Iterable<Tuple> sortMergeJoin(List<L> left, List<R> right,
+            Function<? super L, ? extends K> leftKey, Function<? super R, ? extends K> rightKey) {
+        return sortMergeJoin(left, right, leftKey, rightKey, JoinType.INNER);
+    }
+
+    private static void checkJoinArguments(List<?> left, List<?> right, Function<?, ?> leftKey, Function<?, ?> rightKey,
+                                           JoinType type) throws IllegalArgumentException {
+        if(left == null) throw new IllegalArgumentException("left cannot be null.");
+        if(right == null) throw new IllegalArgumentException("right cannot be null.");
+        if(leftKey == null) throw new IllegalArgumentException("leftKey cannot be null.");
+        if(rightKey == null) throw new IllegalArgumentException("rightKey cannot be null.");
+        if(type == null) throw new IllegalArgumentException("type cannot be null.");
+    }
 }
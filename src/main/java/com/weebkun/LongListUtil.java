@@ -0,0 +1,246 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * util class for sorting by {@code long} keys and selecting the largest or smallest {@code long}s.
+ *
+ * <p>
+ *     the sorts are LSD radix sorts, which sort 64-bit keys in 8 passes over the data, one per byte of the key,
+ *     instead of comparing elements. this takes linear time, and is faster than a comparison sort for large inputs.
+ *     passes where every key has the same byte are skipped, so keys within a small range sort in fewer passes.
+ *     the sorts are stable.
+ * </p>
+ * @see ListUtil#sorted(List, java.util.function.Function)
+ */
+public class LongListUtil {
+
+    // below this size, arrays are sorted with Arrays.sort, which is faster for small inputs
+    private static final int RADIX_THRESHOLD = 256;
+    private static final int PASSES = 8;
+
+    /**
+     * sorts an array in ascending order.
+     * @param array the array
+     */
+    public static void sort(long[] array) {
+        if(array.length < RADIX_THRESHOLD) {
+            Arrays.sort(array);
+            return;
+        }
+        radixSort(array, null);
+    }
+
+    /**
+     * returns a new list containing the elements of {@code list} sorted by a {@code long} key.
+     * the key of each element is computed only once. the sort is stable, so elements with equal keys keep their order.
+     * @param list the list
+     * @param key the function computing the key of an element
+     * @param <T> the type of the elements in {@code list}
+     * @return the sorted list
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> sorted(List<T> list, ToLongFunction<? super T> key) {
+        Object[] elements = list.toArray();
+        long[] keys = new long[elements.length];
+        int[] order = new int[elements.length];
+        for(int i = 0; i < elements.length; i++) {
+            keys[i] = key.applyAsLong((T) elements[i]);
+            order[i] = i;
+        }
+        radixSort(keys, order);
+        List<T> result = new ArrayList<>(elements.length);
+        for(int index : order) {
+            result.add((T) elements[index]);
+        }
+        return result;
+    }
+
+    /**
+     * returns the {@code k} largest values of an array, from largest to smallest, without sorting the whole array.
+     * the values are selected with an introselect in linear time on average,
+     * and arrays of at least 65536 values are split into chunks that are selected in parallel.
+     * @param values the values. the array is not modified
+     * @param k the number of values to return. if the array is shorter, all of its values are returned
+     * @return a new array of the largest values
+     * @see ListUtil#topK(Iterable, int, java.util.Comparator)
+     */
+    public static long[] topK(long[] values, int k) {
+        if(k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        // the complement reverses the order of the values without overflowing,
+        // so the largest values are the smallest complements
+        long[] array = new long[values.length];
+        for(int i = 0; i < values.length; i++) {
+            array[i] = ~values[i];
+        }
+        k = Math.min(k, array.length);
+        selectSorted(array, k);
+        long[] result = new long[k];
+        for(int i = 0; i < k; i++) {
+            result[i] = ~array[i];
+        }
+        return result;
+    }
+
+    /**
+     * returns the {@code k} smallest values of an array, from smallest to largest, without sorting the whole array.
+     * @param values the values. the array is not modified
+     * @param k the number of values to return. if the array is shorter, all of its values are returned
+     * @return a new array of the smallest values
+     * @see #topK(long[], int)
+     */
+    public static long[] bottomK(long[] values, int k) {
+        if(k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        long[] array = values.clone();
+        k = Math.min(k, array.length);
+        selectSorted(array, k);
+        return Arrays.copyOf(array, k);
+    }
+
+    /**
+     * moves the {@code k} smallest values of an array to its front, and sorts them.
+     */
+    private static void selectSorted(long[] array, int k) {
+        int n = array.length;
+        int chunks = TopK.chunks(n, k);
+        if(chunks > 1) {
+            // select k candidates from every chunk in parallel, then select from the candidates
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int from = (int) ((long) n * c / chunks);
+                int to = (int) ((long) n * (c + 1) / chunks);
+                select(array, from, to, Math.min(k, to - from));
+            });
+            int candidates = 0;
+            for(int c = 0; c < chunks; c++) {
+                int from = (int) ((long) n * c / chunks);
+                int count = Math.min(k, (int) ((long) n * (c + 1) / chunks) - from);
+                System.arraycopy(array, from, array, candidates, count);
+                candidates += count;
+            }
+            select(array, 0, candidates, k);
+        } else {
+            select(array, 0, n, k);
+        }
+        Arrays.sort(array, 0, k);
+    }
+
+    /**
+     * partitions {@code array[from:to]} so its first {@code k} values are its {@code k} smallest values.
+     * @see TopK#select(Object[], int, int, int, java.util.Comparator)
+     */
+    private static void select(long[] array, int from, int to, int k) {
+        int target = from + k;
+        int depth = TopK.depthLimit(to - from);
+        while(from < target && target < to) {
+            if(to - from <= TopK.SORT_THRESHOLD || depth-- == 0) {
+                Arrays.sort(array, from, to);
+                return;
+            }
+            long a = array[from];
+            long b = array[(from + to) >>> 1];
+            long c = array[to - 1];
+            long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            // three-way partition into [from, lt) below the pivot, [lt, gt] equal to it and (gt, to) above it
+            int lt = from;
+            int gt = to - 1;
+            int i = from;
+            while(i <= gt) {
+                long value = array[i];
+                if(value < pivot) {
+                    array[i++] = array[lt];
+                    array[lt++] = value;
+                } else if(value > pivot) {
+                    array[i] = array[gt];
+                    array[gt--] = value;
+                } else {
+                    i++;
+                }
+            }
+            if(target < lt) {
+                to = lt;
+            } else if(target > gt + 1) {
+                from = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * sorts {@code keys}, moving the values of {@code payload} along with them.
+     * @param keys the keys
+     * @param payload values to reorder with the keys, or null
+     */
+    private static void radixSort(long[] keys, int[] payload) {
+        int n = keys.length;
+        if(n < 2) return;
+        // count the occurrences of every byte value at every position in a single pass
+        int[][] counts = new int[PASSES][256];
+        for(long key : keys) {
+            for(int pass = 0; pass < PASSES; pass++) {
+                counts[pass][digit(key, pass)]++;
+            }
+        }
+        long[] keySource = keys;
+        long[] keyTarget = new long[n];
+        int[] payloadSource = payload;
+        int[] payloadTarget = payload != null ? new int[n] : null;
+        for(int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            // skip the pass if every key has the same byte here
+            if(count[digit(keySource[0], pass)] == n) continue;
+            // turn the counts into the start positions of each byte value
+            int position = 0;
+            for(int b = 0; b < 256; b++) {
+                int c = count[b];
+                count[b] = position;
+                position += c;
+            }
+            for(int i = 0; i < n; i++) {
+                int target = count[digit(keySource[i], pass)]++;
+                keyTarget[target] = keySource[i];
+                if(payloadSource != null) payloadTarget[target] = payloadSource[i];
+            }
+            long[] keySwap = keySource;
+            keySource = keyTarget;
+            keyTarget = keySwap;
+            int[] payloadSwap = payloadSource;
+            payloadSource = payloadTarget;
+            payloadTarget = payloadSwap;
+        }
+        // after an odd number of passes the result is in the buffers
+        if(keySource != keys) {
+            System.arraycopy(keySource, 0, keys, 0, n);
+            if(payload != null) System.arraycopy(payloadSource, 0, payload, 0, n);
+        }
+    }
+
+    /**
+     * returns the byte of a key sorted in the given pass, starting from the least significant.
+     * the sign bit is flipped so negative keys sort before positive keys.
+     */
+    private static int digit(long key, int pass) {
+        int digit = (int) (key >>> (pass * 8)) & 0xff;
+        return pass == PASSES - 1 ? digit ^ 0x80 : digit;
+    }
+}
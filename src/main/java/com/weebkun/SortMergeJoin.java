@@ -0,0 +1,137 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import com.weebkun.tuples.Tuple;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * the result of a sort-merge join of two lists, yielded lazily.
+ *
+ * <p>
+ *     both lists are sorted by key when the join is created, computing each key only once,
+ *     and are then merged as the result is iterated. results are in ascending order of their keys,
+ *     and elements with equal keys keep the order of their list. null keys never match.
+ * </p>
+ * @param <L> the type of the left elements
+ * @param <R> the type of the right elements
+ * @param <K> the type of the keys
+ * @see ListUtil#sortMergeJoin(List, List, Function, Function, JoinType)
+ */
+class SortMergeJoin<L, R, K extends Comparable<? super K>> implements Iterable<Tuple> {
+
+    private final Keyed<L, K>[] left;
+    private final Keyed<R, K>[] right;
+    private final JoinType type;
+
+    SortMergeJoin(List<L> left, List<R> right, Function<? super L, ? extends K> leftKey,
+                  Function<? super R, ? extends K> rightKey, JoinType type) {
+        this.left = sort(left, leftKey);
+        this.right = sort(right, rightKey);
+        this.type = type;
+    }
+
+    private static <T, K extends Comparable<? super K>> Keyed<T, K>[] sort(List<T> list, Function<? super T, ? extends K> key) {
+        Keyed<T, K>[] keyed = Keyed.of(list, key);
+        // null keys sort first, where they are skipped by the merge
+        Comparator<Keyed<T, K>> byKey = Comparator.comparing(pair -> pair.key, Comparator.nullsFirst(Comparator.naturalOrder()));
+        if(keyed.length >= ListUtil.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(keyed, byKey);
+        } else {
+            Arrays.sort(keyed, byKey);
+        }
+        return keyed;
+    }
+
+    /**
+     * returns an iterator that merges the sorted lists as it advances.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Tuple> iterator() {
+        return new Iterator<>() {
+            // the next left and right elements to merge
+            private int i = 0;
+            private int j = 0;
+            // the run of right elements with the same key as left[i], from j to runEnd, and the position within it
+            private int runEnd = -1;
+            private int position;
+            private Tuple pending;
+
+            @Override
+            public boolean hasNext() {
+                if(this.pending == null) this.pending = advance();
+                return this.pending != null;
+            }
+
+            @Override
+            public Tuple next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                Tuple tuple = this.pending;
+                this.pending = null;
+                return tuple;
+            }
+
+            private Tuple advance() {
+                while(this.i < left.length) {
+                    Keyed<L, K> l = left[this.i];
+                    if(this.runEnd != -1) {
+                        // pair the current left element with the run of matching right elements
+                        if(type != JoinType.SEMI && this.position < this.runEnd) {
+                            return Tuple.create(l.value, right[this.position++].value);
+                        }
+                        this.i++;
+                        if(this.i < left.length && left[this.i].key.compareTo(l.key) == 0) {
+                            // the next left element has the same key, so it pairs with the same run
+                            this.position = this.j;
+                            if(type == JoinType.SEMI) return Tuple.create(left[this.i].value);
+                        } else {
+                            this.j = this.runEnd;
+                            this.runEnd = -1;
+                        }
+                        continue;
+                    }
+                    // skip right elements with smaller or null keys
+                    while(this.j < right.length && l.key != null
+                            && (right[this.j].key == null || right[this.j].key.compareTo(l.key) < 0)) {
+                        this.j++;
+                    }
+                    if(l.key == null || this.j == right.length || right[this.j].key.compareTo(l.key) > 0) {
+                        // no right element has this key
+                        this.i++;
+                        if(type == JoinType.LEFT) return Tuple.create(l.value);
+                        continue;
+                    }
+                    // find the end of the run of right elements with this key
+                    int end = this.j + 1;
+                    while(end < right.length && right[end].key.compareTo(l.key) == 0) end++;
+                    this.runEnd = end;
+                    this.position = this.j;
+                    if(type == JoinType.SEMI) return Tuple.create(l.value);
+                }
+                return null;
+            }
+        };
+    }
+
+}
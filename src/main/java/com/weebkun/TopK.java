@@ -0,0 +1,193 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * selection of the first {@code k} elements of an order without sorting all elements.
+ *
+ * <p>
+ *     arrays are partitioned in place with an introselect: a quickselect with median-of-3 pivots and a three-way partition,
+ *     which sorts the remaining range instead once it has partitioned too many times, so it never degrades to quadratic time.
+ *     from {@value #PARALLEL_THRESHOLD} elements, the array is split into chunks whose first {@code k} elements
+ *     are selected in parallel, and the selection is repeated over the gathered candidates.
+ *     streams of elements are selected with a bounded heap of {@code k} elements instead.
+ * </p>
+ * @see ListUtil#topK(Iterable, int, Comparator)
+ */
+final class TopK {
+
+    // number of elements from which arrays are selected in parallel
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    // ranges of at most this many elements are sorted instead of partitioned
+    static final int SORT_THRESHOLD = 32;
+    // number of chunks per thread of the common pool
+    static final int CHUNKS_PER_THREAD = 4;
+
+    private TopK() {}
+
+    /**
+     * returns the number of chunks to split an array of {@code n} elements into to select {@code k} of them in parallel,
+     * or 1 if it should be selected sequentially. every chunk keeps {@code k} candidates,
+     * so splitting only pays off if the chunks are much larger than {@code k}.
+     */
+    static int chunks(int n, int k) {
+        if(n < PARALLEL_THRESHOLD) return 1;
+        int chunks = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+        return (long) k * chunks * 4 <= n ? chunks : 1;
+    }
+
+    /**
+     * returns the maximum number of partitions of an introselect over {@code n} elements before it sorts instead.
+     */
+    static int depthLimit(int n) {
+        return 2 * (32 - Integer.numberOfLeadingZeros(n));
+    }
+
+    /**
+     * moves the first {@code k} elements of {@code comparator}'s order to the front of {@code array},
+     * and sorts them.
+     * @param array the array
+     * @param k the number of elements to select, at most the length of the array
+     * @param comparator the order
+     */
+    static <T> void selectSorted(T[] array, int k, Comparator<? super T> comparator) {
+        int n = array.length;
+        int chunks = chunks(n, k);
+        if(chunks > 1) {
+            // select k candidates from every chunk in parallel
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int from = (int) ((long) n * c / chunks);
+                int to = (int) ((long) n * (c + 1) / chunks);
+                select(array, from, to, Math.min(k, to - from), comparator);
+            });
+            // gather the candidates at the front. every destination starts at or before its source
+            int candidates = 0;
+            for(int c = 0; c < chunks; c++) {
+                int from = (int) ((long) n * c / chunks);
+                int count = Math.min(k, (int) ((long) n * (c + 1) / chunks) - from);
+                System.arraycopy(array, from, array, candidates, count);
+                candidates += count;
+            }
+            select(array, 0, candidates, k, comparator);
+        } else {
+            select(array, 0, n, k, comparator);
+        }
+        Arrays.sort(array, 0, k, comparator);
+    }
+
+    /**
+     * partitions {@code array[from:to]} so its first {@code k} elements are the first {@code k} elements of {@code comparator}'s order,
+     * in no particular order.
+     */
+    static <T> void select(T[] array, int from, int to, int k, Comparator<? super T> comparator) {
+        int target = from + k;
+        int depth = depthLimit(to - from);
+        while(from < target && target < to) {
+            if(to - from <= SORT_THRESHOLD || depth-- == 0) {
+                Arrays.sort(array, from, to, comparator);
+                return;
+            }
+            T pivot = median(array[from], array[(from + to) >>> 1], array[to - 1], comparator);
+            // three-way partition into [from, lt) before the pivot, [lt, gt] equal to it and (gt, to) after it
+            int lt = from;
+            int gt = to - 1;
+            int i = from;
+            while(i <= gt) {
+                int c = comparator.compare(array[i], pivot);
+                if(c < 0) {
+                    swap(array, lt++, i++);
+                } else if(c > 0) {
+                    swap(array, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if(target < lt) {
+                to = lt;
+            } else if(target > gt + 1) {
+                from = gt + 1;
+            } else {
+                // the boundary falls within the elements equal to the pivot
+                return;
+            }
+        }
+    }
+
+    private static <T> T median(T a, T b, T c, Comparator<? super T> comparator) {
+        if(comparator.compare(a, b) > 0) {
+            T swap = a;
+            a = b;
+            b = swap;
+        }
+        if(comparator.compare(b, c) <= 0) return b;
+        return comparator.compare(a, c) > 0 ? a : c;
+    }
+
+    private static void swap(Object[] array, int i, int j) {
+        Object swap = array[i];
+        array[i] = array[j];
+        array[j] = swap;
+    }
+
+    /**
+     * selects the last {@code k} elements of {@code comparator}'s order from an iterator with a bounded heap,
+     * keeping at most {@code k} elements at a time.
+     * @return the selected elements, sorted from last to first
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Object[] heapSelect(Iterator<? extends T> iterator, int k, Comparator<? super T> comparator) {
+        // min-heap of the elements kept so far, with the first of them in the order at the root
+        Object[] heap = new Object[Math.min(k, 1 << 10)];
+        int size = 0;
+        while(iterator.hasNext()) {
+            T elem = iterator.next();
+            if(size < k) {
+                if(size == heap.length) heap = Arrays.copyOf(heap, (int) Math.min(k, heap.length * 2L));
+                // sift up
+                int i = size++;
+                while(i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if(comparator.compare((T) heap[parent], elem) <= 0) break;
+                    heap[i] = heap[parent];
+                    i = parent;
+                }
+                heap[i] = elem;
+            } else if(comparator.compare(elem, (T) heap[0]) > 0) {
+                // replace the root and sift down
+                int i = 0;
+                while(true) {
+                    int child = 2 * i + 1;
+                    if(child >= size) break;
+                    if(child + 1 < size && comparator.compare((T) heap[child + 1], (T) heap[child]) < 0) child++;
+                    if(comparator.compare(elem, (T) heap[child]) <= 0) break;
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = elem;
+            }
+        }
+        Object[] result = Arrays.copyOf(heap, size);
+        Arrays.sort(result, (a, b) -> comparator.compare((T) b, (T) a));
+        return result;
+    }
+}
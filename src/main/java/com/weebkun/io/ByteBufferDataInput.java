@@ -0,0 +1,151 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DataInput} that reads from a {@link ByteBuffer}, e.g. a memory-mapped file, without copying it.
+ * reading advances the position of the buffer.
+ * @see ValueCodec
+ */
+public class ByteBufferDataInput implements DataInput {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * constructs an input that reads from the current position of {@code buffer}.
+     * @param buffer the buffer
+     */
+    public ByteBufferDataInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        if(this.buffer.remaining() < len) throw new EOFException("end of buffer.");
+        this.buffer.get(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        try {
+            return this.buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("end of buffer.");
+        }
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xff;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        try {
+            return this.buffer.getShort();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("end of buffer.");
+        }
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xffff;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        try {
+            return this.buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("end of buffer.");
+        }
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        try {
+            return this.buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("end of buffer.");
+        }
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * reads a line of bytes, each byte being one character, like {@link java.io.DataInputStream#readLine()}.
+     * @return the line without its terminator, or null at the end of the buffer
+     */
+    @Override
+    public String readLine() {
+        if(!this.buffer.hasRemaining()) return null;
+        StringBuilder line = new StringBuilder();
+        while(this.buffer.hasRemaining()) {
+            int c = this.buffer.get() & 0xff;
+            if(c == '\n') break;
+            if(c == '\r') {
+                if(this.buffer.hasRemaining() && this.buffer.get(this.buffer.position()) == '\n') this.buffer.get();
+                break;
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
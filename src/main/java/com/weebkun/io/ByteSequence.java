@@ -0,0 +1,61 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * a {@link CharSequence} view of a {@link ByteBuffer} with one {@code char} per byte, as in ISO-8859-1.
+ * this is exact for ASCII text, and lets text be scanned without decoding or copying it.
+ * @see MappedRecords#asCharSequences()
+ */
+final class ByteSequence implements CharSequence {
+
+    private final ByteBuffer bytes;
+
+    /**
+     * @param bytes the bytes, from position 0 to the limit
+     */
+    ByteSequence(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int length() {
+        return this.bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= this.bytes.limit()) throw new IndexOutOfBoundsException("index not found.");
+        return (char) (this.bytes.get(index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if(start < 0 || end > this.bytes.limit() || start > end) throw new IndexOutOfBoundsException("index not found.");
+        return new ByteSequence(this.bytes.slice(start, end - start));
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[this.bytes.limit()];
+        this.bytes.get(0, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
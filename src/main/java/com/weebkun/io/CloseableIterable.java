@@ -0,0 +1,35 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+/**
+ * an {@code Iterable} that holds resources, such as temporary files, until it is closed.
+ * use it in a try-with-resources statement so the resources are released even if iteration stops early.
+ * @param <T> the type of the elements
+ * @see ExternalSorter
+ * @see SpillBuffer
+ */
+public interface CloseableIterable<T> extends Iterable<T>, AutoCloseable {
+
+    /**
+     * releases the resources of this iterable. iterators that are still open stop working,
+     * and this iterable cannot be iterated again. closing an iterable more than once has no effect.
+     * @throws java.io.UncheckedIOException if a resource cannot be released
+     */
+    @Override
+    void close();
+}
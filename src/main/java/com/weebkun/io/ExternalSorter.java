@@ -0,0 +1,132 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+
+/**
+ * sorts more values than fit in memory.
+ *
+ * <p>
+ *     values are buffered until their estimated size exceeds the memory budget. the buffer is then sorted and written
+ *     to a temporary file with a {@link ValueCodec} as a sorted run. {@link #sort()} returns an iterable that merges
+ *     the runs and the values still in memory lazily, reading every run sequentially through its own buffer,
+ *     so the sorted values never have to fit in memory at once. the temporary files are deleted when the iterable is closed.
+ *     if everything fits in the budget, nothing is written and the values are sorted in memory.
+ * </p>
+ * <p>
+ *     at most 64 runs are merged at once, so the number of open files does not grow with the input.
+ *     with more runs, {@link #sort()} first merges groups of runs into longer runs. the read buffers of a merge
+ *     share the memory budget, so sorting uses at most about twice the budget.
+ * </p>
+ * <p>
+ *     the sort is stable. a sorter is not thread-safe.
+ * </p>
+ * e.g.
+ * <pre>{@code
+ * ExternalSorter<String> sorter = new ExternalSorter<>(Comparator.naturalOrder(), ValueCodec.STRING, 256L << 20);
+ * lines.forEach(sorter::add);
+ * try(CloseableIterable<String> sorted = sorter.sort()) {
+ *     for(String line : sorted) ...
+ * }
+ * }</pre>
+ * @param <T> the type of the values
+ * @see SpillBuffer
+ * @see com.weebkun.ListUtil#sorted(Iterable, Comparator, ValueCodec, long)
+ */
+public class ExternalSorter<T> {
+
+    private final RunWriter<T> writer;
+
+    /**
+     * creates a sorter that writes its runs to the default temporary directory.
+     * @param comparator the order to sort in
+     * @param codec the codec to write the runs with
+     * @param memoryBudget the approximate number of bytes of values to buffer before writing a run
+     */
+    public ExternalSorter(Comparator<? super T> comparator, ValueCodec<T> codec, long memoryBudget) {
+        this(comparator, codec, memoryBudget, null);
+    }
+
+    /**
+     * creates a sorter.
+     * @param comparator the order to sort in
+     * @param codec the codec to write the runs with
+     * @param memoryBudget the approximate number of bytes of values to buffer before writing a run
+     * @param directory the directory to write the runs to, or null for the default temporary directory
+     */
+    public ExternalSorter(Comparator<? super T> comparator, ValueCodec<T> codec, long memoryBudget, Path directory) {
+        if(comparator == null) throw new IllegalArgumentException("comparator cannot be null.");
+        this.writer = new RunWriter<>(comparator, codec, memoryBudget, directory);
+    }
+
+    /**
+     * sorts the values of an iterable.
+     * @param values the values
+     * @param comparator the order to sort in
+     * @param codec the codec to write the runs with
+     * @param memoryBudget the approximate number of bytes of values to buffer before writing a run
+     * @param <T> the type of the values
+     * @return an iterable of the sorted values, which must be closed to delete the runs
+     * @throws java.io.UncheckedIOException if a run cannot be written
+     */
+    public static <T> CloseableIterable<T> sort(Iterable<? extends T> values, Comparator<? super T> comparator,
+                                                ValueCodec<T> codec, long memoryBudget) {
+        ExternalSorter<T> sorter = new ExternalSorter<>(comparator, codec, memoryBudget);
+        sorter.addAll(values);
+        return sorter.sort();
+    }
+
+    /**
+     * adds a value, writing a run if the buffer is over the memory budget.
+     * @param value the value
+     * @throws java.io.UncheckedIOException if a run cannot be written
+     */
+    public void add(T value) {
+        this.writer.add(value);
+    }
+
+    /**
+     * adds the values of an iterable.
+     * @param values the values
+     * @throws java.io.UncheckedIOException if a run cannot be written
+     */
+    public void addAll(Iterable<? extends T> values) {
+        if(values == null) throw new IllegalArgumentException("values cannot be null.");
+        for(T value : values) {
+            this.writer.add(value);
+        }
+    }
+
+    /**
+     * returns the number of values added.
+     * @return the number of values
+     */
+    public long size() {
+        return this.writer.size();
+    }
+
+    /**
+     * finishes adding values, and returns an iterable that merges the sorted runs lazily.
+     * the iterable can be iterated any number of times until it is closed. no values can be added afterwards.
+     * @return an iterable of the sorted values, which must be closed to delete the runs
+     */
+    public CloseableIterable<T> sort() {
+        return this.writer.finish();
+    }
+}
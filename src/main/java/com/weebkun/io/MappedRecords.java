@@ -0,0 +1,452 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import com.weebkun.enumerate.Enumerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * the records of a file, read through memory mappings instead of being copied onto the heap.
+ *
+ * <p>
+ *     records are either lines, ended by {@code \n} or {@code \r\n}, or have a fixed width in bytes.
+ *     the file is mapped with {@link FileChannel#map} in segments of at most 1GB by default, each ending on a record boundary,
+ *     so files of any size can be mapped and no record spans two segments.
+ *     every record is yielded as a read-only {@link ByteBuffer} slice of its segment, without the line break,
+ *     and the bytes are only paged in by the operating system when they are read.
+ * </p>
+ * <p>
+ *     the records can be used with {@link com.weebkun.ListUtil#comprehend(java.util.function.Function, Iterable, java.util.function.Predicate)},
+ *     {@link com.weebkun.ListUtil#filter(Iterable, java.util.function.Predicate)} and {@link #enumerate()}, and can be processed in parallel with
+ *     {@link #parallelStream()} or {@link #split(int)}, which split the file on record boundaries.
+ *     the mappings are released when they are garbage collected, and stay valid after the file is closed.
+ *     the file must not be truncated while it is mapped.
+ * </p>
+ * e.g.
+ * <pre>{@code
+ * MappedRecords lines = MappedRecords.lines(Path.of("server.log"));
+ * long errors = lines.parallelStream().filter(line -> line.get(0) == 'E').count();
+ * }</pre>
+ * @see ByteBufferDataInput
+ */
+public final class MappedRecords implements Iterable<ByteBuffer> {
+
+    /**
+     * the default maximum size of a mapped segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    // remaining sizes below which spliterators do not split
+    private static final int MIN_SPLIT_SIZE = 1 << 16;
+
+    // read-only segments from position 0, each holding whole records
+    private final List<ByteBuffer> segments;
+    // the width of every record, or 0 for lines
+    private final int width;
+    // the index of the first record in the whole file
+    private final long firstRecord;
+
+    private MappedRecords(List<ByteBuffer> segments, int width, long firstRecord) {
+        this.segments = segments;
+        this.width = width;
+        this.firstRecord = firstRecord;
+    }
+
+    /**
+     * maps the lines of a file.
+     * @param path the file
+     * @return the lines
+     * @throws IOException if the file cannot be mapped, or a line is longer than 1GB
+     */
+    public static MappedRecords lines(Path path) throws IOException {
+        return map(path, 0, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * maps the lines of a file in segments of at most {@code segmentSize} bytes.
+     * @param path the file
+     * @param segmentSize the maximum number of bytes to map at once. every segment is a separate mapping,
+     *                    and operating systems limit the number of mappings of a process, often to about 65000
+     * @return the lines
+     * @throws IOException if the file cannot be mapped, or a line is longer than a segment
+     */
+    public static MappedRecords lines(Path path, int segmentSize) throws IOException {
+        return map(path, 0, segmentSize);
+    }
+
+    /**
+     * maps the records of a file in which every record is {@code width} bytes long.
+     * @param path the file
+     * @param width the width of a record in bytes
+     * @return the records
+     * @throws IOException if the file cannot be mapped, or its size is not a multiple of {@code width}
+     */
+    public static MappedRecords fixedWidth(Path path, int width) throws IOException {
+        return fixedWidth(path, width, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * maps the records of a file in which every record is {@code width} bytes long,
+     * in segments of at most {@code segmentSize} bytes.
+     * @param path the file
+     * @param width the width of a record in bytes
+     * @param segmentSize the maximum number of bytes to map at once. every segment is a separate mapping
+     * @return the records
+     * @throws IOException if the file cannot be mapped, or its size is not a multiple of {@code width}
+     */
+    public static MappedRecords fixedWidth(Path path, int width, int segmentSize) throws IOException {
+        if(width < 1) throw new IllegalArgumentException("width must be at least 1.");
+        return map(path, width, segmentSize);
+    }
+
+    private static MappedRecords map(Path path, int width, int segmentSize) throws IOException {
+        if(path == null) throw new IllegalArgumentException("path cannot be null.");
+        // fixed width segments hold a whole number of records
+        long segment = width > 0 ? segmentSize / width * width : segmentSize;
+        if(segment < 1) throw new IllegalArgumentException("segmentSize must be at least the width of a record.");
+        List<ByteBuffer> segments = new ArrayList<>();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(width > 0 && size % width != 0) throw new IOException("file size is not a multiple of the record width.");
+            long position = 0;
+            while(position < size) {
+                int length = (int) Math.min(segment, size - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if(width == 0 && position + length < size) {
+                    // end the segment after its last line break, the rest is mapped again with the next segment
+                    length = lastLineBreak(window, 0, length) + 1;
+                    if(length == 0) throw new IOException("a line is longer than the segment size.");
+                }
+                segments.add(window.slice(0, length).asReadOnlyBuffer());
+                position += length;
+            }
+        }
+        return new MappedRecords(segments, width, 0);
+    }
+
+    private static int lastLineBreak(ByteBuffer buffer, int from, int to) {
+        for(int i = to - 1; i >= from; i--) {
+            if(buffer.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static int nextLineBreak(ByteBuffer buffer, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(buffer.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * returns the end of the record starting at {@code position}, and where the next record starts.
+     * @return the end of the record in the lower 32 bits, and the start of the next record in the upper 32 bits
+     */
+    private long record(ByteBuffer segment, int position) {
+        if(this.width > 0) {
+            int end = position + this.width;
+            return (long) end << 32 | end;
+        }
+        int limit = segment.limit();
+        int lineBreak = nextLineBreak(segment, position, limit);
+        if(lineBreak == -1) return (long) limit << 32 | limit;
+        int end = lineBreak > position && segment.get(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak;
+        return (long) (lineBreak + 1) << 32 | end;
+    }
+
+    /**
+     * returns an iterator over the records, each as a read-only slice of the mapping positioned at 0.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<ByteBuffer> iterator() {
+        return new Iterator<>() {
+            private int segment = 0;
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                while(this.segment < segments.size() && this.position >= segments.get(this.segment).limit()) {
+                    this.segment++;
+                    this.position = 0;
+                }
+                return this.segment < segments.size();
+            }
+
+            @Override
+            public ByteBuffer next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                ByteBuffer buffer = segments.get(this.segment);
+                long record = record(buffer, this.position);
+                ByteBuffer slice = buffer.slice(this.position, (int) record - this.position);
+                this.position = (int) (record >>> 32);
+                return slice;
+            }
+        };
+    }
+
+    /**
+     * returns a spliterator over the records, which splits on record boundaries.
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<ByteBuffer> spliterator() {
+        return new RecordSpliterator(new ArrayList<>(this.segments));
+    }
+
+    /**
+     * returns a sequential stream of the records.
+     * @return the stream
+     */
+    public Stream<ByteBuffer> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * returns a parallel stream of the records. the file is split on record boundaries.
+     * @return the stream
+     */
+    public Stream<ByteBuffer> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * returns the records as {@code CharSequence}s with one {@code char} per byte, as in ISO-8859-1,
+     * without decoding or copying them. this is exact for ASCII text. decode the {@code ByteBuffer}s
+     * with a {@link java.nio.charset.Charset} instead for other encodings.
+     * @return an iterable of the records as text
+     */
+    public Iterable<CharSequence> asCharSequences() {
+        return () -> new Iterator<>() {
+            private final Iterator<ByteBuffer> records = iterator();
+
+            @Override
+            public boolean hasNext() {
+                return this.records.hasNext();
+            }
+
+            @Override
+            public CharSequence next() {
+                return new ByteSequence(this.records.next());
+            }
+        };
+    }
+
+    /**
+     * returns an {@link Enumerator} over the records, with the index of each record in the whole file as the index of its item.
+     * for parts returned by {@link #split(int)}, indices continue from the preceding parts.
+     * indices are {@code int}s, so only files of at most {@link Integer#MAX_VALUE} + 1 records can be enumerated.
+     * @return the enumerator
+     * @throws ArithmeticException if the index of a record does not fit in an {@code int}
+     */
+    public Enumerator<ByteBuffer> enumerate() {
+        // the number of indices from firstRecord up to Integer.MAX_VALUE. every line takes at least one byte,
+        // so lines are only counted when there could be too many
+        long available = (long) Integer.MAX_VALUE + 1 - this.firstRecord;
+        if((this.width > 0 ? count() : bytes()) > available && count() > available) {
+            throw new ArithmeticException("record indices do not fit in an int.");
+        }
+        return new Enumerator<>(this, (int) this.firstRecord);
+    }
+
+    /**
+     * returns the number of records. for lines, the records are counted by scanning the mapped segments in parallel.
+     * @return the number of records
+     */
+    public long count() {
+        if(this.width > 0) return bytes() / this.width;
+        return this.segments.parallelStream().mapToLong(MappedRecords::countLines).sum();
+    }
+
+    private static long countLines(ByteBuffer segment) {
+        int limit = segment.limit();
+        long lines = 0;
+        for(int i = 0; i < limit; i++) {
+            if(segment.get(i) == '\n') lines++;
+        }
+        // a last line without a line break
+        if(limit > 0 && segment.get(limit - 1) != '\n') lines++;
+        return lines;
+    }
+
+    /**
+     * returns the number of mapped bytes, including line breaks.
+     * @return the number of bytes
+     */
+    public long bytes() {
+        long bytes = 0;
+        for(ByteBuffer segment : this.segments) {
+            bytes += segment.limit();
+        }
+        return bytes;
+    }
+
+    /**
+     * splits the records into at most {@code parts} consecutive parts of about the same number of bytes,
+     * on record boundaries, e.g. to process each part on its own thread.
+     * the parts share the mappings of this object. for lines, the records of every part are counted,
+     * in parallel, so that {@link #enumerate()} on a part continues from the indices of the preceding parts.
+     * @param parts the number of parts
+     * @return the parts, in order. parts that would be empty are left out
+     */
+    public List<MappedRecords> split(int parts) {
+        if(parts < 1) throw new IllegalArgumentException("parts must be at least 1.");
+        long total = bytes();
+        List<List<ByteBuffer>> slices = new ArrayList<>();
+        RecordSpliterator rest = new RecordSpliterator(new ArrayList<>(this.segments));
+        long consumed = 0;
+        for(int part = 1; part < parts && consumed < total; part++) {
+            List<ByteBuffer> prefix = rest.take(total * part / parts - consumed);
+            for(ByteBuffer slice : prefix) {
+                consumed += slice.limit();
+            }
+            if(!prefix.isEmpty()) slices.add(prefix);
+        }
+        if(!rest.segments.isEmpty()) slices.add(rest.segments);
+        // count the records before every part
+        long[] counts = slices.parallelStream().mapToLong(part -> {
+            long records = 0;
+            for(ByteBuffer slice : part) {
+                records += this.width > 0 ? slice.limit() / this.width : countLines(slice);
+            }
+            return records;
+        }).toArray();
+        List<MappedRecords> result = new ArrayList<>(slices.size());
+        long first = this.firstRecord;
+        for(int i = 0; i < slices.size(); i++) {
+            result.add(new MappedRecords(slices.get(i), this.width, first));
+            first += counts[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedRecords(" + (this.width > 0 ? "width=" + this.width : "lines") + ", bytes=" + bytes() + ")";
+    }
+
+    /**
+     * a spliterator over a list of segments of whole records, which splits off a prefix of about half its bytes
+     * on a record boundary.
+     */
+    private final class RecordSpliterator implements Spliterator<ByteBuffer> {
+
+        // the remaining segments, the first one starting at the next record
+        private final List<ByteBuffer> segments;
+
+        RecordSpliterator(List<ByteBuffer> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+            while(!this.segments.isEmpty() && this.segments.get(0).limit() == 0) {
+                this.segments.remove(0);
+            }
+            if(this.segments.isEmpty()) return false;
+            ByteBuffer segment = this.segments.get(0);
+            long record = record(segment, 0);
+            int next = (int) (record >>> 32);
+            ByteBuffer slice = segment.slice(0, (int) record);
+            this.segments.set(0, segment.slice(next, segment.limit() - next));
+            action.accept(slice);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super ByteBuffer> action) {
+            for(ByteBuffer segment : this.segments) {
+                int position = 0;
+                while(position < segment.limit()) {
+                    long record = record(segment, position);
+                    action.accept(segment.slice(position, (int) record - position));
+                    position = (int) (record >>> 32);
+                }
+            }
+            this.segments.clear();
+        }
+
+        @Override
+        public Spliterator<ByteBuffer> trySplit() {
+            long remaining = estimateSize() * Math.max(1, width);
+            if(remaining < MIN_SPLIT_SIZE) return null;
+            List<ByteBuffer> prefix = take(remaining / 2);
+            return prefix.isEmpty() ? null : new RecordSpliterator(prefix);
+        }
+
+        /**
+         * removes and returns the segments of at least {@code bytes} bytes from the front, ending on a record boundary.
+         */
+        List<ByteBuffer> take(long bytes) {
+            List<ByteBuffer> prefix = new ArrayList<>();
+            while(bytes > 0 && !this.segments.isEmpty()) {
+                ByteBuffer segment = this.segments.get(0);
+                int limit = segment.limit();
+                if(limit <= bytes) {
+                    // take the whole segment
+                    prefix.add(this.segments.remove(0));
+                    bytes -= limit;
+                    continue;
+                }
+                // cut the segment at the first record boundary at or after the target
+                int cut;
+                if(width > 0) {
+                    cut = (int) ((bytes + width - 1) / width * width);
+                } else {
+                    int lineBreak = nextLineBreak(segment, (int) bytes - 1, limit);
+                    cut = lineBreak == -1 ? limit : lineBreak + 1;
+                }
+                prefix.add(segment.slice(0, cut));
+                if(cut < limit) {
+                    this.segments.set(0, segment.slice(cut, limit - cut));
+                } else {
+                    this.segments.remove(0);
+                }
+                break;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long bytes = 0;
+            for(ByteBuffer segment : this.segments) {
+                bytes += segment.limit();
+            }
+            // the number of lines is not known without scanning them, so the number of bytes is an upper bound
+            return width > 0 ? bytes / width : bytes;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | NONNULL | IMMUTABLE;
+            return width > 0 ? characteristics | SIZED | SUBSIZED : characteristics;
+        }
+    }
+}
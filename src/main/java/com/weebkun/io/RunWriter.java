@@ -0,0 +1,226 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * buffers values in memory up to a budget, and writes the buffered values to a temporary file as a run
+ * whenever the budget is exceeded.
+ *
+ * <p>
+ *     the in-memory size of a value is estimated as its encoded size plus a fixed overhead for the object and its reference.
+ *     encoding every value twice would be too slow, so the encoded size is sampled from every 64th value.
+ * </p>
+ * <p>
+ *     sorted runs are merged at most {@value #MAX_FAN_IN} at a time, so the number of open files stays bounded
+ *     however large the input is. if there are more runs when writing finishes, consecutive groups of runs are merged
+ *     into longer runs first, in as many passes as needed. every run being merged is read through a buffer
+ *     of the memory budget divided by the fan-in, between 1KB and 64KB.
+ * </p>
+ * @param <T> the type of the values
+ */
+class RunWriter<T> {
+
+    // estimated bytes per buffered value besides its encoded size, for the object header and the reference to it
+    private static final int OVERHEAD = 32;
+    private static final int SAMPLE_INTERVAL = 64;
+    // size of the write buffer, and the largest read buffer
+    static final int BUFFER_SIZE = 1 << 16;
+    private static final int MIN_READ_BUFFER = 1 << 10;
+    // maximum number of sorted runs merged at once. every run being merged holds an open file and a read buffer
+    static final int MAX_FAN_IN = 64;
+
+    private final Comparator<? super T> order;
+    private final ValueCodec<T> codec;
+    private final long memoryBudget;
+    private final Path directory;
+    private final List<T> buffer = new ArrayList<>();
+    private final List<SpilledRuns.Run> runs = new ArrayList<>();
+    private long bufferedBytes;
+    // sampling of encoded sizes
+    private final DataOutputStream sample = new DataOutputStream(OutputStream.nullOutputStream());
+    private long sampledBytes;
+    private long sampled;
+    private long count;
+    private boolean finished;
+
+    /**
+     * @param order the order to sort each run in, or null to keep the order the values were added in
+     * @param directory the directory to create temporary files in, or null for the default temporary directory
+     */
+    RunWriter(Comparator<? super T> order, ValueCodec<T> codec, long memoryBudget, Path directory) {
+        if(codec == null) throw new IllegalArgumentException("codec cannot be null.");
+        if(memoryBudget < 1) throw new IllegalArgumentException("memoryBudget must be at least 1.");
+        this.order = order;
+        this.codec = codec;
+        this.memoryBudget = memoryBudget;
+        this.directory = directory;
+    }
+
+    void add(T value) {
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        if(this.finished) throw new IllegalStateException("no values can be added once finished.");
+        this.buffer.add(value);
+        this.bufferedBytes += estimate(value);
+        if(this.bufferedBytes > this.memoryBudget) spill();
+    }
+
+    private long estimate(T value) {
+        if(this.count++ % SAMPLE_INTERVAL == 0) {
+            int before = this.sample.size();
+            try {
+                this.codec.write(value, this.sample);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // size() stops counting at Integer.MAX_VALUE, which only skews the sample after 2GB of samples
+            this.sampledBytes += Math.max(0, this.sample.size() - before);
+            this.sampled++;
+        }
+        return this.sampledBytes / this.sampled + OVERHEAD;
+    }
+
+    private void spill() {
+        if(this.order != null) this.buffer.sort(this.order);
+        try {
+            this.runs.add(write(this.buffer.iterator(), this.buffer.size()));
+        } catch(IOException e) {
+            throw fail(e);
+        }
+        this.buffer.clear();
+        this.bufferedBytes = 0;
+    }
+
+    /**
+     * writes values to a new temporary file as a run. the file is deleted if writing fails.
+     */
+    private SpilledRuns.Run write(Iterator<T> values, long count) throws IOException {
+        Path path = this.directory != null
+                ? Files.createTempFile(this.directory, "list-utils-", ".run")
+                : Files.createTempFile("list-utils-", ".run");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE))) {
+            while(values.hasNext()) {
+                this.codec.write(values.next(), out);
+            }
+        } catch(IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch(IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return new SpilledRuns.Run(path, count);
+    }
+
+    /**
+     * merges groups of {@value #MAX_FAN_IN} consecutive sorted runs into single runs until the remaining runs
+     * and the values in memory can be merged at once. merging consecutive runs keeps the merge stable.
+     * the merged runs are deleted as soon as they have been merged.
+     */
+    private void mergeRuns() throws IOException {
+        while(this.runs.size() > MAX_FAN_IN - 1) {
+            List<SpilledRuns.Run> merged = new ArrayList<>();
+            int from = 0;
+            try {
+                for(; from < this.runs.size(); from += MAX_FAN_IN) {
+                    List<SpilledRuns.Run> group = new ArrayList<>(this.runs.subList(from, Math.min(this.runs.size(), from + MAX_FAN_IN)));
+                    long count = 0;
+                    for(SpilledRuns.Run run : group) {
+                        count += run.count;
+                    }
+                    // closing the inputs deletes their files
+                    try(SpilledRuns<T> inputs = new SpilledRuns<>(group, List.of(), this.codec, this.order, readBufferSize())) {
+                        merged.add(write(inputs.iterator(), count));
+                    }
+                }
+            } finally {
+                // on failure, the groups from the failed one onwards were not merged yet, and the failed one is deleted
+                if(from < this.runs.size()) {
+                    merged.addAll(this.runs.subList(Math.min(this.runs.size(), from + MAX_FAN_IN), this.runs.size()));
+                }
+                this.runs.clear();
+                this.runs.addAll(merged);
+            }
+        }
+    }
+
+    /**
+     * returns the size of the buffer of each run being read, so the buffers of a merge fit in the memory budget.
+     */
+    private int readBufferSize() {
+        long share = this.order != null ? this.memoryBudget / MAX_FAN_IN : this.memoryBudget;
+        return (int) Math.max(MIN_READ_BUFFER, Math.min(BUFFER_SIZE, share));
+    }
+
+    /**
+     * deletes the runs written so far after a failure, and returns the failure to throw.
+     */
+    private UncheckedIOException fail(IOException e) {
+        UncheckedIOException failure = new UncheckedIOException(e);
+        try {
+            discard();
+        } catch(UncheckedIOException suppressed) {
+            failure.addSuppressed(suppressed.getCause());
+        }
+        return failure;
+    }
+
+    /**
+     * returns the number of values added.
+     */
+    long size() {
+        return this.count;
+    }
+
+    /**
+     * returns an iterable over all values added, merged in order if runs are sorted.
+     * the values still buffered are kept in memory instead of being spilled.
+     */
+    CloseableIterable<T> finish() {
+        if(this.finished) throw new IllegalStateException("already finished.");
+        this.finished = true;
+        if(this.order != null) {
+            this.buffer.sort(this.order);
+            try {
+                mergeRuns();
+            } catch(IOException e) {
+                throw fail(e);
+            }
+        }
+        return new SpilledRuns<>(this.runs, this.buffer, this.codec, this.order, readBufferSize());
+    }
+
+    /**
+     * deletes the runs written so far, after a failure.
+     */
+    private void discard() {
+        this.finished = true;
+        new SpilledRuns<>(this.runs, this.buffer, this.codec, this.order, MIN_READ_BUFFER).close();
+    }
+}
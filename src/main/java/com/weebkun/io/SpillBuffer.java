@@ -0,0 +1,82 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.nio.file.Path;
+
+/**
+ * an append-only sequence that writes its values to temporary files once they exceed a memory budget.
+ *
+ * <p>
+ *     values are buffered until their estimated size exceeds the memory budget, and the buffer is then written
+ *     to a temporary file with a {@link ValueCodec}. {@link #finish()} returns an iterable that reads the files back lazily,
+ *     followed by the values still in memory, in the order they were added.
+ *     the temporary files are deleted when the iterable is closed.
+ * </p>
+ * @param <T> the type of the values
+ * @see ExternalSorter
+ * @see com.weebkun.ListUtil#comprehend(java.util.function.Function, Iterable, java.util.function.Predicate, ValueCodec, long)
+ */
+public class SpillBuffer<T> {
+
+    private final RunWriter<T> writer;
+
+    /**
+     * creates a buffer that spills to the default temporary directory.
+     * @param codec the codec to write the values with
+     * @param memoryBudget the approximate number of bytes of values to keep in memory
+     */
+    public SpillBuffer(ValueCodec<T> codec, long memoryBudget) {
+        this(codec, memoryBudget, null);
+    }
+
+    /**
+     * creates a buffer.
+     * @param codec the codec to write the values with
+     * @param memoryBudget the approximate number of bytes of values to keep in memory
+     * @param directory the directory to spill to, or null for the default temporary directory
+     */
+    public SpillBuffer(ValueCodec<T> codec, long memoryBudget, Path directory) {
+        this.writer = new RunWriter<>(null, codec, memoryBudget, directory);
+    }
+
+    /**
+     * appends a value, spilling the buffer to a file if it is over the memory budget.
+     * @param value the value
+     * @throws java.io.UncheckedIOException if the buffer cannot be spilled
+     */
+    public void add(T value) {
+        this.writer.add(value);
+    }
+
+    /**
+     * returns the number of values added.
+     * @return the number of values
+     */
+    public long size() {
+        return this.writer.size();
+    }
+
+    /**
+     * finishes adding values, and returns an iterable of them in the order they were added.
+     * the iterable can be iterated any number of times until it is closed. no values can be added afterwards.
+     * @return an iterable of the values, which must be closed to delete the spilled files
+     */
+    public CloseableIterable<T> finish() {
+        return this.writer.finish();
+    }
+}
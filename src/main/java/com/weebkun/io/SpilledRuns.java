@@ -0,0 +1,245 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * the values of a {@link RunWriter}: runs in temporary files followed by the values left in memory.
+ * runs are read back lazily, one buffered stream per run. sorted runs are merged with a k-way merge over a heap
+ * of the next value of every run, so memory use does not depend on the number of values.
+ * equal values are yielded in the order of their runs, so the merge is stable.
+ * @param <T> the type of the values
+ */
+class SpilledRuns<T> implements CloseableIterable<T> {
+
+    private final List<Run> runs;
+    private final List<T> memory;
+    private final ValueCodec<T> codec;
+    private final Comparator<? super T> order;
+    private final int bufferSize;
+    // readers that have not reached the end of their run yet
+    private final Set<RunIterator> open = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean closed;
+
+    /**
+     * @param bufferSize the size of the buffer each run is read through
+     */
+    SpilledRuns(List<Run> runs, List<T> memory, ValueCodec<T> codec, Comparator<? super T> order, int bufferSize) {
+        this.runs = runs;
+        this.memory = memory;
+        this.codec = codec;
+        this.order = order;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if(this.closed) throw new IllegalStateException("this iterable is closed.");
+        List<Iterator<T>> sources = new ArrayList<>(this.runs.size() + 1);
+        for(Run run : this.runs) {
+            sources.add(new RunIterator(run));
+        }
+        sources.add(this.memory.iterator());
+        Iterator<T> values = this.order != null ? new MergeIterator<>(sources, this.order) : new ConcatIterator<>(sources);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return values.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if(closed) throw new IllegalStateException("this iterable is closed.");
+                return values.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if(this.closed) return;
+        this.closed = true;
+        IOException failure = null;
+        for(RunIterator reader : new ArrayList<>(this.open)) {
+            try {
+                reader.close();
+            } catch(IOException e) {
+                if(failure == null) failure = e; else failure.addSuppressed(e);
+            }
+        }
+        for(Run run : this.runs) {
+            try {
+                Files.deleteIfExists(run.path);
+            } catch(IOException e) {
+                if(failure == null) failure = e; else failure.addSuppressed(e);
+            }
+        }
+        if(failure != null) throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * a temporary file holding a run of encoded values.
+     */
+    static final class Run {
+
+        final Path path;
+        final long count;
+
+        Run(Path path, long count) {
+            this.path = path;
+            this.count = count;
+        }
+    }
+
+    /**
+     * reads the values of a run. the file is opened on the first read and closed at the end of the run.
+     */
+    private final class RunIterator implements Iterator<T> {
+
+        private final Run run;
+        private DataInputStream in;
+        private long remaining;
+
+        RunIterator(Run run) {
+            this.run = run;
+            this.remaining = run.count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            try {
+                if(closed) throw new IllegalStateException("this iterable is closed.");
+                if(this.in == null) {
+                    this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.run.path), bufferSize));
+                    open.add(this);
+                }
+                T value = codec.read(this.in);
+                if(--this.remaining == 0) close();
+                return value;
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() throws IOException {
+            open.remove(this);
+            if(this.in != null) {
+                this.in.close();
+                this.in = null;
+            }
+        }
+    }
+
+    /**
+     * yields the values of several iterators one after another.
+     */
+    private static final class ConcatIterator<T> implements Iterator<T> {
+
+        private final Iterator<Iterator<T>> sources;
+        private Iterator<T> current = Collections.emptyIterator();
+
+        ConcatIterator(List<Iterator<T>> sources) {
+            this.sources = sources.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(!this.current.hasNext() && this.sources.hasNext()) {
+                this.current = this.sources.next();
+            }
+            return this.current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            return this.current.next();
+        }
+    }
+
+    /**
+     * merges sorted iterators into a single sorted sequence.
+     */
+    private static final class MergeIterator<T> implements Iterator<T> {
+
+        private final List<Iterator<T>> sources;
+        private final PriorityQueue<Head<T>> heads;
+
+        MergeIterator(List<Iterator<T>> sources, Comparator<? super T> order) {
+            this.sources = sources;
+            // ties are broken by the index of the source, so equal values keep the order of their runs
+            this.heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                    (a, b) -> {
+                        int c = order.compare(a.value, b.value);
+                        return c != 0 ? c : Integer.compare(a.source, b.source);
+                    });
+            for(int i = 0; i < sources.size(); i++) {
+                advance(i);
+            }
+        }
+
+        private void advance(int source) {
+            Iterator<T> iterator = this.sources.get(source);
+            if(iterator.hasNext()) this.heads.add(new Head<>(iterator.next(), source));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            Head<T> head = this.heads.poll();
+            if(head == null) throw new NoSuchElementException();
+            advance(head.source);
+            return head.value;
+        }
+    }
+
+    private static final class Head<T> {
+
+        final T value;
+        final int source;
+
+        Head(T value, int source) {
+            this.value = value;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * encodes values to and decodes values from a binary form.
+ * used wherever values are written to files, e.g. {@link com.weebkun.tree.TreeSnapshot}.
+ * a codec must read back exactly the bytes it wrote.
+ * @param <T> the type of values
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * codec for {@link Integer}s, as 4 bytes.
+     */
+    ValueCodec<Integer> INTEGER = new ValueCodec<>() {
+        @Override
+        public void write(Integer value, DataOutput out) throws IOException {
+            out.writeInt(value);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    /**
+     * codec for {@link Long}s, as 8 bytes.
+     */
+    ValueCodec<Long> LONG = new ValueCodec<>() {
+        @Override
+        public void write(Long value, DataOutput out) throws IOException {
+            out.writeLong(value);
+        }
+
+        @Override
+        public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+
+    /**
+     * codec for {@link Double}s, as 8 bytes.
+     */
+    ValueCodec<Double> DOUBLE = new ValueCodec<>() {
+        @Override
+        public void write(Double value, DataOutput out) throws IOException {
+            out.writeDouble(value);
+        }
+
+        @Override
+        public Double read(DataInput in) throws IOException {
+            return in.readDouble();
+        }
+    };
+
+    /**
+     * codec for {@link String}s, as the length in bytes followed by the UTF-8 bytes.
+     * unlike {@link DataOutput#writeUTF(String)}, strings are not limited to 65535 bytes.
+     */
+    ValueCodec<String> STRING = new ValueCodec<>() {
+        @Override
+        public void write(String value, DataOutput out) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * writes a value.
+     * @param value the value
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void write(T value, DataOutput out) throws IOException;
+
+    /**
+     * reads a value.
+     * @param in the input to read from
+     * @return the value
+     * @throws IOException if reading fails
+     */
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,70 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.jfr;
+
+import jdk.jfr.SettingControl;
+
+import java.util.Set;
+
+/**
+ * the {@code minimumSize} setting of the events in this package.
+ * an event is only recorded if it processed at least this many elements.
+ * when several recordings run at once, the smallest of their values is used.
+ * the default is {@value #DEFAULT}.
+ */
+final class SizeThreshold extends SettingControl {
+
+    static final long DEFAULT = 10000;
+
+    private volatile long value = DEFAULT;
+
+    @Override
+    public String combine(Set<String> values) {
+        long min = Long.MAX_VALUE;
+        for(String value : values) {
+            min = Math.min(min, parse(value));
+        }
+        return String.valueOf(min == Long.MAX_VALUE ? DEFAULT : min);
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.value = parse(value);
+    }
+
+    @Override
+    public String getValue() {
+        return String.valueOf(this.value);
+    }
+
+    /**
+     * checks if a number of elements reaches this threshold.
+     * @param size the number of elements
+     * @return true if the event should be recorded
+     */
+    boolean accepts(long size) {
+        return size >= this.value;
+    }
+
+    private static long parse(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return DEFAULT;
+        }
+    }
+}
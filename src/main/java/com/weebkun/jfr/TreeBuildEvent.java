@@ -0,0 +1,57 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * emitted when a {@link com.weebkun.tree.BinarySearchTree} is built from a list or an array.
+ * a height close to the size points to a degenerate tree, e.g. one built from sorted input.
+ * recorded if it processed at least {@code minimumSize} elements, {@value SizeThreshold#DEFAULT} by default,
+ * and took at least {@code threshold}, 0 ms by default.
+ */
+@Name("com.weebkun.TreeBuild")
+@Label("Tree Build")
+@Category({"List Utils", "Trees"})
+@Description("construction of a search tree")
+@StackTrace
+@Threshold("0 ms")
+public final class TreeBuildEvent extends Event {
+
+    @Label("Tree Class")
+    public Class<?> treeClass;
+
+    @Label("Size")
+    public int size;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Minimum Size")
+    @Description("the smallest number of elements for which the event is recorded")
+    @SettingDefinition
+    protected boolean minimumSize(SizeThreshold threshold) {
+        return threshold.accepts(this.size);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * emitted by {@link com.weebkun.ListUtil#zip(java.util.Collection[])} when it builds its list of tuples.
+ * recorded if it processed at least {@code minimumSize} elements, {@value SizeThreshold#DEFAULT} by default,
+ * and took at least {@code threshold}, 0 ms by default.
+ */
+@Name("com.weebkun.Zip")
+@Label("Zip")
+@Category({"List Utils"})
+@Description("materialization of a zipped list of tuples")
+@StackTrace
+@Threshold("0 ms")
+public final class ZipEvent extends Event {
+
+    @Label("Collections")
+    public int collections;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Minimum Size")
+    @Description("the smallest number of elements for which the event is recorded")
+    @SettingDefinition
+    protected boolean minimumSize(SizeThreshold threshold) {
+        return threshold.accepts(this.rows);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative {@code long} values with a bounded relative error, in the style of HdrHistogram.
+ *
+ * <p>
+ *     values below 64 are counted exactly. larger values are grouped into buckets by their highest set bit,
+ *     and each of those ranges is split into 32 equal sub-buckets, so a bucket is never wider than about 3% of its values.
+ *     this covers the whole range of {@code long} with a fixed 1888 buckets, about 15KB.
+ * </p>
+ * <p>
+ *     {@link #record(long)} only updates atomic counters, so any number of threads can record at once without locking.
+ *     reads are not atomic as a whole, so percentiles read while other threads record are approximate.
+ * </p>
+ */
+public class Histogram {
+
+    // values below this are counted exactly, larger values keep this many significant bits
+    private static final int SUB_BUCKETS = 64;
+    private static final int HALF = SUB_BUCKETS / 2;
+    // 64 exact buckets, then 32 sub-buckets for each highest bit from 6 to 62
+    private static final int BUCKETS = SUB_BUCKETS + (62 - 5) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * records a value. negative values are recorded as 0.
+     * @param value the value
+     */
+    public void record(long value) {
+        if(value < 0) value = 0;
+        this.counts.incrementAndGet(bucket(value));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+        long min;
+        while(value < (min = this.min.get()) && !this.min.compareAndSet(min, value)) {
+            // retry until no other thread has recorded a smaller value in between
+        }
+        long max;
+        while(value > (max = this.max.get()) && !this.max.compareAndSet(max, value)) {
+            // retry until no other thread has recorded a larger value in between
+        }
+    }
+
+    /**
+     * returns the number of recorded values.
+     * @return the count
+     */
+    public long count() {
+        return this.count.get();
+    }
+
+    /**
+     * returns the smallest recorded value.
+     * @return the minimum, or 0 if nothing was recorded
+     */
+    public long min() {
+        return count() == 0 ? 0 : this.min.get();
+    }
+
+    /**
+     * returns the largest recorded value.
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long max() {
+        return count() == 0 ? 0 : this.max.get();
+    }
+
+    /**
+     * returns the mean of the recorded values.
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) this.sum.get() / count;
+    }
+
+    /**
+     * returns the value below which the given percentage of the recorded values fall.
+     * the result is the highest value of the bucket the percentile falls in, capped at {@link #max()}.
+     * @param percentile the percentile, from 0 to 100
+     * @return the value at the percentile, or 0 if nothing was recorded
+     * @throws IllegalArgumentException if {@code percentile} is not between 0 and 100
+     */
+    public long percentile(double percentile) throws IllegalArgumentException {
+        if(!(percentile >= 0 && percentile <= 100)) throw new IllegalArgumentException("percentile must be between 0 and 100.");
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            total += this.counts.get(i);
+        }
+        if(total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if(seen >= rank) return Math.min(highest(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * clears all recorded values. values recorded while resetting may be partly lost.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.set(0);
+        this.sum.set(0);
+        this.min.set(Long.MAX_VALUE);
+        this.max.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * returns the index of the bucket a value is counted in.
+     */
+    static int bucket(long value) {
+        if(value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        // the top 6 bits of the value, from 32 to 63
+        int top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (top - HALF);
+    }
+
+    /**
+     * returns the highest value counted in a bucket.
+     */
+    static long highest(int bucket) {
+        if(bucket < SUB_BUCKETS) return bucket;
+        int shift = (bucket - SUB_BUCKETS) / HALF + 1;
+        long top = (bucket - SUB_BUCKETS) % HALF + HALF;
+        // the top bucket ends at Long.MAX_VALUE, where the shifted bound would overflow
+        return top == SUB_BUCKETS - 1 && shift == 57 ? Long.MAX_VALUE : ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * returns a summary of the recorded values.
+     * @return the string representation of this histogram
+     */
+    @Override
+    public String toString() {
+        return "count=" + count() + ", min=" + min() + ", mean=" + String.format("%.1f", mean())
+                + ", p50=" + percentile(50) + ", p99=" + percentile(99) + ", max=" + max();
+    }
+}
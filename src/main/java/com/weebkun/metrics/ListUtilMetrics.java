@@ -0,0 +1,62 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.metrics;
+
+/**
+ * receives measurements of the operations of this library.
+ *
+ * <p>
+ *     an implementation is installed with {@link Metrics#install(ListUtilMetrics)}, or found with {@link java.util.ServiceLoader}
+ *     when {@link Metrics} is first used, by listing it in {@code META-INF/services/com.weebkun.metrics.ListUtilMetrics}.
+ *     while no implementation is installed, operations skip measuring altogether, so metrics cost nothing when disabled.
+ * </p>
+ * <p>
+ *     methods are called on the thread that ran the operation, possibly from many threads at once,
+ *     so implementations must be thread safe and should return quickly. every method does nothing by default.
+ *     {@link RecordingMetrics} is a ready to use implementation that keeps {@link Histogram}s.
+ * </p>
+ * @see Metrics
+ */
+public interface ListUtilMetrics {
+
+    /**
+     * called when an operation completes.
+     * @param operation the operation
+     * @param size the size of the input, or of the result where noted in {@link Operation}
+     * @param nanos the time the operation took in nanoseconds
+     */
+    default void operation(Operation operation, int size, long nanos) {
+    }
+
+    /**
+     * called when the shape of a tree is known, e.g. after a {@link com.weebkun.tree.BinarySearchTree} is built.
+     * a height close to the size points to a degenerate tree, e.g. a search tree built from sorted input.
+     * @param tree the class of the tree
+     * @param size the number of nodes
+     * @param height the height of the tree
+     */
+    default void treeShape(Class<?> tree, int size, int height) {
+    }
+
+    /**
+     * called when a self-balancing tree rotates nodes to restore its balance.
+     * @param tree the class of the tree
+     * @param rotations the number of rotations
+     */
+    default void rebalance(Class<?> tree, int rotations) {
+    }
+}
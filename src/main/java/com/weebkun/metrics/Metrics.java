@@ -0,0 +1,83 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.metrics;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * holds the {@link ListUtilMetrics} that operations report to.
+ *
+ * <p>
+ *     operations read {@link #current()} once and only measure if it is not null:
+ * </p>
+ * <pre>{@code
+ * ListUtilMetrics metrics = Metrics.current();
+ * long start = metrics != null ? System.nanoTime() : 0;
+ * // do the work
+ * if(metrics != null) metrics.operation(Operation.MAP, size, System.nanoTime() - start);
+ * }</pre>
+ */
+public final class Metrics {
+
+    private static volatile ListUtilMetrics current = load();
+
+    private Metrics() {
+    }
+
+    /**
+     * returns the installed metrics.
+     * @return the metrics, or null if metrics are disabled
+     */
+    public static ListUtilMetrics current() {
+        return current;
+    }
+
+    /**
+     * checks if metrics are enabled.
+     * @return true if an implementation is installed
+     */
+    public static boolean isEnabled() {
+        return current != null;
+    }
+
+    /**
+     * installs the metrics that operations report to, replacing the previous ones.
+     * @param metrics the metrics
+     * @throws IllegalArgumentException if {@code metrics} is null
+     */
+    public static void install(ListUtilMetrics metrics) throws IllegalArgumentException {
+        if(metrics == null) throw new IllegalArgumentException("metrics cannot be null.");
+        current = metrics;
+    }
+
+    /**
+     * disables metrics.
+     */
+    public static void uninstall() {
+        current = null;
+    }
+
+    /**
+     * finds the first implementation registered with {@link ServiceLoader}.
+     * @return the implementation, or null if there is none
+     */
+    private static ListUtilMetrics load() {
+        Iterator<ListUtilMetrics> iterator = ServiceLoader.load(ListUtilMetrics.class).iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.metrics;
+
+/**
+ * the operations reported to {@link ListUtilMetrics#operation(Operation, int, long)}.
+ */
+public enum Operation {
+
+    /**
+     * {@link com.weebkun.ListUtil#comprehend(java.util.function.Function, Iterable, java.util.function.Predicate)}.
+     * the size is the number of elements in the result.
+     */
+    COMPREHEND,
+
+    /**
+     * {@link com.weebkun.ListUtil#map(java.util.List, java.util.function.Function)}.
+     */
+    MAP,
+
+    /**
+     * {@link com.weebkun.ListUtil#filter(java.util.Collection, java.util.function.Predicate)}.
+     */
+    FILTER,
+
+    /**
+     * {@link com.weebkun.ListUtil#zip(java.util.Collection[])}. the size is the number of rows.
+     */
+    ZIP,
+
+    /**
+     * building a {@link com.weebkun.tree.BinarySearchTree}.
+     */
+    BUILD_TREE,
+
+    /**
+     * a full traversal of a tree that is not served from a cache. the size is the number of nodes visited.
+     */
+    TRAVERSE
+}
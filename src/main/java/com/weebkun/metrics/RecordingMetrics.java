@@ -0,0 +1,127 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ListUtilMetrics} that keeps a {@link Histogram} of the latency and of the input size of every operation,
+ * and of the heights of the trees that were built.
+ *
+ * <pre>{@code
+ * RecordingMetrics metrics = new RecordingMetrics();
+ * Metrics.install(metrics);
+ * // ...
+ * System.out.println(metrics.latency(Operation.ZIP));
+ * }</pre>
+ */
+public class RecordingMetrics implements ListUtilMetrics {
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> sizes = new EnumMap<>(Operation.class);
+    private final Map<Class<?>, Histogram> heights = new ConcurrentHashMap<>();
+    private final Map<Class<?>, LongAdder> rotations = new ConcurrentHashMap<>();
+
+    /**
+     * constructs an empty recorder.
+     */
+    public RecordingMetrics() {
+        // the maps are filled up front and never modified, so they can be read without locking
+        for(Operation operation : Operation.values()) {
+            this.latencies.put(operation, new Histogram());
+            this.sizes.put(operation, new Histogram());
+        }
+    }
+
+    @Override
+    public void operation(Operation operation, int size, long nanos) {
+        this.latencies.get(operation).record(nanos);
+        this.sizes.get(operation).record(size);
+    }
+
+    @Override
+    public void treeShape(Class<?> tree, int size, int height) {
+        this.heights.computeIfAbsent(tree, key -> new Histogram()).record(height);
+    }
+
+    @Override
+    public void rebalance(Class<?> tree, int rotations) {
+        this.rotations.computeIfAbsent(tree, key -> new LongAdder()).add(rotations);
+    }
+
+    /**
+     * returns the number of times an operation has completed.
+     * @param operation the operation
+     * @return the count
+     */
+    public long count(Operation operation) {
+        return this.latencies.get(operation).count();
+    }
+
+    /**
+     * returns the histogram of the latencies of an operation, in nanoseconds.
+     * @param operation the operation
+     * @return the histogram
+     */
+    public Histogram latency(Operation operation) {
+        return this.latencies.get(operation);
+    }
+
+    /**
+     * returns the histogram of the input sizes of an operation.
+     * @param operation the operation
+     * @return the histogram
+     */
+    public Histogram size(Operation operation) {
+        return this.sizes.get(operation);
+    }
+
+    /**
+     * returns the histogram of the heights of the trees of a class that were built.
+     * @param tree the class of the tree
+     * @return the histogram, which is empty if no such tree was reported
+     */
+    public Histogram height(Class<?> tree) {
+        Histogram histogram = this.heights.get(tree);
+        return histogram != null ? histogram : new Histogram();
+    }
+
+    /**
+     * returns the number of rotations done by the trees of a class.
+     * @param tree the class of the tree
+     * @return the number of rotations
+     */
+    public long rotations(Class<?> tree) {
+        LongAdder adder = this.rotations.get(tree);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * clears all recorded values.
+     */
+    public void reset() {
+        for(Operation operation : Operation.values()) {
+            this.latencies.get(operation).reset();
+            this.sizes.get(operation).reset();
+        }
+        this.heights.clear();
+        this.rotations.clear();
+    }
+}
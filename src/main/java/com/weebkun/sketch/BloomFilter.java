@@ -0,0 +1,295 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.sketch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * a Bloom filter, a set that answers membership queries in a fixed amount of memory
+ * with no false negatives and a bounded rate of false positives.
+ *
+ * <p>
+ *     the filter is sized from the number of elements it is expected to hold and the desired false positive probability,
+ *     e.g. about 9.6 bits per element for a 1% rate. adding more elements than expected raises the false positive rate.
+ *     each element sets {@code k} bits chosen by enhanced double hashing of a single 64-bit hash:
+ *     the probes advance by a step that starts odd and grows by {@code i} after the {@code i}-th probe. probes of two elements
+ *     that start at nearby bits with similar steps still overlap more than independent probes would,
+ *     which only matters when there are few bits, so filters have at least {@value #MIN_WORDS} words.
+ * </p>
+ * <p>
+ *     filters with the same size and number of hash functions can be merged, giving the filter of the union of their elements.
+ *     {@link #of(Collection, double)} adds large collections in parallel, setting bits with atomic ORs into a single bit array.
+ *     otherwise a filter is not thread-safe.
+ * </p>
+ * <p>
+ *     a filter implements {@code Predicate}, so it can be used as a cheap pre-check before an expensive test,
+ *     e.g. {@code ListUtil.filter(list, filter, expensivePredicate)}.
+ * </p>
+ * @param <T> the type of the elements
+ * @see HyperLogLog
+ */
+public class BloomFilter<T> implements Predicate<T> {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    // smaller filters exceed their false positive probability, see the class doc
+    private static final int MIN_WORDS = 4;
+
+    private final long[] words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    /**
+     * creates an empty filter.
+     * @param expectedInsertions the number of elements the filter is expected to hold
+     * @param falsePositiveProbability the desired probability of a false positive once the filter is full, between 0 and 1 exclusive
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if(expectedInsertions < 1) throw new IllegalArgumentException("expectedInsertions must be at least 1.");
+        if(!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1.");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        long words = Math.max(MIN_WORDS, (bits + 63) / 64);
+        if(words > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("filter would be too large.");
+        this.words = new long[(int) words];
+        this.bitSize = words * 64;
+        this.hashFunctions = (int) Math.max(1, Math.min(30, Math.round((double) this.bitSize / expectedInsertions * ln2)));
+    }
+
+    private BloomFilter(BloomFilter<T> filter) {
+        this.words = filter.words.clone();
+        this.bitSize = filter.bitSize;
+        this.hashFunctions = filter.hashFunctions;
+    }
+
+    /**
+     * creates a filter of the elements of a collection, sized for the collection.
+     * collections of at least 65536 elements are added in parallel.
+     * @param items the elements
+     * @param falsePositiveProbability the desired false positive probability, between 0 and 1 exclusive
+     * @param <T> the type of the elements
+     * @return the filter
+     */
+    public static <T> BloomFilter<T> of(Collection<? extends T> items, double falsePositiveProbability) {
+        if(items == null) throw new IllegalArgumentException("items cannot be null.");
+        BloomFilter<T> filter = new BloomFilter<>(Math.max(1, items.size()), falsePositiveProbability);
+        if(items.size() >= HyperLogLog.PARALLEL_THRESHOLD) {
+            items.parallelStream().forEach(item -> filter.set(hash(item), true));
+        } else {
+            for(T item : items) {
+                filter.add(item);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * creates a filter of the elements of an iterable.
+     * @param items the elements
+     * @param expectedInsertions the number of elements the filter is expected to hold
+     * @param falsePositiveProbability the desired false positive probability, between 0 and 1 exclusive
+     * @param <T> the type of the elements
+     * @return the filter
+     */
+    public static <T> BloomFilter<T> of(Iterable<? extends T> items, long expectedInsertions, double falsePositiveProbability) {
+        if(items == null) throw new IllegalArgumentException("items cannot be null.");
+        BloomFilter<T> filter = new BloomFilter<>(expectedInsertions, falsePositiveProbability);
+        for(T item : items) {
+            filter.add(item);
+        }
+        return filter;
+    }
+
+    /**
+     * creates a filter of the values in an array without boxing them, sized for the array.
+     * arrays of at least 65536 values are added in parallel.
+     * @param values the values
+     * @param falsePositiveProbability the desired false positive probability, between 0 and 1 exclusive
+     * @return the filter
+     */
+    public static BloomFilter<Long> of(long[] values, double falsePositiveProbability) {
+        if(values == null) throw new IllegalArgumentException("values cannot be null.");
+        BloomFilter<Long> filter = new BloomFilter<>(Math.max(1, values.length), falsePositiveProbability);
+        if(values.length >= HyperLogLog.PARALLEL_THRESHOLD) {
+            Arrays.stream(values).parallel().forEach(value -> filter.set(Hashing.hash(value), true));
+        } else {
+            for(long value : values) {
+                filter.add(value);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * creates a filter of the values in an array without boxing them, sized for the array.
+     * arrays of at least 65536 values are added in parallel.
+     * @param values the values
+     * @param falsePositiveProbability the desired false positive probability, between 0 and 1 exclusive
+     * @return the filter
+     */
+    public static BloomFilter<Integer> of(int[] values, double falsePositiveProbability) {
+        if(values == null) throw new IllegalArgumentException("values cannot be null.");
+        BloomFilter<Integer> filter = new BloomFilter<>(Math.max(1, values.length), falsePositiveProbability);
+        if(values.length >= HyperLogLog.PARALLEL_THRESHOLD) {
+            Arrays.stream(values).parallel().forEach(value -> filter.set(Hashing.hash(value), true));
+        } else {
+            for(int value : values) {
+                filter.add(value);
+            }
+        }
+        return filter;
+    }
+
+    private static long hash(Object item) {
+        if(item == null) throw new IllegalArgumentException("item cannot be null.");
+        return Hashing.hash(item);
+    }
+
+    /**
+     * adds an element to this filter.
+     * boxed integers of any width and {@code Character}s are the same element as the {@code long} with the same value.
+     * @param item the element
+     */
+    public void add(T item) {
+        set(hash(item), false);
+    }
+
+    /**
+     * adds a {@code long} (or {@code int}) to this filter without boxing it.
+     * @param value the value
+     */
+    public void add(long value) {
+        set(Hashing.hash(value), false);
+    }
+
+    /**
+     * returns true if an element might have been added to this filter, and false if it definitely has not.
+     * @param item the element
+     * @return true if the element might be in this filter
+     */
+    public boolean mightContain(T item) {
+        return get(hash(item));
+    }
+
+    /**
+     * returns true if a {@code long} (or {@code int}) might have been added to this filter, and false if it definitely has not.
+     * @param value the value
+     * @return true if the value might be in this filter
+     */
+    public boolean mightContain(long value) {
+        return get(Hashing.hash(value));
+    }
+
+    /**
+     * same as {@link #mightContain(Object)}.
+     * @param item the element
+     * @return true if the element might be in this filter
+     */
+    @Override
+    public boolean test(T item) {
+        return mightContain(item);
+    }
+
+    private void set(long hash, boolean atomic) {
+        // enhanced double hashing: the step h2 is a second hash that grows by i after the i-th probe.
+        // the bit size is a multiple of 64, so an even step would revisit bits; h2 starts odd
+        long h2 = Hashing.hash(hash) | 1;
+        long combined = hash;
+        for(int i = 0; i < this.hashFunctions; i++, combined += h2, h2 += i) {
+            long bit = (combined & Long.MAX_VALUE) % this.bitSize;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if(atomic) {
+                WORDS.getAndBitwiseOr(this.words, word, mask);
+            } else {
+                this.words[word] |= mask;
+            }
+        }
+    }
+
+    private boolean get(long hash) {
+        long h2 = Hashing.hash(hash) | 1;
+        long combined = hash;
+        for(int i = 0; i < this.hashFunctions; i++, combined += h2, h2 += i) {
+            long bit = (combined & Long.MAX_VALUE) % this.bitSize;
+            if((this.words[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * merges another filter into this one, so this filter contains the elements added to either.
+     * @param other the other filter, with the same size and number of hash functions
+     * @return this filter
+     */
+    public BloomFilter<T> merge(BloomFilter<? extends T> other) {
+        if(other == null) throw new IllegalArgumentException("other cannot be null.");
+        if(other.bitSize != this.bitSize || other.hashFunctions != this.hashFunctions) {
+            throw new IllegalArgumentException("filters must have the same size and number of hash functions.");
+        }
+        for(int i = 0; i < this.words.length; i++) {
+            this.words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * returns a copy of this filter.
+     * @return the copy
+     */
+    public BloomFilter<T> copy() {
+        return new BloomFilter<>(this);
+    }
+
+    /**
+     * returns the number of bits in this filter.
+     * @return the number of bits
+     */
+    public long bitSize() {
+        return this.bitSize;
+    }
+
+    /**
+     * returns the number of bits set for each element.
+     * @return the number of hash functions
+     */
+    public int hashFunctions() {
+        return this.hashFunctions;
+    }
+
+    /**
+     * estimates the probability of a false positive given the bits set so far.
+     * @return the expected false positive probability
+     */
+    public double expectedFalsePositiveProbability() {
+        long set = 0;
+        for(long word : this.words) {
+            set += Long.bitCount(word);
+        }
+        return Math.pow((double) set / this.bitSize, this.hashFunctions);
+    }
+
+    @Override
+    public String toString() {
+        return "BloomFilter(bits=" + this.bitSize + ", hashFunctions=" + this.hashFunctions + ")";
+    }
+}
@@ -0,0 +1,66 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.sketch;
+
+/**
+ * 64-bit hashing shared by the sketches.
+ *
+ * <p>
+ *     integral boxes hash like the primitive {@code long} with the same value, so {@code add(5)} and {@code add((Object) 5)}
+ *     are the same element. strings are hashed over their characters to a full 64 bits.
+ *     any other object is hashed from its {@code hashCode}, which has only 32 bits,
+ *     so sketches of more than a few hundred million distinct such objects lose accuracy to collisions.
+ * </p>
+ */
+final class Hashing {
+
+    private Hashing() {}
+
+    /**
+     * hashes an object.
+     * @param value the object
+     * @return the 64-bit hash
+     */
+    static long hash(Object value) {
+        if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return hash(((Number) value).longValue());
+        }
+        if(value instanceof Character) return hash((long) (Character) value);
+        if(value instanceof String) {
+            String string = (String) value;
+            // FNV-1a over the characters, mixed below so the low bits are spread over the whole hash
+            long h = 0xcbf29ce484222325L;
+            for(int i = 0; i < string.length(); i++) {
+                h = (h ^ string.charAt(i)) * 0x100000001b3L;
+            }
+            return hash(h);
+        }
+        return hash((long) value.hashCode());
+    }
+
+    /**
+     * hashes a {@code long} with the SplitMix64 finalizer.
+     * @param value the value
+     * @return the 64-bit hash
+     */
+    static long hash(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import javax.annotation.Nullable;
+
+/**
+ * index for answering ancestor queries on a tree, such as the lowest common ancestor of two nodes.
+ *
+ * <p>
+ *     the index is built once in linear time and is not updated when the tree changes.
+ *     {@link #isAncestor(Node, Node)} and {@link #depth(Node)} take constant time, using the pre-order numbering of the nodes.
+ *     {@link #lca(Node, Node)} and {@link #kthAncestor(Node, int)} take O(log n) time, using skew-binary jump pointers:
+ *     a form of binary lifting that stores a single jump per node instead of log n of them.
+ * </p>
+ * @param <T> the type of values in the tree
+ */
+public class AncestorIndex<T> {
+
+    private final PreOrderIndex<T> preOrder;
+    // the ancestor each node jumps to. jumps are sized so that any ancestor can be reached in O(log n) steps
+    private final int[] jump;
+
+    /**
+     * builds the index over a tree.
+     * @param tree the tree
+     */
+    public AncestorIndex(Tree<T> tree) {
+        this.preOrder = new PreOrderIndex<>(tree);
+        int n = this.preOrder.size();
+        this.jump = new int[n];
+        // parents come before their children in pre-order, so their jumps are already set
+        for(int v = 0; v < n; v++) {
+            int p = this.preOrder.parent(v);
+            if(p < 0) {
+                this.jump[v] = v;
+                continue;
+            }
+            int j = this.jump[p];
+            // merge two jumps of equal length into one twice as long, otherwise jump to the parent
+            if(this.preOrder.depth(p) - this.preOrder.depth(j) == this.preOrder.depth(j) - this.preOrder.depth(this.jump[j])) {
+                this.jump[v] = this.jump[j];
+            } else {
+                this.jump[v] = p;
+            }
+        }
+    }
+
+    /**
+     * returns the number of nodes in the index.
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.preOrder.size();
+    }
+
+    /**
+     * returns the depth of a node, which is the number of edges from the root.
+     * @param node the node
+     * @return the depth of the node
+     * @throws IllegalArgumentException if the node is not in the indexed tree
+     */
+    public int depth(Node<T> node) throws IllegalArgumentException {
+        return this.preOrder.depth(this.preOrder.id(node));
+    }
+
+    /**
+     * checks if {@code ancestor} is an ancestor of {@code node}. a node is considered an ancestor of itself.
+     * @param ancestor the possible ancestor
+     * @param node the node
+     * @return true if {@code ancestor} is on the path from the root to {@code node}
+     * @throws IllegalArgumentException if either node is not in the indexed tree
+     */
+    public boolean isAncestor(Node<T> ancestor, Node<T> node) throws IllegalArgumentException {
+        int a = this.preOrder.id(ancestor);
+        int v = this.preOrder.id(node);
+        // the subtree of a covers the pre-order numbers [a, a + size)
+        return a <= v && v < a + this.preOrder.size(a);
+    }
+
+    /**
+     * returns the lowest common ancestor of two nodes, which is the deepest node that is an ancestor of both.
+     * @param a the first node
+     * @param b the second node
+     * @return the lowest common ancestor
+     * @throws IllegalArgumentException if either node is not in the indexed tree
+     */
+    public Node<T> lca(Node<T> a, Node<T> b) throws IllegalArgumentException {
+        int u = this.preOrder.id(a);
+        int v = this.preOrder.id(b);
+        // bring both nodes to the same depth
+        if(this.preOrder.depth(u) > this.preOrder.depth(v)) u = ancestorAtDepth(u, this.preOrder.depth(v));
+        else v = ancestorAtDepth(v, this.preOrder.depth(u));
+        // nodes at the same depth have jumps of the same length, so they can climb together
+        while(u != v) {
+            if(this.jump[u] != this.jump[v]) {
+                u = this.jump[u];
+                v = this.jump[v];
+            } else {
+                u = this.preOrder.parent(u);
+                v = this.preOrder.parent(v);
+            }
+        }
+        return this.preOrder.node(u);
+    }
+
+    /**
+     * returns the ancestor of a node that is {@code k} edges above it.
+     * @param node the node
+     * @param k the number of edges to climb. 0 returns the node itself
+     * @return the ancestor, or null if {@code k} is greater than the depth of the node
+     * @throws IllegalArgumentException if the node is not in the indexed tree or {@code k} is negative
+     */
+    @Nullable
+    public Node<T> kthAncestor(Node<T> node, int k) throws IllegalArgumentException {
+        if(k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        int v = this.preOrder.id(node);
+        int depth = this.preOrder.depth(v) - k;
+        if(depth < 0) return null;
+        return this.preOrder.node(ancestorAtDepth(v, depth));
+    }
+
+    /**
+     * climbs from a node to its ancestor at the given depth.
+     * @param v the pre-order number of the node
+     * @param depth the target depth, which must not be greater than the depth of the node
+     * @return the pre-order number of the ancestor
+     */
+    private int ancestorAtDepth(int v, int depth) {
+        while(this.preOrder.depth(v) > depth) {
+            // take the jump unless it overshoots the target depth
+            v = this.preOrder.depth(this.jump[v]) >= depth ? this.jump[v] : this.preOrder.parent(v);
+        }
+        return v;
+    }
+}
@@ -26,12 +26,16 @@ import java.util.List;
  * Represents a node in a binary tree.
  * @param <T> the type of values that this node will have
  */
-public class BinaryNode<T> implements Node<T>{
+public class BinaryNode<T> implements Node<T>, BinaryShaped, Versioned {
 
     private T element;
     private BinaryNode<T> left;
     private BinaryNode<T> right;
     private BinaryNode<T> parent;
+    // number of nodes in the subtree of this node, including itself
+    private int count = 1;
+    // number of modifications made to the subtree of this node
+    private int modCount;
 
     /**
      * constructs a node with a given value.
@@ -70,6 +74,7 @@ public class BinaryNode<T> implements Node<T>{
         } else {
             throw new NodeOccupiedException("nodes have been occupied.", this.right);
         }
+        grow();
     }
 
     /**
@@ -88,11 +93,41 @@ public class BinaryNode<T> implements Node<T>{
 
     /**
      * returns the size of the subtree of this node.
+     * the size is kept up to date as children are added, so this takes constant time.
      * @return the size of this subtree
      */
     @Override
     public int size() {
-        return subtree().size();
+        return this.count;
+    }
+
+    /**
+     * increments the subtree size of this node and all of its ancestors after a child has been added.
+     */
+    private void grow() {
+        for(BinaryNode<T> node = this; node != null; node = node.parent) {
+            node.count++;
+            node.modCount++;
+        }
+    }
+
+    /**
+     * records a modification of this node in this node and all of its ancestors.
+     */
+    private void touch() {
+        for(BinaryNode<T> node = this; node != null; node = node.parent) {
+            node.modCount++;
+        }
+    }
+
+    /**
+     * returns the number of modifications made to the subtree of this node.
+     * adding a child or updating a value anywhere in the subtree changes the count.
+     * @return the modification count
+     */
+    @Override
+    public int modCount() {
+        return this.modCount;
     }
 
     /**
@@ -113,6 +148,7 @@ public class BinaryNode<T> implements Node<T>{
         if(value == null) throw new IllegalArgumentException("value cannot be null.");
         if(this.left != null) throw new NodeOccupiedException("left node already occupied", this.left);
         this.left = new BinaryNode<>(value, this);
+        grow();
     }
 
     /**
@@ -125,6 +161,7 @@ public class BinaryNode<T> implements Node<T>{
         if(value == null) throw new IllegalArgumentException("value cannot be null.");
         if(this.right != null) throw new NodeOccupiedException("right node already occupied", this.right);
         this.right = new BinaryNode<>(value, this);
+        grow();
     }
 
     public T getValue(){
@@ -192,6 +229,7 @@ public class BinaryNode<T> implements Node<T>{
     public void update(T elem) throws IllegalArgumentException{
         if(elem == null) throw new IllegalArgumentException("value cannot be null");
         this.element = elem;
+        touch();
     }
 
     /**
@@ -207,6 +245,29 @@ public class BinaryNode<T> implements Node<T>{
         return index == 0 ? visitLeft() : visitRight();
     }
 
+    /**
+     * returns the number of children of this node, which is at most 2.
+     * @return the number of children
+     */
+    @Override
+    public int childCount() {
+        return (this.left != null ? 1 : 0) + (this.right != null ? 1 : 0);
+    }
+
+    /**
+     * returns the nth non-null child of this node.
+     * if there is no left child, index 0 refers to the right child.
+     * @param index the index of the child
+     * @return the child node
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    @Override
+    public Node<T> child(int index) throws IndexOutOfBoundsException {
+        if(index == 0 && this.left != null) return this.left;
+        if(index == (this.left != null ? 1 : 0) && this.right != null) return this.right;
+        throw new IndexOutOfBoundsException("index not found.");
+    }
+
     /**
      * visits the left subtree. returns the left child node.
      * @return the left node
@@ -16,6 +16,11 @@
 
 package com.weebkun.tree;
 
+import com.weebkun.jfr.TreeBuildEvent;
+import com.weebkun.metrics.ListUtilMetrics;
+import com.weebkun.metrics.Metrics;
+import com.weebkun.metrics.Operation;
+
 import java.util.List;
 
 /**
@@ -31,9 +36,6 @@ import java.util.List;
  */
 public class BinarySearchTree extends BinaryTree<Integer> implements Tree<Integer> {
 
-    private int size;
-    private BinaryNode<Integer> root;
-
     /**
      * constructs a BST from a given list of values.
      * @param values the list of values
@@ -41,12 +43,20 @@ public class BinarySearchTree extends BinaryTree<Integer> implements Tree<Intege
     public BinarySearchTree(List<Integer> values){
         // do binary search tree algo
         // set root as first elem in values
-        this.root = new BinaryNode<>(values.get(0));
+        super(values.get(0));
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
+        TreeBuildEvent event = new TreeBuildEvent();
+        event.begin();
+        BinaryNode<Integer> root = (BinaryNode<Integer>) getRoot();
+        int height = 0;
         // iterate through rest of values and insert appropriately
         for(int i = 1; i < values.size(); i++){
-            // recursively insert values into this tree, starting from root.
-            insert(this.root, values.get(i));
+            // insert values into this tree, starting from root.
+            height = Math.max(height, insert(root, values.get(i)));
         }
+        if(metrics != null) report(metrics, start, height);
+        commit(event, height);
     }
 
     /**
@@ -54,30 +64,61 @@ public class BinarySearchTree extends BinaryTree<Integer> implements Tree<Intege
      * @param array the array
      */
     public BinarySearchTree(int[] array){
-        this.root = new BinaryNode<>(array[0]);
+        super(array[0]);
+        ListUtilMetrics metrics = Metrics.current();
+        long start = metrics != null ? System.nanoTime() : 0;
+        TreeBuildEvent event = new TreeBuildEvent();
+        event.begin();
+        BinaryNode<Integer> root = (BinaryNode<Integer>) getRoot();
+        int height = 0;
         for(int i = 1; i < array.length; i++){
-            insert(this.root, array[i]);
+            height = Math.max(height, insert(root, array[i]));
+        }
+        if(metrics != null) report(metrics, start, height);
+        commit(event, height);
+    }
+
+    private void commit(TreeBuildEvent event, int height) {
+        event.end();
+        if(event.isEnabled()) {
+            event.treeClass = getClass();
+            event.size = size();
+            event.height = height;
+            event.commit();
         }
     }
 
-    private void insert(BinaryNode<Integer> node, int value) {
-        if(value <= node.getValue()){
-            // check if subtree has left child
-            if(node.hasLeft()) {
+    private void report(ListUtilMetrics metrics, long start, int height) {
+        metrics.operation(Operation.BUILD_TREE, size(), System.nanoTime() - start);
+        metrics.treeShape(BinarySearchTree.class, size(), height);
+    }
+
+    /**
+     * inserts a value below a node.
+     * @return the depth of the new node below {@code node}
+     */
+    private int insert(BinaryNode<Integer> node, int value) {
+        int depth = 1;
+        // walk down from the root iteratively so degenerate trees do not overflow the stack
+        for(;; depth++) {
+            if(value <= node.getValue()){
+                // check if subtree has left child
+                if(!node.hasLeft()) {
+                    // left subtree does not exist. set the left node to be current value
+                    node.setLeft(value);
+                    return depth;
+                }
                 // insert into left subtree
-                insert(node.visitLeft(), value);
+                node = node.visitLeft();
             } else {
-                // left subtree does not exist. set the left node to be current value
-                node.setLeft(value);
-            }
-        } else {
-            // value is more than this node
-            if(node.hasRight()){
+                // value is more than this node
+                if(!node.hasRight()){
+                    // right subtree does not exist. set right node to be current value
+                    node.setRight(value);
+                    return depth;
+                }
                 // insert into right subtree
-                insert(node.visitRight(), value);
-            } else {
-                // right subtree does not exist. set right node to be current value
-                node.setRight(value);
+                node = node.visitRight();
             }
         }
     }
@@ -0,0 +1,30 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+/**
+ * implemented by nodes that have a left and a right child slot, so that a missing left child can be told apart
+ * from a missing right child. used by {@link TreeIterator} for in-order traversals.
+ */
+interface BinaryShaped {
+
+    /**
+     * checks if the left child is not null.
+     * @return true if not null
+     */
+    boolean hasLeft();
+}
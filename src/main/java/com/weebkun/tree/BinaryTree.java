@@ -16,7 +16,6 @@
 
 package com.weebkun.tree;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -31,8 +30,8 @@ import java.util.List;
  */
 public class BinaryTree<T> implements Tree<T>, Iterable<T> {
 
-    private int size;
     private BinaryNode<T> root;
+    private final TraversalCache<T> cache = new TraversalCache<>();
 
     /**
      * default constructor for {@code BinaryTree}.
@@ -40,7 +39,6 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
      * note that the root node will be a null reference.
      */
     public BinaryTree(){
-        this.size = 0;
     }
 
     /**
@@ -49,7 +47,6 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
      */
     public BinaryTree(BinaryNode<T> root) {
         this.root = root;
-        this.size = root.size();
     }
 
     /**
@@ -81,7 +78,7 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public int size() {
-        return this.size;
+        return this.root != null ? this.root.size() : 0;
     }
 
     /**
@@ -100,7 +97,7 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public boolean isEmpty() {
-        return this.size == 0;
+        return this.root == null;
     }
 
     /**
@@ -114,39 +111,47 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
 
     /**
      * traverses this tree in pre-order and returns a list containing the elements.
-     * utilises {@link #traverse(BinaryNode)} to recursively traverse this tree.
+     * the result is cached until the tree is modified, see {@link #traverse(TraversalOrder)}.
      * @return the list in pre-order
      */
     @Override
     public List<T> traverse() {
-        // list to store the results of the traversal
-        List<T> result = new ArrayList<>();
-        // visit this node
-        result.add(this.root.getValue());
-        // visit left subtree
-        result.addAll(traverse(this.root.visitLeft()));
-        // visit right subtree
-        result.addAll(traverse(this.root.visitLeft()));
-        return result;
+        return traverse(TraversalOrder.PRE_ORDER);
     }
 
     /**
-     * traverses this tree recursively in pre-order.
-     * if the node provided is a leaf node, return a list containing only that node's value.
+     * enables or disables caching the traversals of this tree. caching is enabled by default.
+     * disabling it drops the cached traversals, so that this tree holds no copies of its values.
+     * @param enabled whether traversals are cached
+     */
+    public void setTraversalCaching(boolean enabled) {
+        this.cache.setEnabled(enabled);
+    }
+
+    /**
+     * traverses this tree in the given order.
+     * the result is cached until the tree is modified, so repeated traversals only copy the cached values.
+     * @param order the traversal order
+     * @return the list
+     */
+    @Override
+    public List<T> traverse(TraversalOrder order) {
+        return this.cache.list(this.root, order);
+    }
+
+    /**
+     * traverses a subtree in pre-order.
+     * the traversal is iterative, so it does not overflow the stack on deep trees.
      * @param subtree the root node of the subtree to traverse
      * @return the list containing the elements from the traversal
+     * @see TreeIterator
      */
     public List<T> traverse(BinaryNode<T> subtree) {
         List<T> result = new ArrayList<>();
-        // visit this node
-        result.add(subtree.getValue());
-        if(subtree.hasLeft())
-            // visit left subtree
-            result.addAll(traverse(subtree.visitLeft()));
-        if(subtree.hasRight())
-            // visit right subtree
-            result.addAll(traverse(subtree.visitRight()));
-        // return the result
+        Iterator<T> iterator = TreeIterator.values(subtree, TraversalOrder.PRE_ORDER);
+        while(iterator.hasNext()) {
+            result.add(iterator.next());
+        }
         return result;
     }
 
@@ -155,70 +160,39 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
      * @return list containing the elements in order
      */
     public List<T> traverseBreadthFirst(){
-        List<T> result = new ArrayList<>();
-        //visit root
-        result.add(this.root.getValue());
-        // create queue
-        ArrayDeque<BinaryNode<T>> queue = new ArrayDeque<>();
-        // enqueue root
-        queue.addFirst(this.root);
-        while (queue.size() > 0){
-            // add first node to result
-            BinaryNode<T> node = queue.pop();
-            result.add(node.getValue());
-            // enqueue left child
-            if(node.visitLeft() != null) queue.addFirst(node.visitLeft());
-            //enqueue right child
-            if(node.visitRight() != null) queue.addFirst(node.visitRight());
-        }
-        return result;
+        return traverse(TraversalOrder.LEVEL_ORDER);
     }
 
     /**
-     * returns the {@link Iterator} for this tree.
+     * returns the {@link Iterator} for this tree, which yields the elements in pre-order.
      * @return the iterator
+     * @see #iterator(TraversalOrder)
      */
     @Override
     public Iterator<T> iterator() {
-        return new Iterator<>() {
-            final Iterator<T> iterator = traverse().iterator();
-
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
+        return iterator(TraversalOrder.PRE_ORDER);
+    }
 
-            @Override
-            public T next() {
-                return iterator.next();
-            }
-        };
+    /**
+     * returns an {@link Iterator} that yields the elements in the given order.
+     * if the traversal in this order is cached, the iterator reads the cached values.
+     * otherwise the tree is walked lazily, and the iterator does not fill the cache.
+     * @param order the traversal order
+     * @return the iterator
+     * @throws java.util.ConcurrentModificationException from {@code next()} if the tree is modified while iterating
+     */
+    @Override
+    public Iterator<T> iterator(TraversalOrder order) {
+        return this.cache.iterator(this.root, order);
     }
 
     /**
      * returns the {@link Iterator} for this tree which yields nodes instead of the values.
+     * the nodes are yielded in pre-order, and are not cached.
      * @return the node iterator
      */
     public Iterator<Node<T>> nodeIterator(){
-        // convert elements from traversal to node objs
-        List<Node<T>> nodeList = new ArrayList<>();
-        for(T elem : traverse()){
-            nodeList.add(new BinaryNode<>(elem));
-        }
-
-        return new Iterator<>() {
-            final Iterator<Node<T>> iterator = nodeList.iterator();
-
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
-
-            @Override
-            public Node<T> next() {
-                return iterator.next();
-            }
-        };
+        return this.cache.nodeIterator(this.root);
     }
 
     /**
@@ -227,6 +201,6 @@ public class BinaryTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public String toString() {
-        return traverse().toString();
+        return this.cache.toString(this.root, TraversalOrder.PRE_ORDER);
     }
 }
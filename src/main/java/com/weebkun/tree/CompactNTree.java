@@ -0,0 +1,627 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A generic tree that stores its nodes in parallel arrays instead of node objects.
+ *
+ * <p>
+ *     each node is identified by an {@code int} index. the first child, next sibling, last child and parent of a node
+ *     are stored as indices in {@code int} arrays, and the values in an object array,
+ *     along with the number of children and the subtree size,
+ *     so a node costs about 24 bytes plus the reference to its value.
+ *     this is meant for very large hierarchies, where an {@link NTree} spends most of its memory on
+ *     {@link GenericNode}s and their child lists.
+ * </p>
+ * <p>
+ *     the root always has index 0, and a node's index is always greater than its parent's index.
+ *     while nodes are appended in pre-order, i.e. each node is added to the last node or one of its ancestors,
+ *     the pre-order traversal is a linear scan over the values. {@link #compact()} restores this layout
+ *     after nodes have been added out of order.
+ * </p>
+ * <p>
+ *     {@link Node} views are provided by lightweight cursors, see {@link #node(int)}.
+ * </p>
+ * @param <T> the type of elements contained in this tree
+ * @see NTree
+ */
+public class CompactNTree<T> implements Tree<T>, Iterable<T> {
+
+    /**
+     * the index used to indicate the absence of a node.
+     */
+    public static final int NONE = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] values;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    // number of children and number of nodes in the subtree of each node
+    private int[] degree;
+    private int[] count;
+    private int size;
+    // true while the indices of the nodes are in pre-order
+    private boolean preOrdered = true;
+
+    /**
+     * default constructor for {@code CompactNTree}.
+     * constructs an empty {@code CompactNTree} with size 0.
+     */
+    public CompactNTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    private CompactNTree(int capacity) {
+        this.values = new Object[capacity];
+        this.parent = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.lastChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.degree = new int[capacity];
+        this.count = new int[capacity];
+    }
+
+    /**
+     * constructs a {@code CompactNTree} with a given root value.
+     * @param root the root value
+     * @throws IllegalArgumentException if {@code root} is null
+     */
+    public CompactNTree(T root) throws IllegalArgumentException {
+        this(DEFAULT_CAPACITY);
+        setRoot(root);
+    }
+
+    /**
+     * creates an empty {@code CompactNTree} with room for {@code capacity} nodes.
+     * a static factory is used since a constructor taking an {@code int} would clash with {@link #CompactNTree(Object)}.
+     * @param capacity the initial capacity
+     * @param <T> the type of elements contained in the tree
+     * @return the empty tree
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public static <T> CompactNTree<T> withCapacity(int capacity) throws IllegalArgumentException {
+        if(capacity < 0) throw new IllegalArgumentException("capacity cannot be negative.");
+        return new CompactNTree<>(capacity);
+    }
+
+    /**
+     * adds the root of this tree.
+     * @param value the root value
+     * @return the index of the root, which is always 0
+     * @throws IllegalArgumentException if {@code value} is null
+     * @throws IllegalStateException if this tree already has a root
+     */
+    public int setRoot(T value) throws IllegalArgumentException, IllegalStateException {
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        if(this.size > 0) throw new IllegalStateException("tree already has a root.");
+        return append(value, NONE);
+    }
+
+    /**
+     * adds a value as the last child of the node at index {@code parent}.
+     * @param parent the index of the parent node
+     * @param value the value
+     * @return the index of the new node
+     * @throws IllegalArgumentException if {@code value} is null
+     * @throws IndexOutOfBoundsException if {@code parent} is not a node in this tree
+     */
+    public int add(int parent, T value) throws IllegalArgumentException, IndexOutOfBoundsException {
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        checkIndex(parent);
+        // the new node stays in pre-order if it directly follows the subtree of its parent
+        if(parent + this.count[parent] != this.size) this.preOrdered = false;
+        int index = append(value, parent);
+        // link the node as the last child of its parent
+        if(this.firstChild[parent] == NONE) {
+            this.firstChild[parent] = index;
+        } else {
+            this.nextSibling[this.lastChild[parent]] = index;
+        }
+        this.lastChild[parent] = index;
+        this.degree[parent]++;
+        // update the subtree sizes of the ancestors
+        for(int node = parent; node != NONE; node = this.parent[node]) {
+            this.count[node]++;
+        }
+        return index;
+    }
+
+    private int append(T value, int parent) {
+        if(this.size == this.values.length) grow();
+        int index = this.size++;
+        this.values[index] = value;
+        this.parent[index] = parent;
+        this.firstChild[index] = NONE;
+        this.lastChild[index] = NONE;
+        this.nextSibling[index] = NONE;
+        this.degree[index] = 0;
+        this.count[index] = 1;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, this.values.length * 2);
+        this.values = Arrays.copyOf(this.values, capacity);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+        this.lastChild = Arrays.copyOf(this.lastChild, capacity);
+        this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+        this.degree = Arrays.copyOf(this.degree, capacity);
+        this.count = Arrays.copyOf(this.count, capacity);
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= this.size) throw new IndexOutOfBoundsException("index not found.");
+    }
+
+    /**
+     * returns the value of the node at {@code index}.
+     * @param index the index of the node
+     * @return the value
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public T get(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return value(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int index) {
+        return (T) this.values[index];
+    }
+
+    /**
+     * updates the value of the node at {@code index}.
+     * @param index the index of the node
+     * @param value the new value
+     * @throws IllegalArgumentException if {@code value} is null
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public void set(int index, T value) throws IllegalArgumentException, IndexOutOfBoundsException {
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        checkIndex(index);
+        this.values[index] = value;
+    }
+
+    /**
+     * returns the index of the parent of the node at {@code index}.
+     * @param index the index of the node
+     * @return the index of the parent, or {@link #NONE} for the root
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public int parent(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return this.parent[index];
+    }
+
+    /**
+     * returns the index of the first child of the node at {@code index}.
+     * @param index the index of the node
+     * @return the index of the first child, or {@link #NONE} if the node is a leaf
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public int firstChild(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return this.firstChild[index];
+    }
+
+    /**
+     * returns the index of the next sibling of the node at {@code index}.
+     * @param index the index of the node
+     * @return the index of the next sibling, or {@link #NONE} if the node is the last child
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public int nextSibling(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return this.nextSibling[index];
+    }
+
+    /**
+     * returns the size of the subtree of the node at {@code index}.
+     * @param index the index of the node
+     * @return the size of the subtree
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public int size(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return this.count[index];
+    }
+
+    /**
+     * returns a {@link Node} cursor for the node at {@code index}.
+     * cursors only hold the index, so they are cheap to create and two cursors for the same node are equal.
+     * cursors are invalidated by {@link #compact()}.
+     * @param index the index of the node
+     * @return the cursor
+     * @throws IndexOutOfBoundsException if {@code index} is not a node in this tree
+     */
+    public Node<T> node(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return new Cursor(index);
+    }
+
+    /**
+     * checks if the indices of the nodes are in pre-order.
+     * @return true if the pre-order traversal is a linear scan
+     */
+    public boolean isPreOrdered() {
+        return this.preOrdered;
+    }
+
+    /**
+     * renumbers the nodes of this tree in pre-order and trims the arrays to the size of this tree.
+     * afterwards the pre-order traversal is a linear scan. indices and cursors obtained before this call are invalidated.
+     */
+    public void compact() {
+        int[] order = new int[this.size];
+        int[] newIndex = new int[this.size];
+        int position = 0;
+        if(this.size > 0) {
+            for(int node = 0; node != NONE; node = nextPreOrder(node)) {
+                newIndex[node] = position;
+                order[position++] = node;
+            }
+        }
+        Object[] values = new Object[this.size];
+        int[] parent = new int[this.size];
+        int[] firstChild = new int[this.size];
+        int[] lastChild = new int[this.size];
+        int[] nextSibling = new int[this.size];
+        int[] degree = new int[this.size];
+        int[] count = new int[this.size];
+        for(int i = 0; i < this.size; i++) {
+            int old = order[i];
+            values[i] = this.values[old];
+            parent[i] = remap(newIndex, this.parent[old]);
+            firstChild[i] = remap(newIndex, this.firstChild[old]);
+            lastChild[i] = remap(newIndex, this.lastChild[old]);
+            nextSibling[i] = remap(newIndex, this.nextSibling[old]);
+            degree[i] = this.degree[old];
+            count[i] = this.count[old];
+        }
+        this.values = values;
+        this.parent = parent;
+        this.firstChild = firstChild;
+        this.lastChild = lastChild;
+        this.nextSibling = nextSibling;
+        this.degree = degree;
+        this.count = count;
+        this.preOrdered = true;
+    }
+
+    private static int remap(int[] newIndex, int index) {
+        return index == NONE ? NONE : newIndex[index];
+    }
+
+    /**
+     * returns the node that follows {@code node} in pre-order, without using a stack.
+     * @param node the index of the node
+     * @return the index of the next node, or {@link #NONE} at the end of the traversal
+     */
+    private int nextPreOrder(int node) {
+        if(this.firstChild[node] != NONE) return this.firstChild[node];
+        // climb up until a node with a next sibling is found
+        while(node != NONE && this.nextSibling[node] == NONE) {
+            node = this.parent[node];
+        }
+        return node == NONE ? NONE : this.nextSibling[node];
+    }
+
+    /**
+     * returns the size of this tree.
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * checks if this tree is empty. returns true if so.
+     * @return true if empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * returns a cursor for the root of this tree.
+     * @return the root, or null if this tree is empty
+     */
+    @Override
+    public Node<T> getRoot() {
+        return this.size > 0 ? new Cursor(0) : null;
+    }
+
+    /**
+     * traverses this tree in pre-order.
+     * if the nodes are in pre-order this is a linear scan over the values array.
+     * @return the list containing the elements in order
+     */
+    @Override
+    public List<T> traverse() {
+        List<T> result = new ArrayList<>(this.size);
+        if(this.preOrdered) {
+            for(int i = 0; i < this.size; i++) {
+                result.add(value(i));
+            }
+            return result;
+        }
+        for(T value : this) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * returns the height of this tree.
+     * the height is calculated by walking the child, sibling and parent indices, without recursion.
+     * @return the height, or -1 if this tree is empty
+     * @see Tree#getHeight() for more details.
+     */
+    @Override
+    public int getHeight() {
+        if(this.size == 0) return -1;
+        return new Cursor(0).calculateHeight();
+    }
+
+    /**
+     * returns the {@link Iterator} for this tree, which yields the elements in pre-order.
+     * the iterator does not use a stack, it follows the child, sibling and parent indices instead.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            int node = size > 0 ? 0 : NONE;
+            final boolean linear = preOrdered;
+
+            @Override
+            public boolean hasNext() {
+                return this.node != NONE;
+            }
+
+            @Override
+            public T next() {
+                if(this.node == NONE) throw new NoSuchElementException("traversal is complete.");
+                T value = value(this.node);
+                if(this.linear) {
+                    this.node = this.node + 1 < size ? this.node + 1 : NONE;
+                } else {
+                    this.node = nextPreOrder(this.node);
+                }
+                return value;
+            }
+        };
+    }
+
+    /**
+     * returns a lazy iterator that yields the values of this tree in the given order.
+     * pre-order uses {@link #iterator()}, the other orders walk the node cursors.
+     * @param order the traversal order
+     * @return the iterator
+     */
+    @Override
+    public Iterator<T> iterator(TraversalOrder order) {
+        if(order == TraversalOrder.PRE_ORDER) return iterator();
+        return Tree.super.iterator(order);
+    }
+
+    /**
+     * returns a {@link Spliterator} over the values of this tree in pre-order.
+     * if the nodes are in pre-order, the values array is split directly.
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        if(this.preOrdered) {
+            return Spliterators.spliterator(this.values, 0, this.size, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+        return Tree.super.spliterator();
+    }
+
+    /**
+     * returns the string representation of this tree in pre-order.
+     * @return the string representation of this tree
+     */
+    @Override
+    public String toString() {
+        return traverse().toString();
+    }
+
+    /**
+     * a {@link Node} view of a node in a {@link CompactNTree}. only holds the index of the node.
+     */
+    private final class Cursor implements Node<T> {
+
+        private final int index;
+        private volatile long lastVisited = -1L;
+
+        Cursor(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void add(T value) throws IllegalArgumentException {
+            CompactNTree.this.add(this.index, value);
+        }
+
+        @Override
+        public int size() {
+            return count[this.index];
+        }
+
+        /**
+         * copies the subtree of this node into a new {@code CompactNTree}.
+         * @return the copied subtree
+         */
+        @Override
+        public Tree<T> subtree() {
+            CompactNTree<T> tree = withCapacity(count[this.index]);
+            tree.setRoot(getValue());
+            // the current path from this node, as indices in this tree and in the copy
+            int[] path = new int[DEFAULT_CAPACITY];
+            int[] copiedPath = new int[DEFAULT_CAPACITY];
+            int depth = 1;
+            path[0] = this.index;
+            for(int node = next(this.index); node != NONE; node = next(node)) {
+                // the nodes are visited in pre-order, so the parent is always on the current path
+                while(path[depth - 1] != parent[node]) depth--;
+                if(depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    copiedPath = Arrays.copyOf(copiedPath, depth * 2);
+                }
+                path[depth] = node;
+                copiedPath[depth] = tree.add(copiedPath[depth - 1], value(node));
+                depth++;
+            }
+            return tree;
+        }
+
+        /**
+         * returns the next node in the pre-order traversal of this cursor's subtree.
+         */
+        private int next(int node) {
+            if(firstChild[node] != NONE) return firstChild[node];
+            while(node != this.index && nextSibling[node] == NONE) {
+                node = parent[node];
+            }
+            return node == this.index ? NONE : nextSibling[node];
+        }
+
+        @Nullable
+        @Override
+        public Node<T> getParent() {
+            return parent[this.index] != NONE ? new Cursor(parent[this.index]) : null;
+        }
+
+        @Override
+        public T getValue() {
+            return value(this.index);
+        }
+
+        /**
+         * returns a new list containing cursors for the children of this node.
+         * @return the children nodes
+         */
+        @Override
+        public List<Node<T>> getChildren() {
+            List<Node<T>> children = new ArrayList<>();
+            for(int child = firstChild[this.index]; child != NONE; child = nextSibling[child]) {
+                children.add(new Cursor(child));
+            }
+            return children;
+        }
+
+        @Override
+        public Node<T> visit(int index) throws IndexOutOfBoundsException {
+            return child(index);
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return firstChild[this.index] != NONE;
+        }
+
+        @Override
+        public void update(T value) throws IllegalArgumentException {
+            set(this.index, value);
+        }
+
+        @Override
+        public int calculateHeight() {
+            // walk the subtree, tracking the depth relative to this node
+            int height = 0;
+            int depth = 0;
+            int node = this.index;
+            while(true) {
+                if(firstChild[node] != NONE) {
+                    node = firstChild[node];
+                    height = Math.max(height, ++depth);
+                    continue;
+                }
+                while(node != this.index && nextSibling[node] == NONE) {
+                    node = parent[node];
+                    depth--;
+                }
+                if(node == this.index) return height;
+                node = nextSibling[node];
+            }
+        }
+
+        @Override
+        public int childCount() {
+            return degree[this.index];
+        }
+
+        /**
+         * returns the child at {@code index}, following the sibling links from the first child.
+         * the last child visited is remembered, so visiting the children in order takes constant time per child.
+         */
+        @Override
+        public Node<T> child(int index) throws IndexOutOfBoundsException {
+            if(index < 0 || index >= degree[this.index]) throw new IndexOutOfBoundsException("index not found.");
+            // the position and node of the last visited child, packed so that they are read and written together
+            long last = this.lastVisited;
+            int position = (int) (last >>> 32);
+            int child = (int) last;
+            if(position < 0 || position > index) {
+                position = 0;
+                child = firstChild[this.index];
+            }
+            for(; position < index; position++) {
+                child = nextSibling[child];
+            }
+            this.lastVisited = ((long) index << 32) | (child & 0xffffffffL);
+            return new Cursor(child);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof CompactNTree.Cursor)) return false;
+            CompactNTree<?>.Cursor cursor = (CompactNTree<?>.Cursor) o;
+            return cursor.tree() == CompactNTree.this && cursor.index == this.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.index;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(getValue());
+        }
+
+        private CompactNTree<T> tree() {
+            return CompactNTree.this;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * An array-backed min-heap where each node has up to {@code d} children, ordered by {@code long} priorities.
+ *
+ * <p>
+ *     the priorities are kept in a {@code long} array next to the values, so comparisons do not box or call comparators.
+ *     a wider heap is shallower, which means fewer cache misses when adding elements,
+ *     at the cost of more comparisons when polling. an arity of 4 is a good default.
+ * </p>
+ * @param <T> the type of elements in this heap
+ * @see IndexedHeap
+ * @see java.util.PriorityQueue
+ */
+public class DaryHeap<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int arity;
+    private long[] priorities;
+    private T[] values;
+    private int size;
+
+    /**
+     * constructs an empty heap with the given arity.
+     * @param arity the maximum number of children of each node
+     * @throws IllegalArgumentException if {@code arity} is less than 2
+     */
+    public DaryHeap(int arity) throws IllegalArgumentException {
+        if(arity < 2) throw new IllegalArgumentException("arity must be at least 2.");
+        this.arity = arity;
+        this.priorities = new long[DEFAULT_CAPACITY];
+        this.values = newValues(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * constructs a heap from a list of values in linear time.
+     * @param arity the maximum number of children of each node
+     * @param values the values
+     * @param priority the function that computes the priority of each value. it is called once per value
+     * @throws IllegalArgumentException if {@code arity} is less than 2 or a value is null
+     */
+    public DaryHeap(int arity, List<T> values, ToLongFunction<? super T> priority) throws IllegalArgumentException {
+        if(arity < 2) throw new IllegalArgumentException("arity must be at least 2.");
+        this.arity = arity;
+        int capacity = Math.max(DEFAULT_CAPACITY, values.size());
+        this.priorities = new long[capacity];
+        this.values = newValues(capacity);
+        for(T value : values) {
+            if(value == null) throw new IllegalArgumentException("value cannot be null.");
+            this.priorities[this.size] = priority.applyAsLong(value);
+            this.values[this.size++] = value;
+        }
+        // sift down every node that has children, starting from the last one
+        for(int i = (this.size - 2) / arity; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * creates an array of values, which cannot be done directly for a generic type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newValues(int length) {
+        return (T[]) new Object[length];
+    }
+
+    /**
+     * returns the number of elements in this heap.
+     * @return the number of elements
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * checks if this heap is empty. returns true if so.
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * adds a value with the given priority.
+     * @param value the value
+     * @param priority the priority. lower priorities are polled first
+     * @throws IllegalArgumentException if {@code value} is null
+     */
+    public void add(T value, long priority) throws IllegalArgumentException {
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        if(this.size == this.values.length) {
+            this.priorities = Arrays.copyOf(this.priorities, this.size * 2);
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+        }
+        this.priorities[this.size] = priority;
+        this.values[this.size] = value;
+        siftUp(this.size++);
+    }
+
+    /**
+     * returns the value with the lowest priority without removing it.
+     * @return the value, or null if this heap is empty
+     */
+    @Nullable
+    public T peek() {
+        return this.size > 0 ? this.values[0] : null;
+    }
+
+    /**
+     * returns the lowest priority in this heap.
+     * @return the lowest priority
+     * @throws NoSuchElementException if this heap is empty
+     */
+    public long peekPriority() throws NoSuchElementException {
+        if(this.size == 0) throw new NoSuchElementException("heap is empty.");
+        return this.priorities[0];
+    }
+
+    /**
+     * removes and returns the value with the lowest priority.
+     * @return the value, or null if this heap is empty
+     */
+    @Nullable
+    public T poll() {
+        if(this.size == 0) return null;
+        T value = this.values[0];
+        int last = --this.size;
+        // move the last element to the root and restore the heap
+        this.priorities[0] = this.priorities[last];
+        this.values[0] = this.values[last];
+        this.values[last] = null;
+        if(last > 0) siftDown(0);
+        return value;
+    }
+
+    /**
+     * removes all the elements from this heap.
+     */
+    public void clear() {
+        Arrays.fill(this.values, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private void siftUp(int i) {
+        long priority = this.priorities[i];
+        T value = this.values[i];
+        // move parents down until the slot for the element is found
+        while(i > 0) {
+            int parent = (i - 1) / this.arity;
+            if(this.priorities[parent] <= priority) break;
+            this.priorities[i] = this.priorities[parent];
+            this.values[i] = this.values[parent];
+            i = parent;
+        }
+        this.priorities[i] = priority;
+        this.values[i] = value;
+    }
+
+    private void siftDown(int i) {
+        long priority = this.priorities[i];
+        T value = this.values[i];
+        while(true) {
+            int first = i * this.arity + 1;
+            if(first >= this.size) break;
+            // find the child with the lowest priority
+            int smallest = first;
+            int end = Math.min(first + this.arity, this.size);
+            for(int child = first + 1; child < end; child++) {
+                if(this.priorities[child] < this.priorities[smallest]) smallest = child;
+            }
+            if(this.priorities[smallest] >= priority) break;
+            this.priorities[i] = this.priorities[smallest];
+            this.values[i] = this.values[smallest];
+            i = smallest;
+        }
+        this.priorities[i] = priority;
+        this.values[i] = value;
+    }
+}
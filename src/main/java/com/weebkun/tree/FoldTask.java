@@ -0,0 +1,152 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * fork/join task that folds the subtree of a node.
+ *
+ * <p>
+ *     the task walks down from its node in a loop, always into the largest child, so single-child chains and
+ *     other degenerate trees do not grow the call stack. the other children are folded sequentially if they have
+ *     no more than {@code cutoff} nodes, and forked otherwise. a forked child holds at most half the nodes of its parent,
+ *     so even when joins run forked tasks inline, tasks are nested at most {@code log n} deep.
+ * </p>
+ * @param <T> the type of values in the tree
+ * @param <R> the type of the result
+ * @see Tree#parallelFold(Object, BiFunction, BinaryOperator, int)
+ */
+class FoldTask<T, R> extends RecursiveTask<R> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the default sequential cutoff, in number of nodes.
+     */
+    static final int DEFAULT_CUTOFF = 4096;
+
+    private final Node<T> root;
+    private final R identity;
+    private final BiFunction<R, ? super T, R> accumulator;
+    private final BinaryOperator<R> combiner;
+    private final int cutoff;
+
+    /**
+     * constructs a task that folds the whole subtree of {@code root}.
+     * @param root the root of the subtree
+     * @param identity the identity value for {@code combiner}
+     * @param accumulator the function that folds a value into a result
+     * @param combiner the function that combines two results
+     * @param cutoff the subtree size at or below which the fold is done sequentially
+     */
+    FoldTask(Node<T> root, R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner, int cutoff) {
+        this.root = root;
+        this.identity = identity;
+        this.accumulator = accumulator;
+        this.combiner = combiner;
+        this.cutoff = cutoff;
+    }
+
+    @Override
+    protected R compute() {
+        // results and forked tasks of the subtrees before the current node, in pre-order
+        List<Object> before = new ArrayList<>();
+        // results and forked tasks of the siblings after each node on the path, innermost first
+        Deque<List<Object>> after = new ArrayDeque<>();
+        R result = this.identity;
+        Node<T> node = this.root;
+        while(node != null) {
+            if(node.size() <= this.cutoff) {
+                result = foldSequentially(result, node);
+                break;
+            }
+            result = this.accumulator.apply(result, node.getValue());
+            int count = node.childCount();
+            int largest = -1;
+            int largestSize = -1;
+            for(int i = 0; i < count; i++) {
+                int size = node.child(i).size();
+                if(size > largestSize) {
+                    largest = i;
+                    largestSize = size;
+                }
+            }
+            List<Object> siblings = null;
+            for(int i = 0; i < count; i++) {
+                if(i == largest) continue;
+                Node<T> child = node.child(i);
+                boolean small = child.size() <= this.cutoff;
+                if(i < largest) {
+                    if(small) {
+                        result = foldSequentially(result, child);
+                    } else {
+                        before.add(result);
+                        before.add(fork(child));
+                        result = this.identity;
+                    }
+                } else {
+                    if(siblings == null) siblings = new ArrayList<>();
+                    siblings.add(small ? foldSequentially(this.identity, child) : fork(child));
+                }
+            }
+            if(siblings != null) after.push(siblings);
+            // descend into the largest child in this loop instead of recursing
+            node = largest == -1 ? null : node.child(largest);
+        }
+        R total = this.identity;
+        for(Object part : before) {
+            total = this.combiner.apply(total, join(part));
+        }
+        total = this.combiner.apply(total, result);
+        for(List<Object> siblings : after) {
+            for(Object part : siblings) {
+                total = this.combiner.apply(total, join(part));
+            }
+        }
+        return total;
+    }
+
+    private ForkJoinTask<R> fork(Node<T> node) {
+        return new FoldTask<>(node, this.identity, this.accumulator, this.combiner, this.cutoff).fork();
+    }
+
+    @SuppressWarnings("unchecked")
+    private R join(Object part) {
+        return part instanceof FoldTask ? ((FoldTask<T, R>) part).join() : (R) part;
+    }
+
+    /**
+     * folds the subtree of a node in pre-order on the current thread.
+     * @return the result
+     */
+    private R foldSequentially(R result, Node<T> node) {
+        Iterator<T> iterator = TreeIterator.values(node, TraversalOrder.PRE_ORDER);
+        while(iterator.hasNext()) {
+            result = this.accumulator.apply(result, iterator.next());
+        }
+        return result;
+    }
+}
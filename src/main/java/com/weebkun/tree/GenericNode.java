@@ -25,11 +25,15 @@ import java.util.List;
  * Represents a node in an N-tree.
  * @param <T> the type of values this node will have
  */
-public class GenericNode<T> implements Node<T>{
+public class GenericNode<T> implements Node<T>, Versioned {
 
     private Node<T> parent;
     private T element;
     private List<Node<T>> children;
+    // number of nodes in the subtree of this node, including itself
+    private int count = 1;
+    // number of modifications made to the subtree of this node
+    private int modCount;
 
     /**
      * creates a root node.
@@ -51,6 +55,34 @@ public class GenericNode<T> implements Node<T>{
         this.parent = parent;
     }
 
+    /**
+     * creates a node with room for {@code capacity} children, used when the number of children is known up front.
+     * @param value the value
+     * @param capacity the initial capacity of the children list
+     */
+    GenericNode(T value, int capacity){
+        this.element = value;
+        this.children = new ArrayList<>(capacity);
+    }
+
+    /**
+     * links an existing node as the last child of this node.
+     * subtree sizes are not updated, so the caller has to set them with {@link #setSize(int)}.
+     * @param child the child node
+     */
+    void attach(GenericNode<T> child) {
+        child.parent = this;
+        this.children.add(child);
+    }
+
+    /**
+     * sets the size of this node's subtree. used by the bulk builders in {@link NTree}.
+     * @param size the size of this subtree
+     */
+    void setSize(int size) {
+        this.count = size;
+    }
+
     /**
      * adds a new element as a child to this node.
      * @param value the value
@@ -60,6 +92,7 @@ public class GenericNode<T> implements Node<T>{
     public void add(T value) throws IllegalArgumentException {
         if(value == null) throw new IllegalArgumentException("value cannot be null.");
         this.children.add(new GenericNode<>(value, this));
+        grow();
     }
 
     /**
@@ -69,6 +102,8 @@ public class GenericNode<T> implements Node<T>{
      */
     @Override
     public int calculateHeight() {
+        // a leaf node has a height of 0
+        if(this.children.isEmpty()) return 0;
         // get heights of all children
         List<Integer> heightList = new ArrayList<>();
         for(Node<T> node : this.children) {
@@ -81,11 +116,47 @@ public class GenericNode<T> implements Node<T>{
 
     /**
      * returns the size of this node's subtree.
+     * the size is kept up to date as children are added, so this takes constant time.
      * @return the size of this subtree
      */
     @Override
     public int size() {
-        return subtree().size();
+        return this.count;
+    }
+
+    /**
+     * increments the subtree size of this node and all of its ancestors after a child has been added.
+     */
+    private void grow() {
+        Node<T> node = this;
+        while(node instanceof GenericNode) {
+            GenericNode<T> generic = (GenericNode<T>) node;
+            generic.count++;
+            generic.modCount++;
+            node = generic.parent;
+        }
+    }
+
+    /**
+     * records a modification of this node in this node and all of its ancestors.
+     */
+    private void touch() {
+        Node<T> node = this;
+        while(node instanceof GenericNode) {
+            GenericNode<T> generic = (GenericNode<T>) node;
+            generic.modCount++;
+            node = generic.parent;
+        }
+    }
+
+    /**
+     * returns the number of modifications made to the subtree of this node.
+     * adding a child or updating a value anywhere in the subtree changes the count.
+     * @return the modification count
+     */
+    @Override
+    public int modCount() {
+        return this.modCount;
     }
 
     /**
@@ -108,13 +179,13 @@ public class GenericNode<T> implements Node<T>{
 
     /**
      * returns the parent of this node.
-     * may return null.
+     * returns null for the root node.
      * @return the parent
      */
     @Nullable
     @Override
     public Node<T> getParent() {
-        return null;
+        return this.parent;
     }
 
     /**
@@ -153,6 +224,26 @@ public class GenericNode<T> implements Node<T>{
         return this.children.get(index);
     }
 
+    /**
+     * returns the number of children of this node.
+     * @return the number of children
+     */
+    @Override
+    public int childCount() {
+        return this.children.size();
+    }
+
+    /**
+     * returns the child at {@code index}.
+     * @param index the index of the child
+     * @return the child node
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    @Override
+    public Node<T> child(int index) throws IndexOutOfBoundsException {
+        return visit(index);
+    }
+
     /**
      * updates this node's value.
      * @param value the new value
@@ -161,5 +252,6 @@ public class GenericNode<T> implements Node<T>{
     public void update(T value) throws IllegalArgumentException{
         if(value == null) throw new IllegalArgumentException("value cannot be null.");
         this.element = value;
+        touch();
     }
 }
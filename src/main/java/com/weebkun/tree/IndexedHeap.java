@@ -0,0 +1,229 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An array-backed d-ary min-heap of {@code int} indices with {@code long} priorities,
+ * which supports changing the priority of an index already in the heap.
+ *
+ * <p>
+ *     indices range from 0 to {@code capacity - 1}, e.g. the vertices of a graph or the ids of tasks.
+ *     the heap tracks the position of every index, so {@link #decreaseKey(int, long)} takes O(log n) time,
+ *     which is what shortest path and scheduling algorithms need.
+ * </p>
+ * @see DaryHeap
+ */
+public class IndexedHeap {
+
+    private final int arity;
+    // the heap of indices, and the priority of each index
+    private final int[] heap;
+    private final long[] priorities;
+    // the position of each index in the heap, or -1 if the index is not in the heap
+    private final int[] positions;
+    private int size;
+
+    /**
+     * constructs an empty heap for the indices {@code [0, capacity)} with an arity of 4.
+     * @param capacity the number of indices
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public IndexedHeap(int capacity) throws IllegalArgumentException {
+        this(capacity, 4);
+    }
+
+    /**
+     * constructs an empty heap for the indices {@code [0, capacity)}.
+     * @param capacity the number of indices
+     * @param arity the maximum number of children of each node
+     * @throws IllegalArgumentException if {@code capacity} is negative or {@code arity} is less than 2
+     */
+    public IndexedHeap(int capacity, int arity) throws IllegalArgumentException {
+        if(capacity < 0) throw new IllegalArgumentException("capacity cannot be negative.");
+        if(arity < 2) throw new IllegalArgumentException("arity must be at least 2.");
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.priorities = new long[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    /**
+     * returns the number of indices in this heap.
+     * @return the number of indices
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * checks if this heap is empty. returns true if so.
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * checks if an index is in this heap.
+     * @param index the index
+     * @return true if the index is in this heap
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public boolean contains(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return this.positions[index] >= 0;
+    }
+
+    /**
+     * returns the priority of an index in this heap.
+     * @param index the index
+     * @return the priority
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     * @throws NoSuchElementException if the index is not in this heap
+     */
+    public long priority(int index) throws IndexOutOfBoundsException, NoSuchElementException {
+        if(!contains(index)) throw new NoSuchElementException("index is not in the heap.");
+        return this.priorities[index];
+    }
+
+    /**
+     * adds an index with the given priority.
+     * @param index the index
+     * @param priority the priority. lower priorities are polled first
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     * @throws IllegalArgumentException if the index is already in this heap
+     */
+    public void add(int index, long priority) throws IndexOutOfBoundsException, IllegalArgumentException {
+        if(contains(index)) throw new IllegalArgumentException("index is already in the heap.");
+        this.priorities[index] = priority;
+        this.heap[this.size] = index;
+        this.positions[index] = this.size;
+        siftUp(this.size++);
+    }
+
+    /**
+     * lowers the priority of an index in this heap.
+     * @param index the index
+     * @param priority the new priority
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     * @throws NoSuchElementException if the index is not in this heap
+     * @throws IllegalArgumentException if {@code priority} is greater than the current priority
+     */
+    public void decreaseKey(int index, long priority) throws IndexOutOfBoundsException, NoSuchElementException, IllegalArgumentException {
+        if(priority > priority(index)) throw new IllegalArgumentException("priority is greater than the current priority.");
+        this.priorities[index] = priority;
+        siftUp(this.positions[index]);
+    }
+
+    /**
+     * sets the priority of an index, adding it if it is not in this heap.
+     * @param index the index
+     * @param priority the new priority
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public void update(int index, long priority) throws IndexOutOfBoundsException {
+        if(!contains(index)) {
+            add(index, priority);
+            return;
+        }
+        long previous = this.priorities[index];
+        this.priorities[index] = priority;
+        if(priority < previous) siftUp(this.positions[index]);
+        else siftDown(this.positions[index]);
+    }
+
+    /**
+     * returns the index with the lowest priority without removing it.
+     * @return the index
+     * @throws NoSuchElementException if this heap is empty
+     */
+    public int peek() throws NoSuchElementException {
+        if(this.size == 0) throw new NoSuchElementException("heap is empty.");
+        return this.heap[0];
+    }
+
+    /**
+     * returns the lowest priority in this heap.
+     * @return the lowest priority
+     * @throws NoSuchElementException if this heap is empty
+     */
+    public long peekPriority() throws NoSuchElementException {
+        return this.priorities[peek()];
+    }
+
+    /**
+     * removes and returns the index with the lowest priority.
+     * @return the index
+     * @throws NoSuchElementException if this heap is empty
+     */
+    public int poll() throws NoSuchElementException {
+        int index = peek();
+        int last = this.heap[--this.size];
+        this.positions[index] = -1;
+        if(this.size > 0) {
+            // move the last index to the root and restore the heap
+            this.heap[0] = last;
+            this.positions[last] = 0;
+            siftDown(0);
+        }
+        return index;
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= this.positions.length) throw new IndexOutOfBoundsException("index out of range of heap.");
+    }
+
+    private void siftUp(int i) {
+        int index = this.heap[i];
+        long priority = this.priorities[index];
+        while(i > 0) {
+            int parent = (i - 1) / this.arity;
+            if(this.priorities[this.heap[parent]] <= priority) break;
+            move(this.heap[parent], i);
+            i = parent;
+        }
+        move(index, i);
+    }
+
+    private void siftDown(int i) {
+        int index = this.heap[i];
+        long priority = this.priorities[index];
+        while(true) {
+            int first = i * this.arity + 1;
+            if(first >= this.size) break;
+            // find the child with the lowest priority
+            int smallest = first;
+            int end = Math.min(first + this.arity, this.size);
+            for(int child = first + 1; child < end; child++) {
+                if(this.priorities[this.heap[child]] < this.priorities[this.heap[smallest]]) smallest = child;
+            }
+            if(this.priorities[this.heap[smallest]] >= priority) break;
+            move(this.heap[smallest], i);
+            i = smallest;
+        }
+        move(index, i);
+    }
+
+    private void move(int index, int position) {
+        this.heap[position] = index;
+        this.positions[index] = position;
+    }
+}
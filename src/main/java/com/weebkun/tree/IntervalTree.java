@@ -0,0 +1,292 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import com.weebkun.tuples.Tuple;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * A static interval tree for finding the intervals that overlap a range or contain a point.
+ *
+ * <p>
+ *     the tree is bulk loaded from a list of items, each covering the closed interval {@code [lo, hi]}.
+ *     it is a centered interval tree: every node has a center, which is the median low endpoint of its intervals,
+ *     and holds the intervals that contain the center, sorted both by their low and by their high endpoints.
+ *     the intervals that end before the center go to the left subtree, and the ones that start after it to the right,
+ *     so the tree is balanced and no node is empty.
+ *     a point query walks one path from the root, and at each node scans one of the sorted lists only while
+ *     its intervals contain the point, so it takes O(log n + k) time for k results.
+ * </p>
+ * <p>
+ *     the intervals overlapping a range {@code [lo, hi]} are the ones that contain {@code lo}, and the ones that start
+ *     within {@code (lo, hi]}. the latter are found by binary search in the intervals sorted by their low endpoint,
+ *     so a range query also takes O(log n + k) time.
+ * </p>
+ * <p>
+ *     results are produced by lazy iterators. the items containing the low end of the query come first in no particular
+ *     order, followed by the rest in order of their low endpoints.
+ * </p>
+ * @param <T> the type of items in this tree
+ */
+public class IntervalTree<T> {
+
+    // the intervals, sorted by their low endpoint. nodes refer to intervals by their index in these arrays
+    private final Object[] items;
+    private final long[] lo;
+    private final long[] hi;
+    private final long[] center;
+    private final int[] left;
+    private final int[] right;
+    // the intervals of node i are at [start[i], start[i + 1]) in byLo and byHi,
+    // sorted by ascending low and ascending high endpoint respectively
+    private final int[] start;
+    private final int[] byLo;
+    private final int[] byHi;
+    private int nodes;
+
+    /**
+     * bulk loads an interval tree from a list of items in O(n log n) time.
+     * @param items the items
+     * @param lo the function that returns the low endpoint of an item. it is called once per item
+     * @param hi the function that returns the high endpoint of an item. it is called once per item
+     * @throws IllegalArgumentException if an item is null, or its low endpoint is greater than its high endpoint
+     */
+    public IntervalTree(List<T> items, ToLongFunction<? super T> lo, ToLongFunction<? super T> hi) throws IllegalArgumentException {
+        int n = items.size();
+        long[] los = new long[n];
+        long[] his = new long[n];
+        Object[] values = new Object[n];
+        int i = 0;
+        for(T item : items) {
+            if(item == null) throw new IllegalArgumentException("item cannot be null.");
+            los[i] = lo.applyAsLong(item);
+            his[i] = hi.applyAsLong(item);
+            if(los[i] > his[i]) throw new IllegalArgumentException("low endpoint cannot be greater than high endpoint.");
+            values[i++] = item;
+        }
+        // sort the intervals by their low endpoint
+        int[] order = new int[n];
+        for(i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[n];
+        sort(order, buffer, los, 0, n);
+        this.items = new Object[n];
+        this.lo = new long[n];
+        this.hi = new long[n];
+        for(i = 0; i < n; i++) {
+            this.items[i] = values[order[i]];
+            this.lo[i] = los[order[i]];
+            this.hi[i] = his[order[i]];
+        }
+        this.center = new long[n];
+        this.left = new int[n];
+        this.right = new int[n];
+        this.start = new int[n + 1];
+        this.byLo = new int[n];
+        this.byHi = new int[n];
+        // order now holds the intervals of the root, sorted by their low endpoint
+        for(i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        build(order, buffer, 0, n);
+        this.start[this.nodes] = n;
+    }
+
+    /**
+     * bulk loads an interval tree from tuples holding the endpoints of each interval as numbers.
+     * @param tuples the tuples
+     * @param loIndex the index of the low endpoint in each tuple
+     * @param hiIndex the index of the high endpoint in each tuple
+     * @return the interval tree
+     * @throws IllegalArgumentException if a low endpoint is greater than its high endpoint
+     * @throws ClassCastException if an endpoint is not a {@link Number}
+     */
+    public static IntervalTree<Tuple> ofTuples(List<Tuple> tuples, int loIndex, int hiIndex) throws IllegalArgumentException, ClassCastException {
+        return new IntervalTree<>(tuples, t -> ((Number) t.get(loIndex)).longValue(), t -> ((Number) t.get(hiIndex)).longValue());
+    }
+
+    /**
+     * returns the number of intervals in this tree.
+     * @return the number of intervals
+     */
+    public int size() {
+        return this.items.length;
+    }
+
+    /**
+     * checks if this tree is empty. returns true if so.
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return this.items.length == 0;
+    }
+
+    /**
+     * returns a lazy iterator over the items whose intervals overlap the closed range {@code [lo, hi]}.
+     * a range with {@code lo > hi} is empty and overlaps nothing.
+     * @param lo the low end of the range
+     * @param hi the high end of the range
+     * @return the iterator, over the items containing {@code lo} followed by the rest in order of their low endpoints
+     */
+    public Iterator<T> overlapping(long lo, long hi) {
+        return new QueryIterator(lo, hi);
+    }
+
+    /**
+     * returns a lazy iterator over the items whose intervals contain {@code point}.
+     * @param point the point
+     * @return the iterator, in no particular order
+     */
+    public Iterator<T> stabbing(long point) {
+        return new QueryIterator(point, point);
+    }
+
+    /**
+     * builds the subtree of the intervals in {@code members[from, to)}, which are sorted by their low endpoint,
+     * and returns its node, or -1 if there are no intervals.
+     * the subtrees hold at most half of the intervals each, so the recursion depth is logarithmic.
+     */
+    private int build(int[] members, int[] buffer, int from, int to) {
+        if(from >= to) return -1;
+        int node = this.nodes++;
+        long center = this.lo[members[(from + to) >>> 1]];
+        // the intervals starting after the center are a suffix. split the rest, stably,
+        // into the ones ending before the center and the ones containing it
+        int suffix = to;
+        while(suffix > from && this.lo[members[suffix - 1]] > center) suffix--;
+        int before = from;
+        int containing = 0;
+        for(int i = from; i < suffix; i++) {
+            int interval = members[i];
+            if(this.hi[interval] < center) members[before++] = interval;
+            else buffer[containing++] = interval;
+        }
+        System.arraycopy(buffer, 0, members, before, containing);
+        int offset = this.start[node];
+        System.arraycopy(members, before, this.byLo, offset, containing);
+        System.arraycopy(members, before, this.byHi, offset, containing);
+        sort(this.byHi, buffer, this.hi, offset, offset + containing);
+        this.center[node] = center;
+        this.start[node + 1] = offset + containing;
+        this.left[node] = build(members, buffer, from, before);
+        this.right[node] = build(members, buffer, suffix, to);
+        return node;
+    }
+
+    /**
+     * stable merge sort of {@code order[from, to)} by {@code keys}, using {@code buffer} as scratch space.
+     */
+    private static void sort(int[] order, int[] buffer, long[] keys, int from, int to) {
+        if(to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sort(order, buffer, keys, from, mid);
+        sort(order, buffer, keys, mid, to);
+        if(keys[order[mid - 1]] <= keys[order[mid]]) return;
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for(int i = from; i < to; i++) {
+            if(right >= to || (left < mid && keys[buffer[left]] <= keys[buffer[right]])) order[i] = buffer[left++];
+            else order[i] = buffer[right++];
+        }
+    }
+
+    /**
+     * lazy query: walks the path of the low end of the query down the tree, then scans the intervals
+     * starting within the rest of the query.
+     */
+    private final class QueryIterator implements Iterator<T> {
+
+        private final long point;
+        private final long queryHi;
+        // the current node of the walk, or -1 once it is done, and the position of the scan in its lists
+        private int node;
+        private int position;
+        // the next interval of the scan by low endpoint
+        private int index;
+        private int next = -1;
+
+        QueryIterator(long lo, long hi) {
+            this.point = lo;
+            this.queryHi = hi;
+            if(lo > hi) {
+                this.node = -1;
+                this.index = items.length;
+                return;
+            }
+            enter(items.length > 0 ? 0 : -1);
+            // the first interval starting after the low end of the query
+            int from = 0;
+            int to = items.length;
+            while(from < to) {
+                int mid = (from + to) >>> 1;
+                if(IntervalTree.this.lo[mid] <= lo) from = mid + 1;
+                else to = mid;
+            }
+            this.index = from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(this.next < 0) this.next = advance();
+            return this.next >= 0;
+        }
+
+        @Override
+        public T next() throws NoSuchElementException {
+            if(!hasNext()) throw new NoSuchElementException("no more intervals.");
+            @SuppressWarnings("unchecked")
+            T item = (T) items[this.next];
+            this.next = -1;
+            return item;
+        }
+
+        private void enter(int node) {
+            this.node = node;
+            if(node < 0) return;
+            // left of the center, the intervals containing the point are a prefix by low endpoint.
+            // right of it, they are a suffix by high endpoint. at the center, all of them
+            this.position = this.point > center[node] ? start[node + 1] - 1 : start[node];
+        }
+
+        private int advance() {
+            while(this.node >= 0) {
+                int node = this.node;
+                long center = IntervalTree.this.center[node];
+                if(this.point < center) {
+                    if(this.position < start[node + 1] && lo[byLo[this.position]] <= this.point) return byLo[this.position++];
+                    enter(left[node]);
+                } else if(this.point > center) {
+                    if(this.position >= start[node] && hi[byHi[this.position]] >= this.point) return byHi[this.position--];
+                    enter(right[node]);
+                } else {
+                    // no interval in either subtree contains the center
+                    if(this.position < start[node + 1]) return byLo[this.position++];
+                    enter(-1);
+                }
+            }
+            if(this.index < items.length && lo[this.index] <= this.queryHi) return this.index++;
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@code long} specialization of {@link SubtreeAggregator}, which keeps the aggregated values unboxed.
+ * @param <T> the type of values in the tree
+ * @see SubtreeAggregator
+ */
+public class LongSubtreeAggregator<T> {
+
+    private final PreOrderIndex<T> preOrder;
+    private final long identity;
+    private final LongBinaryOperator operator;
+    // segment tree. the values of the nodes are the leaves at [n, 2n), node i combines 2i and 2i + 1
+    private final long[] segments;
+    private final int n;
+
+    /**
+     * builds an aggregator over a tree in linear time.
+     * @param tree the tree
+     * @param initial maps the value of each node to its initial aggregated value
+     * @param identity the identity value of {@code operator}
+     * @param operator the associative operator to aggregate with
+     */
+    public LongSubtreeAggregator(Tree<T> tree, ToLongFunction<? super T> initial, long identity, LongBinaryOperator operator) {
+        this.preOrder = new PreOrderIndex<>(tree);
+        this.identity = identity;
+        this.operator = operator;
+        this.n = this.preOrder.size();
+        this.segments = new long[2 * this.n];
+        for(int i = 0; i < this.n; i++) {
+            this.segments[this.n + i] = initial.applyAsLong(this.preOrder.node(i).getValue());
+        }
+        for(int i = this.n - 1; i > 0; i--) {
+            this.segments[i] = this.operator.applyAsLong(this.segments[2 * i], this.segments[2 * i + 1]);
+        }
+    }
+
+    /**
+     * builds an aggregator that sums up subtrees.
+     * @param tree the tree
+     * @param initial maps the value of each node to its initial value
+     * @param <T> the type of values in the tree
+     * @return the aggregator
+     */
+    public static <T> LongSubtreeAggregator<T> sum(Tree<T> tree, ToLongFunction<? super T> initial) {
+        return new LongSubtreeAggregator<>(tree, initial, 0, Long::sum);
+    }
+
+    /**
+     * builds an aggregator that finds the maximum of subtrees.
+     * @param tree the tree
+     * @param initial maps the value of each node to its initial value
+     * @param <T> the type of values in the tree
+     * @return the aggregator
+     */
+    public static <T> LongSubtreeAggregator<T> max(Tree<T> tree, ToLongFunction<? super T> initial) {
+        return new LongSubtreeAggregator<>(tree, initial, Long.MIN_VALUE, Math::max);
+    }
+
+    /**
+     * builds an aggregator that finds the minimum of subtrees.
+     * @param tree the tree
+     * @param initial maps the value of each node to its initial value
+     * @param <T> the type of values in the tree
+     * @return the aggregator
+     */
+    public static <T> LongSubtreeAggregator<T> min(Tree<T> tree, ToLongFunction<? super T> initial) {
+        return new LongSubtreeAggregator<>(tree, initial, Long.MAX_VALUE, Math::min);
+    }
+
+    /**
+     * returns the current value of a single node.
+     * @param node the node
+     * @return the value of the node
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public long get(Node<T> node) throws IllegalArgumentException {
+        return this.segments[this.n + this.preOrder.id(node)];
+    }
+
+    /**
+     * sets the value of a node.
+     * @param node the node
+     * @param value the new value
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public void update(Node<T> node, long value) throws IllegalArgumentException {
+        int i = this.n + this.preOrder.id(node);
+        this.segments[i] = value;
+        // recompute the segments that contain the node
+        for(i >>= 1; i > 0; i >>= 1) {
+            this.segments[i] = this.operator.applyAsLong(this.segments[2 * i], this.segments[2 * i + 1]);
+        }
+    }
+
+    /**
+     * aggregates the values of the subtree of a node, including the node itself.
+     * @param subtreeRoot the root of the subtree
+     * @return the aggregate of the subtree
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public long query(Node<T> subtreeRoot) throws IllegalArgumentException {
+        int id = this.preOrder.id(subtreeRoot);
+        long left = this.identity;
+        long right = this.identity;
+        // combine the segments covering [id, id + size), keeping the left and right results apart to preserve order
+        for(int l = this.n + id, r = this.n + id + this.preOrder.size(id); l < r; l >>= 1, r >>= 1) {
+            if((l & 1) == 1) left = this.operator.applyAsLong(left, this.segments[l++]);
+            if((r & 1) == 1) right = this.operator.applyAsLong(this.segments[--r], right);
+        }
+        return this.operator.applyAsLong(left, right);
+    }
+}
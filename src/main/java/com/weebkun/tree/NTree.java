@@ -17,6 +17,7 @@
 package com.weebkun.tree;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * A data structure representing a generic tree where nodes can contain many children.
@@ -24,15 +25,17 @@ import java.util.*;
  */
 public class NTree<T> implements Tree<T>, Iterable<T> {
 
-    private int size;
+    // number of nodes from which the bulk builders work in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
     private GenericNode<T> root;
+    private final TraversalCache<T> cache = new TraversalCache<>();
 
     /**
      * default constructor for {@code NTree}.
-     * sets size to 0.
+     * constructs an empty {@code NTree} with size 0.
      */
     public NTree(){
-        this.size = 0;
     }
 
     /**
@@ -41,7 +44,6 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      */
     public NTree(T value){
         this.root = new GenericNode<>(value);
-        this.size = 1;
     }
 
     /**
@@ -50,7 +52,161 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      */
     public NTree(GenericNode<T> root) {
         this.root = root;
-        this.size = root.size();
+    }
+
+    /**
+     * builds an {@code NTree} from an array of values and an array of parent indices in linear time.
+     * node {@code i} has the value {@code values[i]} and is a child of node {@code parent[i]}.
+     * the root is the only node with a parent of -1. children are added in the order of their indices.
+     * @param values the values of the nodes
+     * @param parent the index of the parent of each node, or -1 for the root
+     * @param <T> the type of elements contained in the tree
+     * @return the tree
+     * @throws IllegalArgumentException if the arrays differ in length, a value is null, there is not exactly one root,
+     * or the parent indices do not form a tree
+     * @see #forestFromParentArray(Object[], int[])
+     */
+    public static <T> NTree<T> fromParentArray(T[] values, int[] parent) throws IllegalArgumentException {
+        List<NTree<T>> forest = forestFromParentArray(values, parent);
+        if(forest.size() != 1) throw new IllegalArgumentException("parent array must contain exactly one root.");
+        return forest.get(0);
+    }
+
+    /**
+     * builds a forest of {@code NTree}s from an array of values and an array of parent indices in linear time.
+     * every node with a parent of -1 is the root of a tree, and the trees are returned in the order of their roots.
+     *
+     * <p>
+     *     the children lists are sized up front, and for large inputs the nodes are created and linked in parallel,
+     *     and the subtree sizes of the trees are computed in parallel.
+     * </p>
+     * @param values the values of the nodes
+     * @param parent the index of the parent of each node, or -1 for a root
+     * @param <T> the type of elements contained in the trees
+     * @return the list of trees
+     * @throws IllegalArgumentException if the arrays differ in length, a value is null,
+     * or the parent indices do not form a forest
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<NTree<T>> forestFromParentArray(T[] values, int[] parent) throws IllegalArgumentException {
+        if(values.length != parent.length) throw new IllegalArgumentException("values and parent must have the same length.");
+        int n = values.length;
+        boolean parallel = n >= PARALLEL_THRESHOLD;
+
+        // step 1. count the children of each node and the roots
+        int[] degree = new int[n];
+        int roots = 0;
+        for(int i = 0; i < n; i++) {
+            if(values[i] == null) throw new IllegalArgumentException("value cannot be null.");
+            int p = parent[i];
+            if(p == -1) {
+                roots++;
+            } else if(p < 0 || p >= n || p == i) {
+                throw new IllegalArgumentException("invalid parent index at " + i + ".");
+            } else {
+                degree[p]++;
+            }
+        }
+
+        // step 2. create the nodes with pre-sized children lists
+        GenericNode<T>[] nodes = (GenericNode<T>[]) new GenericNode<?>[n];
+        range(n, parallel).forEach(i -> nodes[i] = new GenericNode<>(values[i], degree[i]));
+
+        // step 3. group the children by parent with a counting sort, which keeps them in index order
+        int[] offset = new int[n + 1];
+        for(int i = 0; i < n; i++) {
+            offset[i + 1] = offset[i] + degree[i];
+        }
+        int[] fill = Arrays.copyOf(offset, n);
+        int[] children = new int[n - roots];
+        int[] rootIndices = new int[roots];
+        int r = 0;
+        for(int i = 0; i < n; i++) {
+            if(parent[i] == -1) rootIndices[r++] = i;
+            else children[fill[parent[i]]++] = i;
+        }
+
+        // step 4. link the children to their parents. each parent is only touched by one thread
+        range(n, parallel).forEach(p -> {
+            for(int j = offset[p]; j < offset[p + 1]; j++) {
+                nodes[p].attach(nodes[children[j]]);
+            }
+        });
+
+        // step 5. compute the subtree sizes. nodes in a cycle are never reached from a root
+        IntStream rootStream = IntStream.of(rootIndices);
+        if(parallel) rootStream = rootStream.parallel();
+        int reached = rootStream.map(i -> computeSizes(nodes[i])).sum();
+        if(reached != n) throw new IllegalArgumentException("parent array contains a cycle.");
+
+        List<NTree<T>> forest = new ArrayList<>(roots);
+        for(int i : rootIndices) {
+            forest.add(new NTree<>(nodes[i]));
+        }
+        return forest;
+    }
+
+    /**
+     * builds an {@code NTree} from a list of edges in linear time.
+     * edge {@code i} links the parent node {@code parents[i]} to the child node {@code children[i]}.
+     * node {@code i} has the value {@code values[i]}.
+     * @param values the values of the nodes
+     * @param parents the parent node of each edge
+     * @param children the child node of each edge
+     * @param <T> the type of elements contained in the tree
+     * @return the tree
+     * @throws IllegalArgumentException if the arrays of edges differ in length, an edge has an index out of range,
+     * a node has more than one parent, or the edges do not form a tree over all the values
+     * @see #fromParentArray(Object[], int[])
+     */
+    public static <T> NTree<T> fromEdges(T[] values, int[] parents, int[] children) throws IllegalArgumentException {
+        if(parents.length != children.length) throw new IllegalArgumentException("parents and children must have the same length.");
+        int[] parent = new int[values.length];
+        Arrays.fill(parent, -1);
+        // tracked separately from parent, so no edge can pass the check by setting a parent of -1
+        boolean[] linked = new boolean[values.length];
+        for(int i = 0; i < children.length; i++) {
+            int child = children[i];
+            int p = parents[i];
+            if(child < 0 || child >= values.length) throw new IllegalArgumentException("invalid child index in edge " + i + ".");
+            if(p < 0 || p >= values.length || p == child) throw new IllegalArgumentException("invalid parent index in edge " + i + ".");
+            if(linked[child]) throw new IllegalArgumentException("node " + child + " has more than one parent.");
+            linked[child] = true;
+            parent[child] = p;
+        }
+        return fromParentArray(values, parent);
+    }
+
+    private static IntStream range(int n, boolean parallel) {
+        IntStream range = IntStream.range(0, n);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * computes the subtree sizes of a tree that was linked with {@link GenericNode#attach(GenericNode)}.
+     * @param root the root of the tree
+     * @param <T> the type of elements contained in the tree
+     * @return the number of nodes in the tree
+     */
+    private static <T> int computeSizes(GenericNode<T> root) {
+        // collect the nodes breadth first, so every node comes after its parent
+        List<GenericNode<T>> order = new ArrayList<>();
+        order.add(root);
+        for(int i = 0; i < order.size(); i++) {
+            for(Node<T> child : order.get(i).getChildren()) {
+                order.add((GenericNode<T>) child);
+            }
+        }
+        // then set the sizes in reverse, so every child is done before its parent
+        for(int i = order.size() - 1; i >= 0; i--) {
+            GenericNode<T> node = order.get(i);
+            int size = 1;
+            for(Node<T> child : node.getChildren()) {
+                size += child.size();
+            }
+            node.setSize(size);
+        }
+        return order.size();
     }
 
     /**
@@ -59,7 +215,7 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public int size() {
-        return this.size;
+        return this.root != null ? this.root.size() : 0;
     }
 
     /**
@@ -68,7 +224,7 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public boolean isEmpty() {
-        return this.size == 0;
+        return this.root == null;
     }
 
     /**
@@ -97,27 +253,42 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public List<T> traverse() {
-        List<T> result = new ArrayList<>();
-        // visit root
-        result.add(this.root.getValue());
-        // visit each child subtree
-        result.addAll(traverse(this.root.getChildren()));
-        return result;
+        return traverse(TraversalOrder.PRE_ORDER);
+    }
+
+    /**
+     * enables or disables caching the traversals of this tree. caching is enabled by default.
+     * disabling it drops the cached traversals, so that this tree holds no copies of its values.
+     * @param enabled whether traversals are cached
+     */
+    public void setTraversalCaching(boolean enabled) {
+        this.cache.setEnabled(enabled);
+    }
+
+    /**
+     * traverses this tree in the given order.
+     * the result is cached until the tree is modified, so repeated traversals only copy the cached values.
+     * @param order the traversal order
+     * @return the list
+     */
+    @Override
+    public List<T> traverse(TraversalOrder order) {
+        return this.cache.list(this.root, order);
     }
 
     /**
      * traverses the children of a node depth first.
+     * the traversal is iterative, so it does not overflow the stack on deep trees.
      * @param children the list of children
      * @return list containing the elements in order
      */
     public List<T> traverse(List<Node<T>> children) {
         List<T> result = new ArrayList<>();
-        for(Node<T> node : this.root.getChildren()) {
-            // visit the child
-            result.add(node.getValue());
-            // visit the children of this node
-            if(node.hasChildren()){
-                result.addAll(traverse(node.getChildren()));
+        for(Node<T> child : children) {
+            // visit the child and its subtree
+            Iterator<T> iterator = TreeIterator.values(child, TraversalOrder.PRE_ORDER);
+            while(iterator.hasNext()) {
+                result.add(iterator.next());
             }
         }
         return result;
@@ -128,69 +299,39 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      * @return list of the elements in order
      */
     public List<T> traverseBreadthFirst() {
-        List<T> result = new ArrayList<>();
-        // visit root
-        result.add(this.root.getValue());
-        // create queue
-        Deque<Node<T>> queue = new ArrayDeque<>();
-        // enqueue root
-        queue.addFirst(this.root);
-        while(queue.size() > 0){
-            Node<T> node = queue.pop();
-            result.add(node.getValue());
-            // enqueue children starting from the left
-            for(Node<T> child : this.root.getChildren()) {
-                if(child != null) queue.addFirst(child);
-            }
-        }
-        return result;
+        return traverse(TraversalOrder.LEVEL_ORDER);
     }
 
     /**
-     * returns the {@link Iterator} for this tree.
+     * returns the {@link Iterator} for this tree, which yields the elements depth-first.
      * @return the iterator
+     * @see #iterator(TraversalOrder)
      */
     @Override
     public Iterator<T> iterator() {
-        return new Iterator<>() {
-            Iterator<T> iterator = traverse().iterator();
-
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
+        return iterator(TraversalOrder.PRE_ORDER);
+    }
 
-            @Override
-            public T next() {
-                return iterator.next();
-            }
-        };
+    /**
+     * returns an {@link Iterator} that yields the elements in the given order.
+     * if the traversal in this order is cached, the iterator reads the cached values.
+     * otherwise the tree is walked lazily, and the iterator does not fill the cache.
+     * @param order the traversal order
+     * @return the iterator
+     * @throws java.util.ConcurrentModificationException from {@code next()} if the tree is modified while iterating
+     */
+    @Override
+    public Iterator<T> iterator(TraversalOrder order) {
+        return this.cache.iterator(this.root, order);
     }
 
     /**
      * returns the {@link Iterator} which yields the {@link Node}s themselves, not the values.
+     * the nodes are yielded depth-first, and are not cached.
      * @return the node iterator
      */
     public Iterator<Node<T>> nodeIterator(){
-        // convert elements from traversal to node objs
-        List<Node<T>> nodeList = new ArrayList<>();
-        for(T elem : traverse()){
-            nodeList.add(new GenericNode<>(elem));
-        }
-
-        return new Iterator<>() {
-            Iterator<Node<T>> iterator = nodeList.iterator();
-
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
-
-            @Override
-            public Node<T> next() {
-                return iterator.next();
-            }
-        };
+        return this.cache.nodeIterator(this.root);
     }
 
     /**
@@ -199,6 +340,91 @@ public class NTree<T> implements Tree<T>, Iterable<T> {
      */
     @Override
     public String toString() {
-        return traverse().toString();
+        return this.cache.toString(this.root, TraversalOrder.PRE_ORDER);
+    }
+
+    /**
+     * builds an {@code NTree} from a stream of records sorted in pre-order, each carrying the depth of its node.
+     * this suits exports of hierarchies such as indented outlines, where each record follows its parent or a sibling.
+     * each record is added in constant amortized time.
+     *
+     * <pre>{@code
+     * NTree<String> tree = new NTree.Builder<String>()
+     *         .add(0, "root")
+     *         .add(1, "a")
+     *         .add(2, "a1")
+     *         .add(1, "b")
+     *         .build();
+     * }</pre>
+     * @param <T> the type of elements contained in the tree
+     */
+    public static class Builder<T> {
+
+        // the path from the root to the last added node
+        private GenericNode<T>[] path;
+        private int depth;
+        private GenericNode<T> root;
+
+        /**
+         * constructs an empty builder.
+         */
+        @SuppressWarnings("unchecked")
+        public Builder() {
+            this.path = (GenericNode<T>[]) new GenericNode<?>[16];
+        }
+
+        /**
+         * adds a value at the given depth. the first value must be the root at depth 0,
+         * and every other value is added as the last child of the last added node at {@code depth - 1}.
+         * @param depth the depth of the node
+         * @param value the value
+         * @return this builder
+         * @throws IllegalArgumentException if {@code value} is null or {@code depth} does not follow the previous record
+         */
+        public Builder<T> add(int depth, T value) throws IllegalArgumentException {
+            if(value == null) throw new IllegalArgumentException("value cannot be null.");
+            if(this.root == null) {
+                if(depth != 0) throw new IllegalArgumentException("the first record must be the root at depth 0.");
+                this.root = new GenericNode<>(value);
+                push(this.root);
+                return this;
+            }
+            if(depth < 1 || depth > this.depth) throw new IllegalArgumentException("depth must be between 1 and " + this.depth + ".");
+            // the subtrees below the new node's parent are complete
+            while(this.depth > depth) close();
+            GenericNode<T> node = new GenericNode<>(value);
+            this.path[depth - 1].attach(node);
+            push(node);
+            return this;
+        }
+
+        /**
+         * builds the tree from the records added so far and resets this builder.
+         * @return the tree, which is empty if no records were added
+         */
+        public NTree<T> build() {
+            if(this.root == null) return new NTree<>();
+            while(this.depth > 0) close();
+            NTree<T> tree = new NTree<>(this.root);
+            this.root = null;
+            return tree;
+        }
+
+        private void push(GenericNode<T> node) {
+            if(this.depth == this.path.length) this.path = Arrays.copyOf(this.path, this.depth * 2);
+            this.path[this.depth++] = node;
+        }
+
+        /**
+         * removes the last node from the path and adds its subtree size to its parent.
+         */
+        private void close() {
+            GenericNode<T> node = this.path[--this.depth];
+            this.path[this.depth] = null;
+            if(this.depth > 0) {
+                GenericNode<T> parent = this.path[this.depth - 1];
+                parent.setSize(parent.size() + node.size());
+            }
+        }
     }
 }
@@ -91,4 +91,32 @@ public interface Node<T> {
      * @return the height of this node
      */
     int calculateHeight();
+
+    /**
+     * returns the number of non-null children this node has.
+     * implementations should override this if {@link #getChildren()} is expensive to call.
+     * @return the number of children
+     */
+    default int childCount() {
+        int count = 0;
+        for(Node<T> child : getChildren()) {
+            if(child != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * returns the nth non-null child of this node.
+     * unlike {@link #visit(int)}, null children are skipped, so {@code index} ranges from 0 to {@link #childCount()} - 1.
+     * @param index the index of the child
+     * @return the child node at {@code index}
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    default Node<T> child(int index) throws IndexOutOfBoundsException {
+        int i = 0;
+        for(Node<T> child : getChildren()) {
+            if(child != null && i++ == index) return child;
+        }
+        throw new IndexOutOfBoundsException("index not found.");
+    }
 }
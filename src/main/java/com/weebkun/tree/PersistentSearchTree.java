@@ -0,0 +1,475 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import com.weebkun.metrics.ListUtilMetrics;
+import com.weebkun.metrics.Metrics;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An immutable, balanced binary search tree where every modification returns a new version of the tree.
+ *
+ * <p>
+ *     {@link #insert(Object)} and {@link #delete(Object)} copy only the nodes on the path from the root to the
+ *     changed node, and the new version shares every other subtree with the previous one (path copying).
+ *     the tree is kept balanced as an AVL tree, so each modification copies O(log n) nodes.
+ *     a version never changes once created, so readers can hold on to one without locks
+ *     while writers publish newer versions, and versions nobody refers to are reclaimed by the garbage collector.
+ * </p>
+ * <p>
+ *     like {@link BinarySearchTree}, duplicate values are allowed and are placed in the left subtree.
+ *     traversals default to in-order, which yields the values in sorted order.
+ *     all mutating operations on the nodes throw {@link UnsupportedOperationException}.
+ * </p>
+ * @param <T> the type of elements contained in this tree
+ * @see com.weebkun.utils.ImmutableList
+ * @see BinarySearchTree
+ */
+public final class PersistentSearchTree<T> implements Tree<T>, Iterable<T> {
+
+    private final Comparator<? super T> comparator;
+    private final PersistentNode<T> root;
+
+    private PersistentSearchTree(Comparator<? super T> comparator, PersistentNode<T> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * returns an empty tree ordered by the natural order of its elements.
+     * @param <T> the type of elements contained in the tree
+     * @return the empty tree
+     */
+    public static <T extends Comparable<? super T>> PersistentSearchTree<T> empty() {
+        return new PersistentSearchTree<>(Comparator.naturalOrder(), null);
+    }
+
+    /**
+     * returns an empty tree ordered by a comparator.
+     * @param comparator the comparator
+     * @param <T> the type of elements contained in the tree
+     * @return the empty tree
+     */
+    public static <T> PersistentSearchTree<T> empty(Comparator<? super T> comparator) {
+        return new PersistentSearchTree<>(comparator, null);
+    }
+
+    /**
+     * returns a tree containing the given values, ordered by their natural order.
+     * @param values the values
+     * @param <T> the type of elements contained in the tree
+     * @return the tree
+     * @throws IllegalArgumentException if a value is null
+     */
+    public static <T extends Comparable<? super T>> PersistentSearchTree<T> of(List<T> values) throws IllegalArgumentException {
+        PersistentSearchTree<T> tree = empty();
+        for(T value : values) {
+            tree = tree.insert(value);
+        }
+        return tree;
+    }
+
+    /**
+     * returns a new version of this tree with the value inserted. this tree is not modified.
+     * @param value the value
+     * @return the new version
+     * @throws IllegalArgumentException if {@code value} is null
+     */
+    public PersistentSearchTree<T> insert(T value) throws IllegalArgumentException {
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        return new PersistentSearchTree<>(this.comparator, insert(this.root, value));
+    }
+
+    /**
+     * returns a new version of this tree with one occurrence of the value removed. this tree is not modified.
+     * @param value the value
+     * @return the new version, or this tree if the value was not found
+     */
+    public PersistentSearchTree<T> delete(T value) {
+        if(value == null) return this;
+        PersistentNode<T> root = delete(this.root, value);
+        return root == this.root ? this : new PersistentSearchTree<>(this.comparator, root);
+    }
+
+    /**
+     * checks if this tree contains a value.
+     * @param value the value
+     * @return true if the value is found
+     */
+    public boolean contains(T value) {
+        if(value == null) return false;
+        PersistentNode<T> node = this.root;
+        while(node != null) {
+            int comparison = this.comparator.compare(value, node.value);
+            if(comparison == 0) return true;
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * returns the size of this tree.
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return this.root != null ? this.root.size : 0;
+    }
+
+    /**
+     * checks if this tree is empty. returns true if so.
+     * @return true if empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.root == null;
+    }
+
+    /**
+     * returns the root node of this tree. the node is immutable.
+     * @return the root, or null if this tree is empty
+     */
+    @Nullable
+    @Override
+    public Node<T> getRoot() {
+        return this.root;
+    }
+
+    /**
+     * traverses this tree in-order, which returns the values in sorted order.
+     * @return the sorted list of values
+     */
+    @Override
+    public List<T> traverse() {
+        return traverse(TraversalOrder.IN_ORDER);
+    }
+
+    /**
+     * returns the height of this tree. this takes constant time, since every node stores its height.
+     * @return the height, or -1 if this tree is empty
+     * @see Tree#getHeight() for more details.
+     */
+    @Override
+    public int getHeight() {
+        return height(this.root);
+    }
+
+    /**
+     * returns the {@link Iterator} for this tree, which yields the values in sorted order.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return iterator(TraversalOrder.IN_ORDER);
+    }
+
+    /**
+     * returns a {@link Spliterator} over the values of this tree in sorted order, matching {@link #iterator()}.
+     * every node stores the size of its subtree, so the spliterator splits by in-order position into halves
+     * of exactly known size, and starts iterating at a position in O(log n).
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new InOrderSpliterator(0, size());
+    }
+
+    /**
+     * returns the string representation of this tree in sorted order.
+     * @return the string representation of this tree
+     */
+    @Override
+    public String toString() {
+        return traverse().toString();
+    }
+
+    private PersistentNode<T> insert(PersistentNode<T> node, T value) {
+        if(node == null) return node(value, null, null);
+        // copy this node on the way back up, pointing at the new version of the changed subtree
+        if(this.comparator.compare(value, node.value) <= 0) return balance(node.value, insert(node.left, value), node.right);
+        return balance(node.value, node.left, insert(node.right, value));
+    }
+
+    /**
+     * removes one occurrence of a value from a subtree.
+     * @return the new subtree, or the same node if the value was not found
+     */
+    private PersistentNode<T> delete(PersistentNode<T> node, T value) {
+        if(node == null) return null;
+        int comparison = this.comparator.compare(value, node.value);
+        if(comparison < 0) {
+            PersistentNode<T> left = delete(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if(comparison > 0) {
+            PersistentNode<T> right = delete(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        if(node.left == null) return node.right;
+        if(node.right == null) return node.left;
+        // replace the value with its successor, which is the smallest value of the right subtree
+        PersistentNode<T> successor = node.right;
+        while(successor.left != null) successor = successor.left;
+        return balance(successor.value, node.left, deleteMin(node.right));
+    }
+
+    private PersistentNode<T> deleteMin(PersistentNode<T> node) {
+        if(node.left == null) return node.right;
+        return balance(node.value, deleteMin(node.left), node.right);
+    }
+
+    /**
+     * creates a node, rotating if the heights of its subtrees differ by more than 1.
+     */
+    private PersistentNode<T> balance(T value, PersistentNode<T> left, PersistentNode<T> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if(leftHeight > rightHeight + 1) {
+            if(height(left.left) >= height(left.right)) {
+                // single right rotation
+                rotated(1);
+                return node(left.value, left.left, node(value, left.right, right));
+            }
+            // left-right double rotation
+            rotated(2);
+            PersistentNode<T> pivot = left.right;
+            return node(pivot.value,
+                    node(left.value, left.left, pivot.left),
+                    node(value, pivot.right, right));
+        }
+        if(rightHeight > leftHeight + 1) {
+            if(height(right.right) >= height(right.left)) {
+                // single left rotation
+                rotated(1);
+                return node(right.value, node(value, left, right.left), right.right);
+            }
+            // right-left double rotation
+            rotated(2);
+            PersistentNode<T> pivot = right.left;
+            return node(pivot.value,
+                    node(value, left, pivot.left),
+                    node(right.value, pivot.right, right.right));
+        }
+        return node(value, left, right);
+    }
+
+    private static void rotated(int rotations) {
+        ListUtilMetrics metrics = Metrics.current();
+        if(metrics != null) metrics.rebalance(PersistentSearchTree.class, rotations);
+    }
+
+    private PersistentNode<T> node(T value, PersistentNode<T> left, PersistentNode<T> right) {
+        return new PersistentNode<>(this.comparator, value, left, right);
+    }
+
+    private static int height(PersistentNode<?> node) {
+        return node != null ? node.height : -1;
+    }
+
+    /**
+     * a spliterator over the values at the in-order positions {@code [from, to)} of this tree.
+     * the path to the current position is kept on an explicit stack, which is only built on the first advance,
+     * so splitting before iterating does not walk the tree.
+     */
+    private final class InOrderSpliterator implements Spliterator<T> {
+
+        private int from;
+        private final int to;
+        // nodes whose left subtree has been yielded but which have not been yielded themselves, innermost on top
+        private ArrayDeque<PersistentNode<T>> stack;
+
+        InOrderSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if(this.from >= this.to) return false;
+            if(this.stack == null) this.stack = seek(this.from);
+            PersistentNode<T> node = this.stack.pop();
+            // the next node is the leftmost node of the right subtree, or the innermost pending ancestor
+            for(PersistentNode<T> next = node.right; next != null; next = next.left) {
+                this.stack.push(next);
+            }
+            this.from++;
+            action.accept(node.value);
+            return true;
+        }
+
+        /**
+         * returns the stack of pending nodes with the node at in-order position {@code rank} on top.
+         */
+        private ArrayDeque<PersistentNode<T>> seek(int rank) {
+            ArrayDeque<PersistentNode<T>> stack = new ArrayDeque<>();
+            PersistentNode<T> node = root;
+            while(node != null) {
+                int left = node.left != null ? node.left.size : 0;
+                if(rank < left) {
+                    stack.push(node);
+                    node = node.left;
+                } else if(rank == left) {
+                    stack.push(node);
+                    break;
+                } else {
+                    rank -= left + 1;
+                    node = node.right;
+                }
+            }
+            return stack;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // split off the first half, unless iteration has started
+            if(this.stack != null || this.to - this.from < 2) return null;
+            int mid = (this.from + this.to) >>> 1;
+            Spliterator<T> prefix = new InOrderSpliterator(this.from, mid);
+            this.from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.to - this.from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            // null means the natural order of the values
+            return comparator == Comparator.naturalOrder() ? null : comparator;
+        }
+    }
+
+    /**
+     * an immutable node of a {@link PersistentSearchTree}.
+     * nodes are shared between versions of the tree, so they do not refer to their parent.
+     * @param <T> the type of value this node stores
+     */
+    private static final class PersistentNode<T> implements Node<T>, BinaryShaped {
+
+        private final Comparator<? super T> comparator;
+        private final T value;
+        private final PersistentNode<T> left;
+        private final PersistentNode<T> right;
+        private final int height;
+        private final int size;
+
+        PersistentNode(Comparator<? super T> comparator, T value, PersistentNode<T> left, PersistentNode<T> right) {
+            this.comparator = comparator;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = (left != null ? left.size : 0) + (right != null ? right.size : 0) + 1;
+        }
+
+        @Override
+        public void add(T value) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException("this tree is immutable.");
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * returns the subtree of this node as a tree. no nodes are copied.
+         * @return the subtree
+         */
+        @Override
+        public Tree<T> subtree() {
+            return new PersistentSearchTree<>(this.comparator, this);
+        }
+
+        /**
+         * nodes are shared between versions of a tree, so they have no single parent.
+         * @return null
+         */
+        @Nullable
+        @Override
+        public Node<T> getParent() {
+            return null;
+        }
+
+        @Override
+        public T getValue() {
+            return this.value;
+        }
+
+        /**
+         * returns a list of both children. may contain null references.
+         * @return the list of children
+         */
+        @Override
+        public List<Node<T>> getChildren() {
+            return Arrays.asList(this.left, this.right);
+        }
+
+        @Override
+        public Node<T> visit(int index) throws IndexOutOfBoundsException {
+            if(index < 0 || index > 1) throw new IndexOutOfBoundsException("index can only be 0(left) or 1(right).");
+            return index == 0 ? this.left : this.right;
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return this.left != null || this.right != null;
+        }
+
+        @Override
+        public boolean hasLeft() {
+            return this.left != null;
+        }
+
+        @Override
+        public void update(T value) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException("this tree is immutable.");
+        }
+
+        @Override
+        public int calculateHeight() {
+            return this.height;
+        }
+
+        @Override
+        public int childCount() {
+            return (this.left != null ? 1 : 0) + (this.right != null ? 1 : 0);
+        }
+
+        @Override
+        public Node<T> child(int index) throws IndexOutOfBoundsException {
+            if(index == 0 && this.left != null) return this.left;
+            if(index == (this.left != null ? 1 : 0) && this.right != null) return this.right;
+            throw new IndexOutOfBoundsException("index not found.");
+        }
+    }
+}
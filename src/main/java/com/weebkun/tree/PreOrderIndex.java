@@ -0,0 +1,181 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.Arrays;
+
+/**
+ * flattens a tree by numbering its nodes in pre-order.
+ * the subtree of the node numbered {@code i} is then the range {@code [i, i + size(i))},
+ * which turns subtree and ancestor questions into range questions over arrays.
+ *
+ * <p>
+ *     nodes are looked up in an open addressing table of pre-order numbers, sized for the tree up front,
+ *     so no boxed numbers or map entries are allocated. nodes are compared with {@code equals},
+ *     since cursors such as the nodes of a {@link CompactNTree} are created on demand and are equal by position.
+ * </p>
+ * @param <T> the type of values in the tree
+ * @see AncestorIndex
+ */
+class PreOrderIndex<T> {
+
+    // the nodes in pre-order
+    private final Node<T>[] nodes;
+    // open addressing table of pre-order numbers plus one, by the hash of their node. 0 marks a free slot
+    private final int[] table;
+    private final int[] parent;
+    private final int[] depth;
+    private final int[] size;
+
+    /**
+     * numbers the nodes of a tree in pre-order. the walk is iterative, so deep trees do not overflow the stack.
+     * @param tree the tree
+     */
+    @SuppressWarnings("unchecked")
+    PreOrderIndex(Tree<T> tree) {
+        int capacity = tree.size();
+        Node<T>[] nodes = (Node<T>[]) new Node<?>[capacity];
+        int[] parent = new int[capacity];
+        int[] depth = new int[capacity];
+
+        // stack of (node id, next child) frames
+        int[] stack = new int[16];
+        int[] steps = new int[16];
+        int top = 0;
+        int count = 0;
+        Node<T> root = tree.getRoot();
+        if(root != null) {
+            nodes[0] = root;
+            parent[0] = -1;
+            count = 1;
+            stack[top++] = 0;
+        }
+        while(top > 0) {
+            int id = stack[top - 1];
+            Node<T> node = nodes[id];
+            int step = steps[top - 1];
+            if(step == node.childCount()) {
+                top--;
+                continue;
+            }
+            steps[top - 1]++;
+            Node<T> child = node.child(step);
+            if(count == nodes.length) {
+                // the tree reported a smaller size than it has
+                int grown = Math.max(16, count * 2);
+                nodes = Arrays.copyOf(nodes, grown);
+                parent = Arrays.copyOf(parent, grown);
+                depth = Arrays.copyOf(depth, grown);
+            }
+            nodes[count] = child;
+            parent[count] = id;
+            depth[count] = depth[id] + 1;
+            if(top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+                steps = Arrays.copyOf(steps, top * 2);
+            }
+            stack[top] = count++;
+            steps[top++] = 0;
+        }
+
+        this.nodes = count == nodes.length ? nodes : Arrays.copyOf(nodes, count);
+        this.parent = count == parent.length ? parent : Arrays.copyOf(parent, count);
+        this.depth = count == depth.length ? depth : Arrays.copyOf(depth, count);
+        // children come after their parents in pre-order, so the sizes can be summed up in reverse
+        this.size = new int[count];
+        for(int i = count - 1; i >= 0; i--) {
+            this.size[i]++;
+            if(this.parent[i] >= 0) this.size[this.parent[i]] += this.size[i];
+        }
+        // at most half full, so probe sequences stay short
+        this.table = new int[Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1];
+        for(int id = 0; id < count; id++) {
+            int slot = slot(this.nodes[id]);
+            while(this.table[slot] != 0) slot = (slot + 1) & (this.table.length - 1);
+            this.table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * returns the first slot of the table to probe for a node.
+     */
+    private int slot(Node<T> node) {
+        // spreads sequential hash codes, such as those of cursors, over the table
+        return (node.hashCode() * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(this.table.length) + 1);
+    }
+
+    /**
+     * returns the number of nodes in the tree.
+     * @return the number of nodes
+     */
+    int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * returns the pre-order number of a node.
+     * @param node the node
+     * @return the pre-order number
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    int id(Node<T> node) throws IllegalArgumentException {
+        if(node != null) {
+            for(int slot = slot(node); this.table[slot] != 0; slot = (slot + 1) & (this.table.length - 1)) {
+                int id = this.table[slot] - 1;
+                if(this.nodes[id].equals(node)) return id;
+            }
+        }
+        throw new IllegalArgumentException("node is not in this tree.");
+    }
+
+    /**
+     * returns the node with the given pre-order number.
+     * @param id the pre-order number
+     * @return the node
+     */
+    Node<T> node(int id) {
+        return this.nodes[id];
+    }
+
+    /**
+     * returns the pre-order number of the parent of a node.
+     * @param id the pre-order number of the node
+     * @return the parent's number, or -1 for the root
+     */
+    int parent(int id) {
+        return this.parent[id];
+    }
+
+    /**
+     * returns the depth of a node, which is the number of edges from the root.
+     * @param id the pre-order number of the node
+     * @return the depth
+     */
+    int depth(int id) {
+        return this.depth[id];
+    }
+
+    /**
+     * returns the size of the subtree of a node.
+     * the subtree covers the pre-order numbers {@code [id, id + size(id))}.
+     * @param id the pre-order number of the node
+     * @return the size of the subtree
+     */
+    int size(int id) {
+        return this.size[id];
+    }
+}
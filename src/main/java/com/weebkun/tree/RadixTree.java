@@ -0,0 +1,443 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A compressed trie that maps string keys to values, for prefix lookups over large sets of keys.
+ *
+ * <p>
+ *     chains of nodes with a single child are merged into one edge labelled with the whole chain (path compression),
+ *     so the number of nodes is at most twice the number of keys.
+ *     a node keeps its children in a sorted array that is binary searched, and switches to a table indexed directly
+ *     by the first character of the edge once it has more than 16 children with characters below 256.
+ * </p>
+ * <p>
+ *     byte sequences can be used as keys through the {@code byte[]} overloads, which map each byte to the character
+ *     with the same code, like {@link StandardCharsets#ISO_8859_1}.
+ * </p>
+ * @param <V> the type of values stored in this tree
+ */
+public class RadixTree<V> {
+
+    private final RadixNode<V> root = new RadixNode<>(new char[0], null);
+    private int size;
+
+    /**
+     * default constructor for {@code RadixTree}. constructs an empty tree.
+     */
+    public RadixTree() {
+    }
+
+    /**
+     * returns the number of keys in this tree.
+     * @return the number of keys
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * checks if this tree is empty. returns true if so.
+     * @return true if this tree has no keys
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * associates a value with a key.
+     * @param key the key
+     * @param value the value
+     * @return the previous value of the key, or null if there was none
+     * @throws IllegalArgumentException if {@code key} or {@code value} is null
+     */
+    @Nullable
+    public V put(CharSequence key, V value) throws IllegalArgumentException {
+        if(key == null) throw new IllegalArgumentException("key cannot be null.");
+        if(value == null) throw new IllegalArgumentException("value cannot be null.");
+        RadixNode<V> node = this.root;
+        int i = 0;
+        while(i < key.length()) {
+            char c = key.charAt(i);
+            RadixNode<V> child = node.child(c);
+            if(child == null) {
+                // no edge starts with this character, add the rest of the key as a new leaf
+                node.put(c, new RadixNode<>(toChars(key, i), value));
+                this.size++;
+                return null;
+            }
+            int matched = match(child.label, key, i);
+            if(matched < child.label.length) {
+                // the key leaves the edge part way through, split the edge at that point
+                RadixNode<V> split = new RadixNode<>(Arrays.copyOfRange(child.label, 0, matched), null);
+                child.label = Arrays.copyOfRange(child.label, matched, child.label.length);
+                split.put(child.label[0], child);
+                node.put(c, split);
+                child = split;
+            }
+            node = child;
+            i += matched;
+        }
+        V previous = node.value;
+        node.value = value;
+        if(previous == null) this.size++;
+        return previous;
+    }
+
+    /**
+     * associates a value with a byte sequence key.
+     * @param key the key
+     * @param value the value
+     * @return the previous value of the key, or null if there was none
+     * @throws IllegalArgumentException if {@code key} or {@code value} is null
+     */
+    @Nullable
+    public V put(byte[] key, V value) throws IllegalArgumentException {
+        if(key == null) throw new IllegalArgumentException("key cannot be null.");
+        return put(new String(key, StandardCharsets.ISO_8859_1), value);
+    }
+
+    /**
+     * returns the value associated with a key.
+     * @param key the key
+     * @return the value, or null if the key is not in this tree
+     * @throws IllegalArgumentException if {@code key} is null
+     */
+    @Nullable
+    public V get(CharSequence key) throws IllegalArgumentException {
+        if(key == null) throw new IllegalArgumentException("key cannot be null.");
+        RadixNode<V> node = find(key);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * returns the value associated with a byte sequence key.
+     * @param key the key
+     * @return the value, or null if the key is not in this tree
+     * @throws IllegalArgumentException if {@code key} is null
+     */
+    @Nullable
+    public V get(byte[] key) throws IllegalArgumentException {
+        if(key == null) throw new IllegalArgumentException("key cannot be null.");
+        return get(new String(key, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * checks if a key is in this tree.
+     * @param key the key
+     * @return true if the key has a value
+     * @throws IllegalArgumentException if {@code key} is null
+     */
+    public boolean containsKey(CharSequence key) throws IllegalArgumentException {
+        return get(key) != null;
+    }
+
+    /**
+     * finds the key in this tree that is the longest prefix of {@code key}, e.g. for routing tables.
+     * @param key the key to match
+     * @return the entry of the longest matching key, or null if no key is a prefix of {@code key}
+     * @throws IllegalArgumentException if {@code key} is null
+     */
+    @Nullable
+    public Map.Entry<String, V> longestPrefixMatch(CharSequence key) throws IllegalArgumentException {
+        if(key == null) throw new IllegalArgumentException("key cannot be null.");
+        RadixNode<V> node = this.root;
+        RadixNode<V> best = node.value != null ? node : null;
+        int bestLength = 0;
+        int i = 0;
+        while(i < key.length()) {
+            RadixNode<V> child = node.child(key.charAt(i));
+            if(child == null || match(child.label, key, i) < child.label.length) break;
+            node = child;
+            i += child.label.length;
+            if(node.value != null) {
+                best = node;
+                bestLength = i;
+            }
+        }
+        return best != null ? new AbstractMap.SimpleImmutableEntry<>(key.subSequence(0, bestLength).toString(), best.value) : null;
+    }
+
+    /**
+     * returns a lazy iterator over the entries whose keys start with {@code prefix}, in lexicographic order of the keys.
+     * the subtree is walked as the iterator advances, so taking the first few matches is cheap even for short prefixes.
+     * the tree must not be modified while the iterator is in use.
+     * @param prefix the prefix. an empty prefix iterates over all the entries
+     * @return the iterator
+     * @throws IllegalArgumentException if {@code prefix} is null
+     */
+    public Iterator<Map.Entry<String, V>> prefixScan(CharSequence prefix) throws IllegalArgumentException {
+        if(prefix == null) throw new IllegalArgumentException("prefix cannot be null.");
+        RadixNode<V> node = this.root;
+        int i = 0;
+        // the rest of the last edge, if the prefix ends part way through it
+        String rest = "";
+        // walk down to the node whose subtree holds all the keys with this prefix
+        while(i < prefix.length()) {
+            RadixNode<V> child = node.child(prefix.charAt(i));
+            if(child == null) return new PrefixIterator<>(null, "");
+            int matched = match(child.label, prefix, i);
+            if(matched < child.label.length) {
+                if(i + matched < prefix.length()) return new PrefixIterator<>(null, "");
+                rest = new String(child.label, matched, child.label.length - matched);
+            }
+            node = child;
+            i += matched;
+        }
+        return new PrefixIterator<>(node, prefix + rest);
+    }
+
+    /**
+     * returns a lazy iterator over the entries whose keys start with a byte sequence.
+     * @param prefix the prefix
+     * @return the iterator
+     * @throws IllegalArgumentException if {@code prefix} is null
+     * @see #prefixScan(CharSequence)
+     */
+    public Iterator<Map.Entry<String, V>> prefixScan(byte[] prefix) throws IllegalArgumentException {
+        if(prefix == null) throw new IllegalArgumentException("prefix cannot be null.");
+        return prefixScan(new String(prefix, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * walks down the tree along {@code key}.
+     * @return the node for the key, or null if the key ends part way through an edge or leaves the tree
+     */
+    private RadixNode<V> find(CharSequence key) {
+        RadixNode<V> node = this.root;
+        int i = 0;
+        while(i < key.length()) {
+            RadixNode<V> child = node.child(key.charAt(i));
+            if(child == null || match(child.label, key, i) < child.label.length) return null;
+            node = child;
+            i += child.label.length;
+        }
+        return node;
+    }
+
+    /**
+     * returns the number of characters of {@code label} that match {@code key} from {@code offset}.
+     */
+    private static int match(char[] label, CharSequence key, int offset) {
+        int matched = 0;
+        while(matched < label.length && offset + matched < key.length() && label[matched] == key.charAt(offset + matched)) {
+            matched++;
+        }
+        return matched;
+    }
+
+    private static char[] toChars(CharSequence key, int from) {
+        char[] chars = new char[key.length() - from];
+        for(int i = 0; i < chars.length; i++) {
+            chars[i] = key.charAt(from + i);
+        }
+        return chars;
+    }
+
+    /**
+     * creates an array of nodes, which cannot be done directly for a generic type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> RadixNode<V>[] newNodes(int length) {
+        return (RadixNode<V>[]) new RadixNode<?>[length];
+    }
+
+    /**
+     * a node in a {@link RadixTree}, together with the label of the edge leading to it.
+     * @param <V> the type of values
+     */
+    private static final class RadixNode<V> {
+
+        // number of children from which characters below DENSE_SIZE are dispatched through a table
+        private static final int DENSE_THRESHOLD = 16;
+        private static final int DENSE_SIZE = 256;
+
+        private char[] label;
+        private V value;
+        // sorted first characters of the child edges, and the children
+        private char[] keys;
+        private RadixNode<V>[] children;
+        private int count;
+        // children indexed by their first character, for characters below DENSE_SIZE
+        private RadixNode<V>[] dense;
+
+        RadixNode(char[] label, V value) {
+            this.label = label;
+            this.value = value;
+        }
+
+        /**
+         * returns the child whose edge starts with {@code c}, or null if there is none.
+         */
+        RadixNode<V> child(char c) {
+            if(this.dense != null && c < DENSE_SIZE) return this.dense[c];
+            if(this.count == 0) return null;
+            int i = Arrays.binarySearch(this.keys, 0, this.count, c);
+            return i >= 0 ? this.children[i] : null;
+        }
+
+        /**
+         * sets the child whose edge starts with {@code c}, replacing any existing one.
+         */
+        void put(char c, RadixNode<V> child) {
+            if(this.dense != null && c < DENSE_SIZE) {
+                this.dense[c] = child;
+                return;
+            }
+            int i = this.count == 0 ? -1 : Arrays.binarySearch(this.keys, 0, this.count, c);
+            if(i >= 0) {
+                this.children[i] = child;
+                return;
+            }
+            i = -i - 1;
+            if(this.keys == null) {
+                this.keys = new char[2];
+                this.children = newNodes(2);
+            } else if(this.count == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, this.count * 2);
+                this.children = Arrays.copyOf(this.children, this.count * 2);
+            }
+            // shift the larger keys up to keep the array sorted
+            System.arraycopy(this.keys, i, this.keys, i + 1, this.count - i);
+            System.arraycopy(this.children, i, this.children, i + 1, this.count - i);
+            this.keys[i] = c;
+            this.children[i] = child;
+            this.count++;
+            if(this.dense == null && this.count > DENSE_THRESHOLD) toDense();
+        }
+
+        /**
+         * moves the children with characters below DENSE_SIZE into a table indexed by character.
+         */
+        private void toDense() {
+            this.dense = newNodes(DENSE_SIZE);
+            int kept = 0;
+            for(int i = 0; i < this.count; i++) {
+                if(this.keys[i] < DENSE_SIZE) {
+                    this.dense[this.keys[i]] = this.children[i];
+                } else {
+                    this.keys[kept] = this.keys[i];
+                    this.children[kept++] = this.children[i];
+                }
+            }
+            Arrays.fill(this.children, kept, this.count, null);
+            this.count = kept;
+        }
+
+        /**
+         * returns the first position at or after {@code position} that holds a child, or -1 if there is none.
+         * positions below DENSE_SIZE index the table, the rest index the sorted array, so positions follow character order.
+         */
+        int next(int position) {
+            if(this.dense != null) {
+                for(; position < DENSE_SIZE; position++) {
+                    if(this.dense[position] != null) return position;
+                }
+            }
+            position = Math.max(position, DENSE_SIZE);
+            return position - DENSE_SIZE < this.count ? position : -1;
+        }
+
+        /**
+         * returns the child at a position returned by {@link #next(int)}.
+         */
+        RadixNode<V> at(int position) {
+            return position < DENSE_SIZE ? this.dense[position] : this.children[position - DENSE_SIZE];
+        }
+    }
+
+    /**
+     * lazy pre-order iterator over the entries of a subtree, driven by an explicit stack.
+     * @param <V> the type of values
+     */
+    private static final class PrefixIterator<V> implements Iterator<Map.Entry<String, V>> {
+
+        private RadixNode<V>[] nodes;
+        // the next child position of each frame, or -1 if the frame's own value has not been visited yet
+        private int[] positions;
+        // the length of the path before the label of each frame's node
+        private int[] bases;
+        private int depth;
+        private final StringBuilder path;
+        private Map.Entry<String, V> next;
+
+        PrefixIterator(RadixNode<V> start, String path) {
+            this.path = new StringBuilder(path);
+            this.nodes = newNodes(16);
+            this.positions = new int[16];
+            this.bases = new int[16];
+            if(start != null) push(start, path.length());
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(this.next == null) this.next = advance();
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Entry<String, V> next() throws NoSuchElementException {
+            if(!hasNext()) throw new NoSuchElementException("no more entries.");
+            Map.Entry<String, V> entry = this.next;
+            this.next = null;
+            return entry;
+        }
+
+        private Map.Entry<String, V> advance() {
+            while(this.depth > 0) {
+                int top = this.depth - 1;
+                RadixNode<V> node = this.nodes[top];
+                if(this.positions[top] < 0) {
+                    // visit the node itself before its children
+                    this.positions[top] = 0;
+                    if(node.value != null) return new AbstractMap.SimpleImmutableEntry<>(this.path.toString(), node.value);
+                }
+                int position = node.next(this.positions[top]);
+                if(position < 0) {
+                    this.path.setLength(this.bases[top]);
+                    this.nodes[--this.depth] = null;
+                    continue;
+                }
+                this.positions[top] = position + 1;
+                RadixNode<V> child = node.at(position);
+                int base = this.path.length();
+                this.path.append(child.label);
+                push(child, base);
+            }
+            return null;
+        }
+
+        private void push(RadixNode<V> node, int base) {
+            if(this.depth == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.depth * 2);
+                this.positions = Arrays.copyOf(this.positions, this.depth * 2);
+                this.bases = Arrays.copyOf(this.bases, this.depth * 2);
+            }
+            this.nodes[this.depth] = node;
+            this.positions[this.depth] = -1;
+            this.bases[this.depth++] = base;
+        }
+    }
+}
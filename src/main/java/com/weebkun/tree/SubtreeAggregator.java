@@ -0,0 +1,120 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * answers aggregate queries over subtrees, such as the sum or maximum of a subtree, while values keep changing.
+ *
+ * <p>
+ *     the nodes are numbered in pre-order, so every subtree is a contiguous range of numbers,
+ *     and a segment tree over that range answers {@link #query(Node)} and applies {@link #update(Node, Object)}
+ *     in O(log n) time. the aggregated values are kept in the aggregator, the tree itself is not modified,
+ *     and the structure of the tree is captured when the aggregator is built.
+ * </p>
+ * <p>
+ *     {@code operator} must be associative and {@code identity} must be its identity value.
+ *     it does not need to be commutative, values are combined in pre-order.
+ * </p>
+ * @param <T> the type of values in the tree
+ * @param <V> the type of the aggregated values
+ * @see LongSubtreeAggregator
+ * @see DoubleSubtreeAggregator
+ */
+public class SubtreeAggregator<T, V> {
+
+    private final PreOrderIndex<T> preOrder;
+    private final V identity;
+    private final BinaryOperator<V> operator;
+    // segment tree. the values of the nodes are the leaves at [n, 2n), node i combines 2i and 2i + 1
+    private final V[] segments;
+    private final int n;
+
+    /**
+     * builds an aggregator over a tree in linear time.
+     * @param tree the tree
+     * @param initial maps the value of each node to its initial aggregated value
+     * @param identity the identity value of {@code operator}
+     * @param operator the associative operator to aggregate with
+     */
+    public SubtreeAggregator(Tree<T> tree, Function<? super T, ? extends V> initial, V identity, BinaryOperator<V> operator) {
+        this.preOrder = new PreOrderIndex<>(tree);
+        this.identity = identity;
+        this.operator = operator;
+        this.n = this.preOrder.size();
+        this.segments = newSegments(2 * this.n);
+        for(int i = 0; i < this.n; i++) {
+            this.segments[this.n + i] = initial.apply(this.preOrder.node(i).getValue());
+        }
+        for(int i = this.n - 1; i > 0; i--) {
+            this.segments[i] = this.operator.apply(this.segments[2 * i], this.segments[2 * i + 1]);
+        }
+    }
+
+    /**
+     * creates an array of aggregated values, which cannot be done directly for a generic type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> V[] newSegments(int length) {
+        return (V[]) new Object[length];
+    }
+
+    /**
+     * returns the current aggregated value of a single node.
+     * @param node the node
+     * @return the value of the node
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public V get(Node<T> node) throws IllegalArgumentException {
+        return this.segments[this.n + this.preOrder.id(node)];
+    }
+
+    /**
+     * sets the aggregated value of a node.
+     * @param node the node
+     * @param value the new value
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public void update(Node<T> node, V value) throws IllegalArgumentException {
+        int i = this.n + this.preOrder.id(node);
+        this.segments[i] = value;
+        // recompute the segments that contain the node
+        for(i >>= 1; i > 0; i >>= 1) {
+            this.segments[i] = this.operator.apply(this.segments[2 * i], this.segments[2 * i + 1]);
+        }
+    }
+
+    /**
+     * aggregates the values of the subtree of a node, including the node itself.
+     * @param subtreeRoot the root of the subtree
+     * @return the aggregate of the subtree
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public V query(Node<T> subtreeRoot) throws IllegalArgumentException {
+        int id = this.preOrder.id(subtreeRoot);
+        V left = this.identity;
+        V right = this.identity;
+        // combine the segments covering [id, id + size), keeping the left and right results apart to preserve order
+        for(int l = this.n + id, r = this.n + id + this.preOrder.size(id); l < r; l >>= 1, r >>= 1) {
+            if((l & 1) == 1) left = this.operator.apply(left, this.segments[l++]);
+            if((r & 1) == 1) right = this.operator.apply(this.segments[--r], right);
+        }
+        return this.operator.apply(left, right);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import com.weebkun.jfr.TraverseEvent;
+import com.weebkun.metrics.ListUtilMetrics;
+import com.weebkun.metrics.Metrics;
+import com.weebkun.metrics.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * caches the result of the last traversal of a tree in each {@link TraversalOrder}.
+ *
+ * <p>
+ *     each result is stored as an array together with the modification count of the root at the time it was built.
+ *     a result is reused for as long as the modification count of the root stays the same,
+ *     so repeated traversals of a tree that is not modified do not walk the tree again.
+ *     the results are replaced as a whole, so concurrent readers of an unmodified tree always see a complete array.
+ * </p>
+ * <p>
+ *     only {@link #list} and {@link #toString} fill the cache. iterators read a cached result if there is one,
+ *     and otherwise walk the tree lazily without copying it, so iterating once or stopping early costs no more
+ *     than an uncached traversal. the cache can be disabled with {@link #setEnabled(boolean)},
+ *     which also drops the cached results.
+ * </p>
+ * <p>
+ *     modifications made through {@link Node#add(Object)}, {@link Node#update(Object)} and the other
+ *     mutators of the nodes invalidate the cache. modifications made directly to the list returned by
+ *     {@link Node#getChildren()} are not detected.
+ * </p>
+ * @param <T> the type of values in the tree
+ * @see Versioned
+ */
+final class TraversalCache<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Entry[] values = new Entry[TraversalOrder.values().length];
+    private boolean enabled = true;
+
+    /**
+     * enables or disables the cache. disabling it drops the cached results.
+     * @param enabled whether traversals are cached
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if(!enabled) Arrays.fill(this.values, null);
+    }
+
+    /**
+     * returns the values of a tree in the given order, walking the tree only if it changed since the last call.
+     * the array must not be modified.
+     * @param root the root of the tree. may be null
+     * @param order the traversal order
+     * @return the values
+     */
+    <N extends Node<T> & Versioned> Object[] values(N root, TraversalOrder order) {
+        if(root == null) return EMPTY;
+        Entry entry = this.values[order.ordinal()];
+        int modCount = root.modCount();
+        if(entry == null || entry.modCount != modCount) {
+            ListUtilMetrics metrics = Metrics.current();
+            long start = metrics != null ? System.nanoTime() : 0;
+            TraverseEvent event = new TraverseEvent();
+            event.begin();
+            Object[] items = new Object[root.size()];
+            Iterator<T> iterator = TreeIterator.values(root, order);
+            for(int i = 0; iterator.hasNext(); i++) {
+                items[i] = iterator.next();
+            }
+            if(metrics != null) metrics.operation(Operation.TRAVERSE, items.length, System.nanoTime() - start);
+            commit(event, order, items.length);
+            if(!this.enabled) return items;
+            entry = new Entry(modCount, items);
+            this.values[order.ordinal()] = entry;
+        }
+        return entry.items;
+    }
+
+    /**
+     * returns a new list of the values of a tree in the given order.
+     * @param root the root of the tree. may be null
+     * @param order the traversal order
+     * @return the list
+     */
+    @SuppressWarnings("unchecked")
+    <N extends Node<T> & Versioned> List<T> list(N root, TraversalOrder order) {
+        return new ArrayList<>((List<T>) Arrays.asList(values(root, order)));
+    }
+
+    /**
+     * returns the string representation of the values of a tree in the given order, formatted like a list.
+     * @param root the root of the tree. may be null
+     * @param order the traversal order
+     * @return the string representation
+     */
+    <N extends Node<T> & Versioned> String toString(N root, TraversalOrder order) {
+        return Arrays.toString(values(root, order));
+    }
+
+    /**
+     * returns an iterator over the values of a tree in the given order.
+     * the iterator reads the cached result if it is still valid, and walks the tree lazily otherwise.
+     * @param root the root of the tree. may be null
+     * @param order the traversal order
+     * @return the iterator
+     */
+    <N extends Node<T> & Versioned> Iterator<T> iterator(N root, TraversalOrder order) {
+        if(root == null) return new ArrayIterator<>(EMPTY, null);
+        Entry entry = this.values[order.ordinal()];
+        if(entry != null && entry.modCount == root.modCount()) return new ArrayIterator<>(entry.items, root);
+        return new CheckedIterator<>(TreeIterator.values(root, order), root);
+    }
+
+    /**
+     * returns an iterator over the nodes of a tree in pre-order. the nodes are not cached.
+     * @param root the root of the tree. may be null
+     * @return the iterator
+     */
+    <N extends Node<T> & Versioned> Iterator<Node<T>> nodeIterator(N root) {
+        return new CheckedIterator<>(new TreeIterator<>(root), root);
+    }
+
+    private static void commit(TraverseEvent event, TraversalOrder order, int nodes) {
+        event.end();
+        if(event.isEnabled()) {
+            event.order = order.name();
+            event.nodes = nodes;
+            event.commit();
+        }
+    }
+
+    /**
+     * a cached traversal and the modification count it was built at.
+     */
+    private static final class Entry {
+
+        final int modCount;
+        final Object[] items;
+
+        Entry(int modCount, Object[] items) {
+            this.modCount = modCount;
+            this.items = items;
+        }
+    }
+
+    /**
+     * lazy iterator over a tree that is not cached.
+     * throws {@link ConcurrentModificationException} if the tree is modified while iterating.
+     */
+    private static final class CheckedIterator<E> implements Iterator<E> {
+
+        private final Iterator<E> iterator;
+        private final Versioned root;
+        private final int expectedModCount;
+
+        CheckedIterator(Iterator<E> iterator, Versioned root) {
+            this.iterator = iterator;
+            this.root = root;
+            this.expectedModCount = root != null ? root.modCount() : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if(this.root != null && this.root.modCount() != this.expectedModCount) throw new ConcurrentModificationException();
+            return this.iterator.next();
+        }
+    }
+
+    /**
+     * iterator over a cached traversal.
+     * throws {@link ConcurrentModificationException} if the tree is modified while iterating.
+     */
+    private static final class ArrayIterator<E> implements Iterator<E> {
+
+        private final Object[] items;
+        private final Versioned root;
+        private final int expectedModCount;
+        private int index;
+
+        ArrayIterator(Object[] items, Versioned root) {
+            this.items = items;
+            this.root = root;
+            this.expectedModCount = root != null ? root.modCount() : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < this.items.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if(this.root != null && this.root.modCount() != this.expectedModCount) throw new ConcurrentModificationException();
+            if(!hasNext()) throw new NoSuchElementException();
+            return (E) this.items[this.index++];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+/**
+ * the order in which the nodes of a tree are visited.
+ * @see TreeIterator
+ */
+public enum TraversalOrder {
+
+    /**
+     * visits a node before any of its children.
+     */
+    PRE_ORDER,
+
+    /**
+     * visits the first child subtree, then the node, then the rest of the children.
+     * for a binary tree this is the usual left, node, right order.
+     */
+    IN_ORDER,
+
+    /**
+     * visits a node after all of its children.
+     */
+    POST_ORDER,
+
+    /**
+     * visits the nodes level by level, starting from the root.
+     */
+    LEVEL_ORDER
+}
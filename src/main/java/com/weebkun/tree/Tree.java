@@ -16,7 +16,18 @@
 
 package com.weebkun.tree;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * ADT provided for a tree.
@@ -51,10 +62,175 @@ public interface Tree<T> extends Iterable<T> {
      */
     List<T> traverse();
 
+    /**
+     * traverses the tree in the given order and returns a list containing the values.
+     * @param order the traversal order
+     * @return the list
+     * @see TraversalOrder
+     */
+    default List<T> traverse(TraversalOrder order) {
+        List<T> result = new ArrayList<>(size());
+        Iterator<T> iterator = iterator(order);
+        while(iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * returns a lazy iterator that yields the values of this tree in the given order.
+     * no traversal list is built, nodes are visited as the iterator advances.
+     * @param order the traversal order
+     * @return the iterator
+     * @see TreeIterator
+     */
+    default Iterator<T> iterator(TraversalOrder order) {
+        return TreeIterator.values(getRoot(), order);
+    }
+
     /**
      * returns the height of this tree.
      * height is calculated by the number of edges from the root to the furthest leaf node in this tree.
      * @return the height of this tree
      */
     int getHeight();
+
+    /**
+     * folds the values of this tree into a single result on the current thread.
+     * the values are folded in pre-order, similar to {@link java.util.stream.Stream#reduce(Object, BiFunction, BinaryOperator)}.
+     * @param identity the identity value for {@code combiner}
+     * @param accumulator the function that folds a value into a result
+     * @param combiner the function that combines two results. not used by the sequential fold,
+     *                 but must be compatible with {@code accumulator} so that the result matches {@link #parallelFold}
+     * @param <R> the type of the result
+     * @return the result, or {@code identity} if this tree is empty
+     */
+    default <R> R fold(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner) {
+        R result = identity;
+        Iterator<T> iterator = iterator(TraversalOrder.PRE_ORDER);
+        while(iterator.hasNext()) {
+            result = accumulator.apply(result, iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * folds the values of this tree in parallel using the common {@link ForkJoinPool}.
+     * uses a sequential cutoff of 4096 nodes.
+     * @param identity the identity value for {@code combiner}
+     * @param accumulator the function that folds a value into a result
+     * @param combiner the associative function that combines two results
+     * @param <R> the type of the result
+     * @return the result, or {@code identity} if this tree is empty
+     * @see #parallelFold(Object, BiFunction, BinaryOperator, int, ForkJoinPool)
+     */
+    default <R> R parallelFold(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner) {
+        return parallelFold(identity, accumulator, combiner, FoldTask.DEFAULT_CUTOFF, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * folds the values of this tree in parallel using the common {@link ForkJoinPool}.
+     * @param identity the identity value for {@code combiner}
+     * @param accumulator the function that folds a value into a result
+     * @param combiner the associative function that combines two results
+     * @param cutoff the subtree size at or below which a subtree is folded sequentially
+     * @param <R> the type of the result
+     * @return the result, or {@code identity} if this tree is empty
+     * @see #parallelFold(Object, BiFunction, BinaryOperator, int, ForkJoinPool)
+     */
+    default <R> R parallelFold(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner, int cutoff) {
+        return parallelFold(identity, accumulator, combiner, cutoff, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * folds the values of this tree in parallel.
+     * the work is split at subtrees, and any subtree with no more than {@code cutoff} nodes is folded sequentially.
+     * results are combined in pre-order, so {@code combiner} only needs to be associative, not commutative.
+     * @param identity the identity value for {@code combiner}
+     * @param accumulator the function that folds a value into a result
+     * @param combiner the associative function that combines two results
+     * @param cutoff the subtree size at or below which a subtree is folded sequentially
+     * @param pool the pool to run the fold in
+     * @param <R> the type of the result
+     * @return the result, or {@code identity} if this tree is empty
+     * @throws IllegalArgumentException if {@code cutoff} is less than 1
+     */
+    default <R> R parallelFold(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner,
+                               int cutoff, ForkJoinPool pool) throws IllegalArgumentException {
+        if(cutoff < 1) throw new IllegalArgumentException("cutoff must be at least 1.");
+        Node<T> root = getRoot();
+        if(root == null) return identity;
+        return pool.invoke(new FoldTask<>(root, identity, accumulator, combiner, cutoff));
+    }
+
+    /**
+     * returns a {@link Spliterator} over the values of this tree in pre-order.
+     * the spliterator splits by handing off subtrees and takes its size estimates from the nodes.
+     * @return the spliterator
+     * @see TreeSpliterator
+     */
+    @Override
+    default Spliterator<T> spliterator() {
+        Node<T> root = getRoot();
+        if(root == null) return Spliterators.emptySpliterator();
+        return new TreeSpliterator<>(root);
+    }
+
+    /**
+     * returns a sequential {@link Stream} over the values of this tree in pre-order.
+     * @return the stream
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * returns a parallel {@link Stream} over the values of this tree.
+     * the stream is split at subtrees, so no traversal list is built beforehand.
+     * @return the parallel stream
+     */
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * walks this tree depth-first with a visitor, which can skip subtrees or stop the walk early.
+     * @param visitor the visitor
+     * @return {@link VisitResult#STOP} if the visitor stopped the walk, otherwise {@link VisitResult#CONTINUE}
+     * @throws IllegalArgumentException if {@code visitor} is null
+     * @see TreeVisitor
+     */
+    default VisitResult walk(TreeVisitor<T> visitor) throws IllegalArgumentException {
+        return TreeVisitor.walk(getRoot(), visitor);
+    }
+
+    /**
+     * returns the first value in pre-order that matches a predicate.
+     * the walk stops at the first match, and no traversal list is built.
+     * @param predicate the predicate
+     * @return the value, or an empty {@link Optional} if no value matches
+     * @throws IllegalArgumentException if {@code predicate} is null
+     */
+    @SuppressWarnings("unchecked")
+    default Optional<T> findFirst(Predicate<? super T> predicate) throws IllegalArgumentException {
+        if(predicate == null) throw new IllegalArgumentException("predicate cannot be null.");
+        Node<T>[] found = (Node<T>[]) new Node<?>[1];
+        walk(node -> {
+            if(!predicate.test(node.getValue())) return VisitResult.CONTINUE;
+            found[0] = node;
+            return VisitResult.STOP;
+        });
+        return found[0] != null ? Optional.ofNullable(found[0].getValue()) : Optional.empty();
+    }
+
+    /**
+     * checks if any value of this tree matches a predicate. the walk stops at the first match.
+     * @param predicate the predicate
+     * @return true if a value matches
+     * @throws IllegalArgumentException if {@code predicate} is null
+     */
+    default boolean anyMatch(Predicate<? super T> predicate) throws IllegalArgumentException {
+        if(predicate == null) throw new IllegalArgumentException("predicate cannot be null.");
+        return walk(node -> predicate.test(node.getValue()) ? VisitResult.STOP : VisitResult.CONTINUE) == VisitResult.STOP;
+    }
 }
@@ -0,0 +1,229 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * lazy iterator that walks a tree from a given node and yields the nodes in the specified {@link TraversalOrder}.
+ *
+ * <p>
+ *     depth-first orders are driven by an explicit stack of (node, next child) frames instead of recursion,
+ *     so memory is proportional to the height of the tree and deep trees do not overflow the call stack.
+ *     {@link TraversalOrder#LEVEL_ORDER} uses a queue, which holds at most 2 levels of the tree at once.
+ * </p>
+ * @param <T> the type of values in the tree
+ * @see TraversalOrder
+ */
+public class TreeIterator<T> implements Iterator<Node<T>> {
+
+    private static final int INITIAL_DEPTH = 16;
+
+    private final TraversalOrder order;
+    // stack of frames for depth first orders
+    private Node<T>[] nodes;
+    private int[] steps;
+    private int depth;
+    // queue for level order
+    private ArrayDeque<Node<T>> queue;
+    // the node to return on the next call to next(), or null if not yet computed
+    private Node<T> next;
+
+    /**
+     * constructs an iterator that walks the subtree of {@code root} in pre-order.
+     * @param root the root of the subtree. may be null, in which case the iterator is empty
+     */
+    public TreeIterator(Node<T> root) {
+        this(root, TraversalOrder.PRE_ORDER);
+    }
+
+    /**
+     * constructs an iterator that walks the subtree of {@code root} in the given order.
+     * @param root the root of the subtree. may be null, in which case the iterator is empty
+     * @param order the traversal order
+     * @throws IllegalArgumentException if {@code order} is null
+     */
+    @SuppressWarnings("unchecked")
+    public TreeIterator(Node<T> root, TraversalOrder order) throws IllegalArgumentException {
+        if(order == null) throw new IllegalArgumentException("order cannot be null.");
+        this.order = order;
+        if(root == null) return;
+        if(order == TraversalOrder.LEVEL_ORDER) {
+            this.queue = new ArrayDeque<>();
+            this.queue.add(root);
+        } else {
+            this.nodes = (Node<T>[]) new Node<?>[INITIAL_DEPTH];
+            this.steps = new int[INITIAL_DEPTH];
+            push(root);
+            // pre-order yields the root before descending
+            if(order == TraversalOrder.PRE_ORDER) this.next = root;
+        }
+    }
+
+    /**
+     * returns true if there are more nodes to visit.
+     * @return true if there is a next node
+     */
+    @Override
+    public boolean hasNext() {
+        if(this.next == null) this.next = advance();
+        return this.next != null;
+    }
+
+    /**
+     * returns the next node in the traversal.
+     * @return the next node
+     * @throws NoSuchElementException if the traversal is complete
+     */
+    @Override
+    public Node<T> next() throws NoSuchElementException {
+        if(!hasNext()) throw new NoSuchElementException("traversal is complete.");
+        Node<T> node = this.next;
+        this.next = null;
+        return node;
+    }
+
+    /**
+     * computes the next node in the traversal.
+     * @return the next node, or null if there are none left
+     */
+    private Node<T> advance() {
+        switch(this.order) {
+            case PRE_ORDER: return advancePreOrder();
+            case IN_ORDER: return advanceInOrder();
+            case POST_ORDER: return advancePostOrder();
+            default: return advanceLevelOrder();
+        }
+    }
+
+    private Node<T> advancePreOrder() {
+        while(this.depth > 0) {
+            int top = this.depth - 1;
+            Node<T> node = this.nodes[top];
+            int step = this.steps[top];
+            if(step < node.childCount()) {
+                // descend into the next child, visiting it on the way down
+                this.steps[top]++;
+                Node<T> child = node.child(step);
+                push(child);
+                return child;
+            }
+            pop();
+        }
+        return null;
+    }
+
+    private Node<T> advanceInOrder() {
+        while(this.depth > 0) {
+            int top = this.depth - 1;
+            Node<T> node = this.nodes[top];
+            int step = this.steps[top]++;
+            // the node itself is visited at step == leading, children fill the remaining steps
+            int leading = leadingChildren(node);
+            if(step < leading) {
+                push(node.child(step));
+            } else if(step == leading) {
+                return node;
+            } else if(step <= node.childCount()) {
+                push(node.child(step - 1));
+            } else {
+                pop();
+            }
+        }
+        return null;
+    }
+
+    private Node<T> advancePostOrder() {
+        while(this.depth > 0) {
+            int top = this.depth - 1;
+            Node<T> node = this.nodes[top];
+            int step = this.steps[top];
+            if(step < node.childCount()) {
+                this.steps[top]++;
+                push(node.child(step));
+            } else {
+                // all children visited, visit this node on the way up
+                pop();
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private Node<T> advanceLevelOrder() {
+        if(this.queue == null || this.queue.isEmpty()) return null;
+        Node<T> node = this.queue.poll();
+        // enqueue children starting from the left
+        int count = node.childCount();
+        for(int i = 0; i < count; i++) {
+            this.queue.add(node.child(i));
+        }
+        return node;
+    }
+
+    /**
+     * returns the number of children visited before the node itself in an in-order traversal.
+     * a binary node only has a leading child if it has a left child.
+     * @param node the node
+     * @return the number of leading children
+     */
+    private int leadingChildren(Node<T> node) {
+        if(node instanceof BinaryShaped) return ((BinaryShaped) node).hasLeft() ? 1 : 0;
+        return Math.min(1, node.childCount());
+    }
+
+    private void push(Node<T> node) {
+        if(this.depth == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.depth * 2);
+            this.steps = Arrays.copyOf(this.steps, this.depth * 2);
+        }
+        this.nodes[this.depth] = node;
+        this.steps[this.depth] = 0;
+        this.depth++;
+    }
+
+    private void pop() {
+        // clear the reference so the stack does not keep visited nodes alive
+        this.nodes[--this.depth] = null;
+    }
+
+    /**
+     * returns an iterator that yields the values of the nodes from a {@code TreeIterator}.
+     * @param root the root of the subtree. may be null
+     * @param order the traversal order
+     * @param <T> the type of values in the tree
+     * @return the value iterator
+     */
+    public static <T> Iterator<T> values(Node<T> root, TraversalOrder order) {
+        return new Iterator<>() {
+            final TreeIterator<T> iterator = new TreeIterator<>(root, order);
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next().getValue();
+            }
+        };
+    }
+}
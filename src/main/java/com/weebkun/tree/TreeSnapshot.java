@@ -0,0 +1,509 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import com.weebkun.io.ByteBufferDataInput;
+import com.weebkun.io.ValueCodec;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only tree backed by a memory-mapped snapshot file.
+ *
+ * <p>
+ *     {@link #write(Tree, ValueCodec, Path)} stores the shape and values of any {@link Tree} in a compact binary file,
+ *     and {@link #open(Path, ValueCodec)} maps that file into memory and returns a view of it without rebuilding the tree.
+ *     opening takes constant time regardless of the size of the tree. nodes are lightweight cursors over the file,
+ *     and a value is only decoded when {@link Node#getValue()} is called.
+ * </p>
+ * <p>
+ *     the file stores the values in pre-order, followed by the size of every subtree, one structure bit per node
+ *     telling whether a binary node's first child is its left child, and the offset of every value.
+ *     the first child of a node is the next node in pre-order, and its next sibling is found by skipping its subtree,
+ *     so the tree is navigated without storing any child references.
+ *     a snapshot of a {@link BinaryTree} or {@link BinarySearchTree} keeps the left and right positions of its children.
+ * </p>
+ * <p>
+ *     a file is mapped as a single buffer, so snapshots are limited to 2GB.
+ *     the mapping is released by the garbage collector once the snapshot and all of its nodes are unreachable.
+ *     all mutating operations throw {@link UnsupportedOperationException}.
+ * </p>
+ * @param <T> the type of elements contained in this tree
+ * @see ValueCodec
+ */
+public final class TreeSnapshot<T> implements Tree<T> {
+
+    private static final int MAGIC = 0x574B5453;
+    private static final byte VERSION = 1;
+    // magic, version, binary flag, 2 bytes padding, node count, then the offsets of the sections
+    private static final int HEADER_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final ValueCodec<T> codec;
+    private final boolean binary;
+    private final int nodes;
+    private final int sizesStart;
+    private final int bitsStart;
+    private final int offsetsStart;
+    // the pre-order index of the root of this view
+    private final int root;
+
+    private TreeSnapshot(ByteBuffer buffer, ValueCodec<T> codec, boolean binary, int nodes,
+                         int sizesStart, int bitsStart, int offsetsStart, int root) {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.binary = binary;
+        this.nodes = nodes;
+        this.sizesStart = sizesStart;
+        this.bitsStart = bitsStart;
+        this.offsetsStart = offsetsStart;
+        this.root = root;
+    }
+
+    /**
+     * writes a snapshot of a tree to a file, replacing the file if it exists.
+     * the tree is walked once, without recursion.
+     * @param tree the tree
+     * @param codec the codec used to encode the values
+     * @param path the file to write to
+     * @param <T> the type of elements contained in the tree
+     * @throws IOException if writing fails, or the snapshot would be larger than 2GB
+     * @throws IllegalArgumentException if {@code tree} or {@code codec} is null
+     */
+    public static <T> void write(Tree<T> tree, ValueCodec<? super T> codec, Path path) throws IOException, IllegalArgumentException {
+        if(tree == null) throw new IllegalArgumentException("tree cannot be null.");
+        if(codec == null) throw new IllegalArgumentException("codec cannot be null.");
+        Node<T> root = tree.getRoot();
+        boolean binary = root instanceof BinaryShaped;
+        int capacity = Math.max(tree.size(), 1);
+        int[] sizes = new int[capacity];
+        int[] offsets = new int[capacity];
+        long[] bits = new long[(capacity + 63) >>> 6];
+        int count = 0;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_SIZE]);
+            if(root != null) {
+                // explicit stack of (node, pre-order index, next child) frames
+                List<Node<T>> stack = new ArrayList<>();
+                int[] indices = new int[16];
+                int[] steps = new int[16];
+                stack.add(root);
+                count = visit(root, count, out, codec, sizes, offsets);
+                if(binary && ((BinaryShaped) root).hasLeft()) bits[0] |= 1L;
+                while(!stack.isEmpty()) {
+                    int top = stack.size() - 1;
+                    Node<T> node = stack.get(top);
+                    if(steps[top] == node.childCount()) {
+                        sizes[indices[top]] = count - indices[top];
+                        stack.remove(top);
+                        continue;
+                    }
+                    Node<T> child = node.child(steps[top]++);
+                    if(count == sizes.length) {
+                        sizes = Arrays.copyOf(sizes, count * 2);
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                        bits = Arrays.copyOf(bits, (count * 2 + 63) >>> 6);
+                    }
+                    if(binary && child instanceof BinaryShaped && ((BinaryShaped) child).hasLeft()) {
+                        bits[count >>> 6] |= 1L << count;
+                    }
+                    if(stack.size() == indices.length) {
+                        indices = Arrays.copyOf(indices, indices.length * 2);
+                        steps = Arrays.copyOf(steps, steps.length * 2);
+                    }
+                    indices[stack.size()] = count;
+                    steps[stack.size()] = 0;
+                    stack.add(child);
+                    count = visit(child, count, out, codec, sizes, offsets);
+                }
+            }
+            // the sections after the values are aligned to 4 bytes
+            while(out.size() % 4 != 0) out.write(0);
+            long sizesStart = out.size();
+            for(int i = 0; i < count; i++) out.writeInt(sizes[i]);
+            long bitsStart = out.size();
+            for(int i = 0; i < (count + 63) >>> 6; i++) out.writeLong(bits[i]);
+            long offsetsStart = out.size();
+            for(int i = 0; i < count; i++) out.writeInt(offsets[i]);
+            if(out.size() == Integer.MAX_VALUE) throw new IOException("snapshot is larger than 2GB.");
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put(VERSION).put((byte) (binary ? 1 : 0)).putShort((short) 0).putInt(count)
+                    .putInt((int) sizesStart).putInt((int) bitsStart).putInt((int) offsetsStart).flip();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * records the offset of a node's value and writes the value.
+     * @return the pre-order index of the next node
+     */
+    private static <T> int visit(Node<T> node, int index, DataOutputStream out, ValueCodec<? super T> codec,
+                                 int[] sizes, int[] offsets) throws IOException {
+        if(out.size() == Integer.MAX_VALUE) throw new IOException("snapshot is larger than 2GB.");
+        offsets[index] = out.size();
+        sizes[index] = 1;
+        codec.write(node.getValue(), out);
+        return index + 1;
+    }
+
+    /**
+     * maps a snapshot file into memory and returns a read-only view of the tree.
+     * no values are decoded until they are accessed.
+     * @param path the snapshot file
+     * @param codec the codec used to decode the values. must match the codec the snapshot was written with
+     * @param <T> the type of elements contained in the tree
+     * @return the tree
+     * @throws IOException if reading fails, or the file is not a snapshot
+     * @throws IllegalArgumentException if {@code codec} is null
+     */
+    public static <T> TreeSnapshot<T> open(Path path, ValueCodec<T> codec) throws IOException, IllegalArgumentException {
+        if(codec == null) throw new IllegalArgumentException("codec cannot be null.");
+        ByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) throw new IOException("snapshot is larger than 2GB.");
+            if(channel.size() < HEADER_SIZE) throw new IOException("not a tree snapshot.");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(buffer.getInt(0) != MAGIC) throw new IOException("not a tree snapshot.");
+        if(buffer.get(4) != VERSION) throw new IOException("unsupported snapshot version " + buffer.get(4) + ".");
+        return new TreeSnapshot<>(buffer, codec, buffer.get(5) == 1, buffer.getInt(8),
+                buffer.getInt(12), buffer.getInt(16), buffer.getInt(20), 0);
+    }
+
+    /**
+     * returns the size of this tree.
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return this.nodes == 0 ? 0 : subtreeSize(this.root);
+    }
+
+    /**
+     * checks if this tree is empty. returns true if so.
+     * @return true if empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.nodes == 0;
+    }
+
+    /**
+     * returns the root node of this tree. the node is read-only.
+     * @return the root, or null if this tree is empty
+     */
+    @Nullable
+    @Override
+    public Node<T> getRoot() {
+        return this.nodes == 0 ? null : new SnapshotNode(this.root);
+    }
+
+    /**
+     * traverses this tree in pre-order, the order in which the values are stored.
+     * @return the list of values
+     */
+    @Override
+    public List<T> traverse() {
+        List<T> result = new ArrayList<>(size());
+        for(T value : this) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * returns the height of this tree.
+     * @return the height, or -1 if this tree is empty
+     * @see Tree#getHeight() for more details.
+     */
+    @Override
+    public int getHeight() {
+        return this.nodes == 0 ? -1 : height(this.root);
+    }
+
+    /**
+     * returns an {@link Iterator} that yields the values in pre-order.
+     * the values are stored in pre-order, so they are decoded sequentially from the file.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+        int end = size();
+        ByteBufferDataInput input = end == 0 ? null : new ByteBufferDataInput(this.buffer.duplicate().position(offset(this.root)));
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < end;
+            }
+
+            @Override
+            public T next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                this.index++;
+                try {
+                    return TreeSnapshot.this.codec.read(input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * returns the string representation of this tree in pre-order.
+     * @return the string representation of this tree
+     */
+    @Override
+    public String toString() {
+        return traverse().toString();
+    }
+
+    private int subtreeSize(int index) {
+        return this.buffer.getInt(this.sizesStart + index * 4);
+    }
+
+    private int offset(int index) {
+        return this.buffer.getInt(this.offsetsStart + index * 4);
+    }
+
+    private boolean leftBit(int index) {
+        return (this.buffer.getLong(this.bitsStart + (index >>> 6) * 8) & (1L << index)) != 0;
+    }
+
+    private T decode(int index) {
+        try {
+            return this.codec.read(new ByteBufferDataInput(this.buffer.duplicate().position(offset(index))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int height(int index) {
+        // stack of the indices at which the subtrees of the current ancestors end
+        int[] ends = new int[16];
+        int depth = 0;
+        int height = 0;
+        int end = index + subtreeSize(index);
+        for(int i = index; i < end; i++) {
+            while(depth > 0 && ends[depth - 1] <= i) depth--;
+            height = Math.max(height, depth);
+            if(depth == ends.length) ends = Arrays.copyOf(ends, depth * 2);
+            ends[depth++] = i + subtreeSize(i);
+        }
+        return height;
+    }
+
+    /**
+     * a read-only node of a {@link TreeSnapshot}, identified by its pre-order index in the file.
+     */
+    private final class SnapshotNode implements Node<T>, BinaryShaped {
+
+        private final int index;
+        // the number of children, or -1 until counted. counting again on a race gives the same result
+        private int childCount = -1;
+        private volatile long lastVisited = -1L;
+
+        SnapshotNode(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void add(T value) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException("this tree is read-only.");
+        }
+
+        @Override
+        public int size() {
+            return subtreeSize(this.index);
+        }
+
+        /**
+         * returns the subtree of this node as a read-only tree over the same file. nothing is copied.
+         * @return the subtree
+         */
+        @Override
+        public Tree<T> subtree() {
+            return new TreeSnapshot<>(buffer, codec, binary, nodes, sizesStart, bitsStart, offsetsStart, this.index);
+        }
+
+        /**
+         * returns the parent node. parents are not stored,
+         * so this scans backwards over the preceding nodes until one whose subtree contains this node is found.
+         * @return the parent node, or null if this is the root of the file
+         */
+        @Nullable
+        @Override
+        public Node<T> getParent() {
+            for(int i = this.index - 1; i >= 0; i--) {
+                if(i + subtreeSize(i) > this.index) return new SnapshotNode(i);
+            }
+            return null;
+        }
+
+        /**
+         * decodes the value of this node from the file.
+         * @return the value
+         * @throws UncheckedIOException if the value cannot be decoded
+         */
+        @Override
+        public T getValue() {
+            return decode(this.index);
+        }
+
+        /**
+         * returns a list of children nodes. for a binary snapshot,
+         * the list always contains the left and right child, which may be null.
+         * @return the children nodes
+         */
+        @Override
+        public List<Node<T>> getChildren() {
+            if(binary) return Arrays.asList(left(), right());
+            List<Node<T>> children = new ArrayList<>();
+            int end = this.index + size();
+            for(int i = this.index + 1; i < end; i += subtreeSize(i)) {
+                children.add(new SnapshotNode(i));
+            }
+            return children;
+        }
+
+        @Override
+        public Node<T> visit(int index) throws IndexOutOfBoundsException {
+            if(!binary) return child(index);
+            if(index < 0 || index > 1) throw new IndexOutOfBoundsException("index can only be 0(left) or 1(right).");
+            return index == 0 ? left() : right();
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return size() > 1;
+        }
+
+        /**
+         * checks if the first child of this node is a left child.
+         * for snapshots of trees that are not binary, the first child is treated as the left child.
+         * @return true if this node has a left child
+         */
+        @Override
+        public boolean hasLeft() {
+            return binary ? leftBit(this.index) : size() > 1;
+        }
+
+        @Override
+        public void update(T value) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException("this tree is read-only.");
+        }
+
+        @Override
+        public int calculateHeight() {
+            return height(this.index);
+        }
+
+        /**
+         * returns the number of children. siblings are not linked in the file,
+         * so the children are counted by skipping their subtrees once, and the count is kept by this node.
+         * @return the number of children
+         */
+        @Override
+        public int childCount() {
+            int count = this.childCount;
+            if(count < 0) {
+                count = 0;
+                int end = this.index + size();
+                for(int i = this.index + 1; i < end; i += subtreeSize(i)) {
+                    count++;
+                }
+                this.childCount = count;
+            }
+            return count;
+        }
+
+        /**
+         * returns the child at a position. the walk starts from the last child returned by this node if it comes
+         * before {@code index}, so visiting the children in order takes constant time per child.
+         * @param index the position of the child
+         * @return the child
+         * @throws IndexOutOfBoundsException if there is no child at {@code index}
+         */
+        @Override
+        public Node<T> child(int index) throws IndexOutOfBoundsException {
+            if(index < 0 || index >= childCount()) throw new IndexOutOfBoundsException("index not found.");
+            // the position and pre-order index of the last visited child, packed so that they are read and written together
+            long last = this.lastVisited;
+            int position = (int) (last >>> 32);
+            int child = (int) last;
+            if(position < 0 || position > index) {
+                position = 0;
+                child = this.index + 1;
+            }
+            for(; position < index; position++) {
+                child += subtreeSize(child);
+            }
+            this.lastVisited = ((long) index << 32) | (child & 0xffffffffL);
+            return new SnapshotNode(child);
+        }
+
+        private Node<T> left() {
+            return leftBit(this.index) ? new SnapshotNode(this.index + 1) : null;
+        }
+
+        private Node<T> right() {
+            if(size() == 1) return null;
+            int right = this.index + 1 + (leftBit(this.index) ? subtreeSize(this.index + 1) : 0);
+            return right < this.index + size() ? new SnapshotNode(right) : null;
+        }
+
+        private TreeSnapshot<T> snapshot() {
+            return TreeSnapshot.this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof TreeSnapshot<?>.SnapshotNode)) return false;
+            TreeSnapshot<?>.SnapshotNode node = (TreeSnapshot<?>.SnapshotNode) o;
+            return node.snapshot().buffer == buffer && node.index == this.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.index;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(getValue());
+        }
+    }
+}
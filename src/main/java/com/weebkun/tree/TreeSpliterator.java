@@ -0,0 +1,158 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} that yields the values of a subtree in pre-order and splits by handing off subtrees.
+ *
+ * <p>
+ *     a {@code TreeSpliterator} covers a range of children of a node, optionally preceded by the node itself.
+ *     splitting halves the range of children, or descends into the only child left, so no traversal list is built.
+ *     sizes are taken from {@link Node#size()}, so the estimates are exact for nodes that track their subtree size.
+ * </p>
+ * @param <T> the type of values in the tree
+ * @see Tree#stream()
+ */
+public class TreeSpliterator<T> implements Spliterator<T> {
+
+    private Node<T> parent;
+    private int from;
+    private int to;
+    private boolean includeParent;
+    // iterator over the subtree of the child currently being traversed
+    private Iterator<T> current;
+    // number of remaining elements, or -1 if not yet computed
+    private long remaining = -1;
+
+    /**
+     * constructs a spliterator over the subtree of {@code root}.
+     * @param root the root of the subtree
+     */
+    public TreeSpliterator(Node<T> root) {
+        this(root, 0, root.childCount(), true);
+    }
+
+    private TreeSpliterator(Node<T> parent, int from, int to, boolean includeParent) {
+        this.parent = parent;
+        this.from = from;
+        this.to = to;
+        this.includeParent = includeParent;
+    }
+
+    /**
+     * performs the action on the next value, if there is one.
+     * @param action the action
+     * @return false if there are no values left
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        // the size is counted down from here on, so it has to be computed before anything is consumed
+        if(this.remaining < 0) estimateSize();
+        if(this.includeParent) {
+            this.includeParent = false;
+            this.remaining--;
+            action.accept(this.parent.getValue());
+            return true;
+        }
+        while(true) {
+            if(this.current != null && this.current.hasNext()) {
+                this.remaining--;
+                action.accept(this.current.next());
+                return true;
+            }
+            if(this.from >= this.to) return false;
+            // move on to the subtree of the next child
+            this.current = TreeIterator.values(this.parent.child(this.from++), TraversalOrder.PRE_ORDER);
+        }
+    }
+
+    /**
+     * splits off the leading part of this spliterator.
+     * the returned spliterator covers the values that come before the ones left in this spliterator.
+     * @return the leading part, or null if this spliterator cannot be split
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+        // a child subtree is partially consumed, only the tail can be split off which would break the order
+        if(this.current != null) return null;
+        int count = this.to - this.from;
+        if(this.includeParent) {
+            if(count == 0) return null;
+            this.remaining = -1;
+            if(count == 1) {
+                // hand off the parent on its own and descend into the only child
+                TreeSpliterator<T> prefix = new TreeSpliterator<>(this.parent, this.from, this.from, true);
+                descend();
+                return prefix;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            TreeSpliterator<T> prefix = new TreeSpliterator<>(this.parent, this.from, mid, true);
+            this.includeParent = false;
+            this.from = mid;
+            return prefix;
+        }
+        if(count == 0) return null;
+        this.remaining = -1;
+        if(count == 1) {
+            descend();
+            return trySplit();
+        }
+        int mid = (this.from + this.to) >>> 1;
+        TreeSpliterator<T> prefix = new TreeSpliterator<>(this.parent, this.from, mid, false);
+        this.from = mid;
+        return prefix;
+    }
+
+    /**
+     * returns the number of values left in this spliterator.
+     * @return the number of values left
+     */
+    @Override
+    public long estimateSize() {
+        if(this.remaining < 0) {
+            long size = this.includeParent ? 1 : 0;
+            for(int i = this.from; i < this.to; i++) {
+                size += this.parent.child(i).size();
+            }
+            this.remaining = size;
+        }
+        return this.remaining;
+    }
+
+    /**
+     * returns the characteristics of this spliterator.
+     * @return the characteristics
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+
+    /**
+     * replaces the only child left in range with the child's own subtree.
+     */
+    private void descend() {
+        this.parent = this.parent.child(this.from);
+        this.from = 0;
+        this.to = this.parent.childCount();
+        this.includeParent = true;
+    }
+}
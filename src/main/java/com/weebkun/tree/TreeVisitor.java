@@ -0,0 +1,104 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import java.util.Arrays;
+
+/**
+ * a visitor that is called as the nodes of a tree are walked depth-first.
+ *
+ * <p>
+ *     {@link #enter(Node)} is called when a node is reached, before any of its children,
+ *     and {@link #leave(Node)} after all of its children have been walked.
+ *     both return a {@link VisitResult}, so a visitor can prune subtrees it is not interested in,
+ *     or stop the walk as soon as it has found what it is looking for.
+ * </p>
+ * <p>
+ *     {@link #walk(Node, TreeVisitor)} walks iteratively with an explicit stack that only grows with the height of the tree,
+ *     so no list of values is built and nothing is allocated per node.
+ * </p>
+ * <pre>{@code
+ * tree.walk(node -> node.getValue().isDirectory() ? VisitResult.CONTINUE : VisitResult.SKIP_SUBTREE);
+ * }</pre>
+ * @param <T> the type of values in the tree
+ * @see Tree#walk(TreeVisitor)
+ */
+@FunctionalInterface
+public interface TreeVisitor<T> {
+
+    /**
+     * called when a node is reached, before its children.
+     * @param node the node
+     * @return how to continue the walk
+     */
+    VisitResult enter(Node<T> node);
+
+    /**
+     * called after all children of a node have been walked.
+     * not called for nodes whose subtree was skipped.
+     * @param node the node
+     * @return how to continue the walk. the default implementation continues
+     */
+    default VisitResult leave(Node<T> node) {
+        return VisitResult.CONTINUE;
+    }
+
+    /**
+     * walks the subtree of {@code root} depth-first, calling the visitor for each node.
+     * @param root the root of the subtree. may be null, in which case nothing is visited
+     * @param visitor the visitor
+     * @param <T> the type of values in the tree
+     * @return {@link VisitResult#STOP} if the visitor stopped the walk, otherwise {@link VisitResult#CONTINUE}
+     * @throws IllegalArgumentException if {@code visitor} is null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> VisitResult walk(Node<T> root, TreeVisitor<T> visitor) throws IllegalArgumentException {
+        if(visitor == null) throw new IllegalArgumentException("visitor cannot be null.");
+        if(root == null) return VisitResult.CONTINUE;
+        VisitResult result = visitor.enter(root);
+        if(result == VisitResult.STOP) return VisitResult.STOP;
+        if(result == VisitResult.SKIP_SUBTREE) return VisitResult.CONTINUE;
+        // stack of (node, next child) frames
+        Node<T>[] nodes = (Node<T>[]) new Node<?>[16];
+        int[] steps = new int[16];
+        nodes[0] = root;
+        int depth = 1;
+        while(depth > 0) {
+            int top = depth - 1;
+            Node<T> node = nodes[top];
+            int step = steps[top];
+            if(step < node.childCount()) {
+                steps[top]++;
+                Node<T> child = node.child(step);
+                result = visitor.enter(child);
+                if(result == VisitResult.STOP) return VisitResult.STOP;
+                if(result == VisitResult.SKIP_SUBTREE) continue;
+                if(depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    steps = Arrays.copyOf(steps, depth * 2);
+                }
+                nodes[depth] = child;
+                steps[depth] = 0;
+                depth++;
+            } else {
+                nodes[--depth] = null;
+                if(visitor.leave(node) == VisitResult.STOP) return VisitResult.STOP;
+            }
+        }
+        return VisitResult.CONTINUE;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+/**
+ * implemented by nodes that count the modifications made to their subtree.
+ * a modification of a node increments the count of the node and of all of its ancestors,
+ * so a tree only has to look at its root to tell if anything in it has changed.
+ * used by {@link TraversalCache}.
+ */
+interface Versioned {
+
+    /**
+     * returns the number of modifications made to the subtree of this node.
+     * @return the modification count
+     */
+    int modCount();
+}
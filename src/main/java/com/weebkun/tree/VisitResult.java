@@ -0,0 +1,40 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+/**
+ * returned by the callbacks of a {@link TreeVisitor} to tell the walk how to continue.
+ * @see TreeVisitor
+ */
+public enum VisitResult {
+
+    /**
+     * continues the walk.
+     */
+    CONTINUE,
+
+    /**
+     * skips the children of the node that was just entered. {@link TreeVisitor#leave(Node)} is not called for it.
+     * returned from {@link TreeVisitor#leave(Node)}, this is the same as {@link #CONTINUE}.
+     */
+    SKIP_SUBTREE,
+
+    /**
+     * ends the walk immediately.
+     */
+    STOP
+}
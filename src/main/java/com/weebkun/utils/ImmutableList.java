@@ -16,6 +16,8 @@
 
 package com.weebkun.utils;
 
+import com.weebkun.jfr.DeepCloneEvent;
+
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -40,7 +42,8 @@ public class ImmutableList<T extends Cloneable> extends ArrayList<T> implements
      * @param collection the collection
      */
     public ImmutableList(Collection<T> collection){
-        this.array = (T[]) collection.toArray();
+        // T erases to Cloneable, so the array has to be a Cloneable[] rather than an Object[]
+        this.array = (T[]) collection.toArray(new Cloneable[0]);
         this.size = collection.size();
     }
 
@@ -173,9 +176,13 @@ public class ImmutableList<T extends Cloneable> extends ArrayList<T> implements
      * @return the cloned list
      */
     public ImmutableList<T> deepClone(){
+        DeepCloneEvent event = new DeepCloneEvent();
+        event.begin();
         // intermediate list to store the new references
         List<T> inter = new ArrayList<>();
-        for(T elem : this) {
+        // iterate over the backing array, the storage inherited from ArrayList is always empty
+        for(int i = 0; i < this.size; i++) {
+            T elem = this.array[i];
             try {
                 // clone each element using reflection
                 Method clone = elem.getClass().getMethod("clone");
@@ -184,6 +191,11 @@ public class ImmutableList<T extends Cloneable> extends ArrayList<T> implements
                 throw new RuntimeException(e);
             }
         }
+        event.end();
+        if(event.isEnabled()) {
+            event.size = this.size;
+            event.commit();
+        }
         return new ImmutableList<>(inter);
     }
 }
@@ -0,0 +1,205 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import com.weebkun.enumerate.Item;
+import com.weebkun.tree.BinarySearchTree;
+import com.weebkun.tree.TraversalOrder;
+import com.weebkun.tree.VisitResult;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * checks the number of bytes the hot paths of the library allocate per element against a budget.
+ *
+ * <p>
+ *     each operation is first run {@value #WARMUP} times as a warm-up, so the JIT has compiled it before it is measured.
+ *     it is then run {@value #RUNS} times while the bytes allocated by the current thread are read from
+ *     {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, and the bytes per element are compared
+ *     to the budget of the operation. a budget should only be raised when the extra allocation is intended.
+ * </p>
+ * <p>
+ *     the budgets are for compiled code. budgets of 0 hold because the JIT's escape analysis removes the per-element
+ *     objects, such as the {@link Item}s of an enumeration, and the other budgets are lower than what the interpreter
+ *     allocates for the same reason. before the budgets are checked, a probe that allocates an object per element
+ *     which never escapes is measured the same way, and the tests are skipped if the probe still allocates,
+ *     e.g. with {@code -Xint} or a JIT without escape analysis, or if the JVM cannot count the bytes allocated by a thread.
+ *     every budget is checked against a tolerance of {@value #TOLERANCE} bytes per element, which covers
+ *     the allocations made once per call such as iterators and stacks, and the differences between JITs,
+ *     but is far below the size of any object allocated per element.
+ * </p>
+ */
+public class AllocationBudgetTest {
+
+    private static final int SIZE = 100_000;
+    private static final int WARMUP = 50;
+    private static final int RUNS = 20;
+    // bytes per element allowed on top of every budget
+    private static final double TOLERANCE = 1;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // whether the JIT removes objects that do not escape, see escapeAnalysis()
+    private static boolean escapeAnalysis;
+
+    private static List<Integer> numbers;
+    private static Integer[] array;
+    private static Collection<Object> left;
+    private static Collection<Object> right;
+    private static BinarySearchTree tree;
+
+    // keeps results reachable so the JIT cannot remove the operations
+    private static long sink;
+    private static Object sinkObject;
+
+    @BeforeClass
+    public static void setUp() {
+        numbers = new ArrayList<>(SIZE);
+        array = new Integer[SIZE];
+        left = new ArrayList<>(SIZE);
+        right = new ArrayList<>(SIZE);
+        for(int i = 0; i < SIZE; i++) {
+            numbers.add(i);
+            array[i] = i;
+            left.add(i);
+            right.add(-i);
+        }
+        List<Integer> shuffled = new ArrayList<>(numbers);
+        Collections.shuffle(shuffled, new Random(42));
+        tree = new BinarySearchTree(shuffled);
+        if(THREADS.isThreadAllocatedMemorySupported()) {
+            if(!THREADS.isThreadAllocatedMemoryEnabled()) THREADS.setThreadAllocatedMemoryEnabled(true);
+            escapeAnalysis = escapeAnalysis();
+        }
+    }
+
+    /**
+     * returns true if an object allocated per element that never escapes costs nothing once warmed up.
+     */
+    private static boolean escapeAnalysis() {
+        return measure(() -> {
+            long sum = 0;
+            for(int i = 0; i < SIZE; i++) sum += new Item<>(array[i], i).getIndex();
+            return sum;
+        }) <= TOLERANCE;
+    }
+
+    @Test
+    public void enumerateArray() {
+        assertWithinBudget("enumerate(array)", 0, () -> {
+            long sum = 0;
+            for(Item<Integer> item : ListUtil.enumerate(array)) sum += item.getIndex();
+            return sum;
+        });
+    }
+
+    @Test
+    public void enumerateList() {
+        assertWithinBudget("enumerate(list)", 0, () -> {
+            long sum = 0;
+            for(Item<Integer> item : ListUtil.enumerate(numbers)) sum += item.getIndex();
+            return sum;
+        });
+    }
+
+    @Test
+    public void map() {
+        // a boxed result and the growth of the result list
+        assertWithinBudget("map", 32, () -> keep(ListUtil.map(numbers, x -> x + SIZE)));
+    }
+
+    @Test
+    public void filter() {
+        assertWithinBudget("filter", 12, () -> keep(ListUtil.filter(numbers, x -> x % 2 == 0)));
+    }
+
+    @Test
+    public void zip() {
+        // a list and a tuple with its array per row
+        assertWithinBudget("zip", 160, () -> keep(ListUtil.zip(left, right)));
+    }
+
+    @Test
+    public void treeTraverse() {
+        // a copy of the cached traversal
+        assertWithinBudget("BinarySearchTree.traverse", 12, () -> keep(tree.traverse(TraversalOrder.IN_ORDER)));
+    }
+
+    @Test
+    public void treeIterator() {
+        assertWithinBudget("BinarySearchTree.iterator", 0, () -> {
+            long sum = 0;
+            for(int value : tree) sum += value;
+            return sum;
+        });
+    }
+
+    @Test
+    public void treeWalk() {
+        assertWithinBudget("BinarySearchTree.walk", 0, () -> {
+            long[] count = new long[1];
+            tree.walk(node -> {
+                count[0]++;
+                return VisitResult.CONTINUE;
+            });
+            return count[0];
+        });
+    }
+
+    /**
+     * fails if an operation allocates more bytes per element than its budget.
+     */
+    private static void assertWithinBudget(String name, double budget, LongSupplier operation) {
+        assumeTrue("the JVM cannot count the bytes allocated by a thread.", THREADS.isThreadAllocatedMemorySupported());
+        assumeTrue("the budgets are for a JIT with escape analysis.", escapeAnalysis);
+        double perElement = measure(operation);
+        assertTrue(String.format("%s allocated %.2f bytes per element, over its budget of %.2f.", name, perElement, budget),
+                perElement <= budget + TOLERANCE);
+    }
+
+    /**
+     * warms up an operation over {@link #SIZE} elements, then returns the bytes it allocates per element.
+     */
+    private static double measure(LongSupplier operation) {
+        for(int i = 0; i < WARMUP; i++) {
+            sink += operation.getAsLong();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for(int i = 0; i < RUNS; i++) {
+            sink += operation.getAsLong();
+        }
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - before;
+        return (double) allocated / ((long) RUNS * SIZE);
+    }
+
+    private static long keep(List<?> result) {
+        sinkObject = result;
+        return result.size();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun;
+
+import com.weebkun.tuples.Tuple;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JoinTest {
+
+    // every 97th key is null, which never matches
+    private static final Function<Integer, Integer> KEY = x -> x % 97 == 0 ? null : x / 10;
+
+    @Test
+    public void hashJoinMatchesNestedLoop() {
+        for(int[] sizes : sizes()) {
+            List<Integer> left = random(sizes[0], sizes[0] / 2, 1);
+            List<Integer> right = random(sizes[1], sizes[0] / 2, 2);
+            for(JoinType type : JoinType.values()) {
+                assertEquals(Arrays.toString(sizes) + " " + type, expected(left, right, type),
+                        normalize(ListUtil.hashJoin(left, right, KEY, KEY, type)));
+            }
+        }
+    }
+
+    @Test
+    public void sortMergeJoinMatchesNestedLoop() {
+        for(int[] sizes : sizes()) {
+            List<Integer> left = random(sizes[0], sizes[0] / 2, 3);
+            List<Integer> right = random(sizes[1], sizes[0] / 2, 4);
+            for(JoinType type : JoinType.values()) {
+                assertEquals(Arrays.toString(sizes) + " " + type, expected(left, right, type),
+                        normalize(ListUtil.sortMergeJoin(left, right, KEY, KEY, type)));
+            }
+        }
+    }
+
+    @Test
+    public void sortMergeJoinYieldsAscendingKeys() {
+        List<Integer> left = random(1000, 200, 5);
+        List<Integer> right = random(1000, 200, 6);
+        Integer previous = null;
+        for(Tuple tuple : ListUtil.sortMergeJoin(left, right, KEY, KEY)) {
+            Integer key = KEY.apply((Integer) tuple.get(0));
+            assertTrue(previous == null || previous <= key);
+            previous = key;
+        }
+    }
+
+    @Test
+    public void joinsAreReiterable() {
+        List<Integer> left = random(500, 100, 7);
+        List<Integer> right = random(500, 100, 8);
+        Iterable<Tuple> hash = ListUtil.hashJoin(left, right, KEY, KEY, JoinType.LEFT);
+        Iterable<Tuple> sortMerge = ListUtil.sortMergeJoin(left, right, KEY, KEY, JoinType.LEFT);
+        assertEquals(normalize(hash), normalize(hash));
+        assertEquals(normalize(sortMerge), normalize(sortMerge));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hashJoinRejectsNullLeft() {
+        ListUtil.hashJoin(null, List.of(1), KEY, KEY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hashJoinRejectsNullRight() {
+        ListUtil.hashJoin(List.of(1), null, KEY, KEY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sortMergeJoinRejectsNullLeft() {
+        ListUtil.sortMergeJoin(null, List.of(1), KEY, KEY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sortMergeJoinRejectsNullRight() {
+        ListUtil.sortMergeJoin(List.of(1), null, KEY, KEY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sortMergeJoinRejectsNullKey() {
+        ListUtil.sortMergeJoin(List.of(1), List.of(1), null, KEY);
+    }
+
+    /**
+     * sizes of the left and right lists, including empty lists and lists large enough for the parallel paths.
+     */
+    private static int[][] sizes() {
+        return new int[][] {{0, 5}, {5, 0}, {10, 30}, {300, 40}, {40000, 50000}, {50000, 40000}};
+    }
+
+    private static List<Integer> random(int size, int range, long seed) {
+        Random random = new Random(seed);
+        List<Integer> list = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            list.add(random.nextInt(Math.max(1, range)) * 10 + random.nextInt(10));
+        }
+        return list;
+    }
+
+    /**
+     * the reference join, a nested loop over the right elements grouped by key.
+     */
+    private static List<String> expected(List<Integer> left, List<Integer> right, JoinType type) {
+        Map<Integer, List<Integer>> byKey = new HashMap<>();
+        for(Integer r : right) {
+            Integer key = KEY.apply(r);
+            if(key != null) byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(r);
+        }
+        List<Tuple> tuples = new ArrayList<>();
+        for(Integer l : left) {
+            Integer key = KEY.apply(l);
+            List<Integer> matches = key == null ? null : byKey.get(key);
+            if(type == JoinType.SEMI) {
+                if(matches != null) tuples.add(Tuple.create(l));
+            } else if(matches != null) {
+                for(Integer r : matches) tuples.add(Tuple.create(l, r));
+            } else if(type == JoinType.LEFT) {
+                tuples.add(Tuple.create(l));
+            }
+        }
+        return normalize(tuples);
+    }
+
+    /**
+     * the tuples as strings in sorted order, so joins yielding them in different orders compare equal.
+     */
+    private static List<String> normalize(Iterable<Tuple> tuples) {
+        List<String> result = new ArrayList<>();
+        for(Tuple tuple : tuples) {
+            StringBuilder builder = new StringBuilder();
+            for(int i = 0; i < tuple.length; i++) {
+                builder.append(tuple.get(i)).append(',');
+            }
+            result.add(builder.toString());
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * tests for {@link ExternalSorter}.
+ */
+public class ExternalSorterTest {
+
+    private static long files(Path directory) {
+        try(Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    public void mergesManyRunsWithBoundedFanIn() throws IOException {
+        Path directory = Files.createTempDirectory("sorter");
+        int n = 500_000;
+        Random random = new Random(1);
+        long[] values = new long[n];
+        // a budget of 1000 bytes spills a run about every 25 values, which takes 2 passes of merges, and far more runs than files can be open at once
+        ExternalSorter<Long> sorter = new ExternalSorter<>(Comparator.naturalOrder(), ValueCodec.LONG, 1000, directory);
+        for(int i = 0; i < n; i++) {
+            values[i] = random.nextLong();
+            sorter.add(values[i]);
+        }
+        Arrays.sort(values);
+        try(CloseableIterable<Long> sorted = sorter.sort()) {
+            // the runs were merged down to at most one less than the fan-in
+            assertFalse(files(directory) >= RunWriter.MAX_FAN_IN);
+            int i = 0;
+            for(long value : sorted) {
+                assertEquals(values[i++], value);
+            }
+            assertEquals(n, i);
+        }
+        assertEquals(0, files(directory));
+    }
+
+    @Test
+    public void keepsEqualValuesInOrder() throws IOException {
+        Path directory = Files.createTempDirectory("sorter");
+        List<String> values = new ArrayList<>();
+        Random random = new Random(2);
+        for(int i = 0; i < 100_000; i++) {
+            values.add(random.nextInt(100) + ":" + i);
+        }
+        Comparator<String> byKey = Comparator.comparing(value -> Integer.parseInt(value.substring(0, value.indexOf(':'))));
+        List<String> expected = new ArrayList<>(values);
+        expected.sort(byKey);
+        ExternalSorter<String> sorter = new ExternalSorter<>(byKey, ValueCodec.STRING, 4096, directory);
+        sorter.addAll(values);
+        List<String> actual = new ArrayList<>();
+        try(CloseableIterable<String> sorted = sorter.sort()) {
+            sorted.forEach(actual::add);
+        }
+        assertEquals(expected, actual);
+        assertEquals(0, files(directory));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotIterateAfterClose() {
+        CloseableIterable<Integer> sorted = ExternalSorter.sort(Arrays.asList(3, 1, 2), Comparator.naturalOrder(), ValueCodec.INTEGER, 8);
+        Iterator<Integer> iterator = sorted.iterator();
+        sorted.close();
+        iterator.next();
+    }
+}
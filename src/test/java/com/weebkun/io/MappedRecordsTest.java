@@ -0,0 +1,174 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.io;
+
+import com.weebkun.enumerate.Item;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * tests for {@link MappedRecords}.
+ */
+public class MappedRecordsTest {
+
+    private static Path write(String content) throws IOException {
+        Path file = Files.createTempFile("records", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+
+    private static String text(ByteBuffer record) {
+        StringBuilder builder = new StringBuilder(record.limit());
+        for(int i = 0; i < record.limit(); i++) {
+            builder.append((char) (record.get(i) & 0xFF));
+        }
+        return builder.toString();
+    }
+
+    private static List<String> texts(Iterable<ByteBuffer> records) {
+        List<String> texts = new ArrayList<>();
+        for(ByteBuffer record : records) {
+            texts.add(text(record));
+        }
+        return texts;
+    }
+
+    /**
+     * random lines of up to 30 characters, some of them empty. the last line is not empty,
+     * so that the lines can also be written without a line break after the last one.
+     */
+    private static List<String> lines(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(4) == 0 ? 0 : random.nextInt(30);
+            for(int j = 0; j < length; j++) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            lines.add(line.toString());
+        }
+        lines.set(count - 1, "last");
+        return lines;
+    }
+
+    @Test
+    public void readsLinesAcrossSmallSegments() throws IOException {
+        List<String> lines = lines(2000, 1);
+        for(String lineBreak : new String[] {"\n", "\r\n"}) {
+            // with and without a line break after the last line
+            for(String end : new String[] {lineBreak, ""}) {
+                Path file = write(String.join(lineBreak, lines) + end);
+                for(int segmentSize : new int[] {64, 100, MappedRecords.DEFAULT_SEGMENT_SIZE}) {
+                    MappedRecords records = MappedRecords.lines(file, segmentSize);
+                    assertEquals(lines, texts(records));
+                    assertEquals(lines, records.stream().map(MappedRecordsTest::text).collect(Collectors.toList()));
+                    assertEquals(lines.size(), records.count());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keepsCarriageReturnsInsideLines() throws IOException {
+        MappedRecords records = MappedRecords.lines(write("a\rb\r\n\r\n\rc"), 8);
+        assertEquals(List.of("a\rb", "", "\rc"), texts(records));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsLinesLongerThanASegment() throws IOException {
+        MappedRecords.lines(write("short\na line longer than the segment\n"), 16);
+    }
+
+    @Test
+    public void streamsLinesInParallelInOrder() throws IOException {
+        // large enough for the spliterator to split
+        List<String> lines = lines(50_000, 2);
+        MappedRecords records = MappedRecords.lines(write(String.join("\r\n", lines) + "\r\n"), 1 << 16);
+        assertEquals(lines, records.parallelStream().map(MappedRecordsTest::text).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void enumeratesSplitPartsFromTheirFileIndex() throws IOException {
+        List<String> lines = lines(5000, 3);
+        MappedRecords records = MappedRecords.lines(write(String.join("\n", lines)), 256);
+        for(int parts : new int[] {1, 2, 3, 7, 64, 10_000}) {
+            List<MappedRecords> split = records.split(parts);
+            int index = 0;
+            for(MappedRecords part : split) {
+                for(Item<ByteBuffer> item : part.enumerate()) {
+                    assertEquals(index, item.getIndex());
+                    assertEquals(lines.get(index++), text(item.getElement()));
+                }
+            }
+            assertEquals(lines.size(), index);
+        }
+    }
+
+    @Test
+    public void readsFixedWidthRecordsInParallel() throws IOException {
+        int width = 7;
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for(int i = 0; i < 20_000; i++) {
+            String record = String.format("%07d", i);
+            content.append(record);
+            expected.add(record);
+        }
+        Path file = write(content.toString());
+        // a segment size that is not a multiple of the width
+        for(int segmentSize : new int[] {100, 1 << 16}) {
+            MappedRecords records = MappedRecords.fixedWidth(file, width, segmentSize);
+            assertEquals(expected.size(), records.count());
+            assertEquals(expected, texts(records));
+            assertEquals(expected, records.parallelStream().map(MappedRecordsTest::text).collect(Collectors.toList()));
+            int index = 0;
+            for(MappedRecords part : records.split(5)) {
+                for(Item<ByteBuffer> item : part.enumerate()) {
+                    assertEquals(index, item.getIndex());
+                    assertEquals(expected.get(index++), text(item.getElement()));
+                }
+            }
+            assertEquals(expected.size(), index);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsPartialFixedWidthRecords() throws IOException {
+        MappedRecords.fixedWidth(write("abcdefg"), 3);
+    }
+
+    @Test
+    public void mapsEmptyFiles() throws IOException {
+        MappedRecords records = MappedRecords.lines(write(""));
+        assertEquals(0, records.count());
+        assertEquals(List.of(), texts(records));
+        assertEquals(List.of(), records.split(4));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.sketch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link BloomFilter}.
+ */
+public class BloomFilterTest {
+
+    // queries per configuration, enough for about 100 false positives at a 0.1% rate
+    private static final int QUERIES = 100_000;
+
+    @Test
+    public void hasNoFalseNegatives() {
+        BloomFilter<Long> filter = new BloomFilter<>(10_000, 0.01);
+        for(long i = 0; i < 10_000; i++) {
+            filter.add(i * 31);
+        }
+        for(long i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(i * 31));
+        }
+    }
+
+    // small filters used to probe fewer than k distinct bits, e.g. 7.1% false positives for 3 elements at 0.1%
+    @Test
+    public void staysNearTargetFalsePositiveRate() {
+        for(int n : new int[] {1, 3, 10, 100, 1000, 10_000}) {
+            for(double p : new double[] {0.01, 0.001}) {
+                double observed = falsePositiveRate(n, p);
+                assertTrue(String.format("n=%d p=%.3f observed %.5f.", n, p, observed), observed <= p * 1.3);
+            }
+        }
+    }
+
+    /**
+     * fills fresh filters with {@code n} elements each, and returns the fraction of {@link #QUERIES} elements
+     * that were never added but are reported as contained.
+     */
+    private static double falsePositiveRate(int n, double p) {
+        int perFilter = Math.max(1_000, n);
+        long positives = 0;
+        long queried = 0;
+        for(long filters = 0; queried < QUERIES; filters++) {
+            BloomFilter<Long> filter = new BloomFilter<>(n, p);
+            long base = filters << 32;
+            for(int i = 0; i < n; i++) {
+                filter.add(base + i);
+            }
+            for(int i = 0; i < perFilter; i++, queried++) {
+                if(filter.mightContain(base + n + i)) positives++;
+            }
+        }
+        return (double) positives / queried;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.sketch;
+
+import com.weebkun.ListUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link HyperLogLog} and {@link ListUtil#approxDistinct(Iterable)}.
+ */
+public class HyperLogLogTest {
+
+    private static void assertNear(long expected, long estimate) {
+        // about 4 standard errors of the default precision
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue("estimated " + estimate + " for " + expected + ".", error <= 0.035);
+    }
+
+    @Test
+    public void countsSmallSetsExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        for(int i = 0; i < 10; i++) {
+            sketch.add(i);
+            sketch.add(i);
+        }
+        assertEquals(10, sketch.cardinality());
+        assertEquals(0, new HyperLogLog().cardinality());
+    }
+
+    @Test
+    public void estimatesLargeSets() {
+        for(int n : new int[] {1000, 50_000, 1_000_000}) {
+            long[] values = new long[n * 2];
+            for(int i = 0; i < values.length; i++) {
+                values[i] = i % n * 0x9E3779B97F4A7C15L;
+            }
+            assertNear(n, HyperLogLog.of(values).cardinality());
+        }
+    }
+
+    @Test
+    public void countsCollectionsInParallelLikeSequentially() {
+        List<String> strings = new ArrayList<>();
+        for(int i = 0; i < 200_000; i++) {
+            strings.add("item-" + i % 100_000);
+        }
+        Iterable<String> notCollection = strings::iterator;
+        HyperLogLog sequential = HyperLogLog.of(notCollection);
+        assertEquals(sequential.cardinality(), HyperLogLog.of(strings).cardinality());
+        assertNear(100_000, ListUtil.approxDistinct(strings));
+    }
+
+    @Test
+    public void mergesToUnion() {
+        HyperLogLog evens = new HyperLogLog();
+        HyperLogLog odds = new HyperLogLog();
+        for(long i = 0; i < 100_000; i++) {
+            (i % 2 == 0 ? evens : odds).add(i);
+        }
+        assertNear(100_000, evens.merge(odds).cardinality());
+    }
+
+    @Test
+    public void treatsBoxedIntegersAsTheirValue() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add(5L);
+        sketch.add((Object) 5);
+        sketch.add((Object) (char) 5);
+        assertEquals(1, sketch.cardinality());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPrecisionOutOfRange() {
+        new HyperLogLog(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMergeOfOtherPrecision() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+}
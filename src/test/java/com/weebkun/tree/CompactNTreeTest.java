@@ -0,0 +1,188 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link CompactNTree} against a reference tree of child lists.
+ */
+public class CompactNTreeTest {
+
+    /**
+     * builds a random tree of {@code size} nodes in both a {@code CompactNTree} and child lists.
+     * the value of each node is its index. with {@code preOrder}, every node is added to the last node or one of its ancestors.
+     */
+    private static CompactNTree<Integer> random(int size, boolean preOrder, long seed, List<List<Integer>> children) {
+        Random random = new Random(seed);
+        CompactNTree<Integer> tree = new CompactNTree<>(0);
+        children.add(new ArrayList<>());
+        List<Integer> path = new ArrayList<>(List.of(0));
+        for(int i = 1; i < size; i++) {
+            int parent;
+            if(preOrder) {
+                while(path.size() > 1 && random.nextInt(3) == 0) path.remove(path.size() - 1);
+                parent = path.get(path.size() - 1);
+            } else {
+                parent = random.nextInt(i);
+            }
+            assertEquals(i, tree.add(parent, i));
+            children.get(parent).add(i);
+            children.add(new ArrayList<>());
+            path.add(i);
+        }
+        return tree;
+    }
+
+    private static void preOrder(List<List<Integer>> children, int node, List<Integer> result) {
+        result.add(node);
+        for(int child : children.get(node)) {
+            preOrder(children, child, result);
+        }
+    }
+
+    private static void postOrder(List<List<Integer>> children, int node, List<Integer> result) {
+        for(int child : children.get(node)) {
+            postOrder(children, child, result);
+        }
+        result.add(node);
+    }
+
+    private static int height(List<List<Integer>> children, int node) {
+        int height = 0;
+        for(int child : children.get(node)) {
+            height = Math.max(height, height(children, child) + 1);
+        }
+        return height;
+    }
+
+    @Test
+    public void traversesLikeTheReference() {
+        for(boolean preOrdered : new boolean[] {true, false}) {
+            List<List<Integer>> children = new ArrayList<>();
+            CompactNTree<Integer> tree = random(2000, preOrdered, 1, children);
+            List<Integer> expected = new ArrayList<>();
+            preOrder(children, 0, expected);
+            assertEquals(preOrdered, tree.isPreOrdered());
+            assertEquals(expected, tree.traverse());
+            List<Integer> iterated = new ArrayList<>();
+            tree.forEach(iterated::add);
+            assertEquals(expected, iterated);
+            assertEquals(expected.stream().mapToLong(i -> i).sum(), tree.parallelStream().mapToLong(i -> i).sum());
+            List<Integer> post = new ArrayList<>();
+            postOrder(children, 0, post);
+            assertEquals(post, tree.traverse(TraversalOrder.POST_ORDER));
+            assertEquals(height(children, 0), tree.getHeight());
+        }
+    }
+
+    @Test
+    public void linksChildrenAndSubtreeSizes() {
+        List<List<Integer>> children = new ArrayList<>();
+        CompactNTree<Integer> tree = random(500, false, 2, children);
+        for(int node = 0; node < tree.size(); node++) {
+            List<Integer> linked = new ArrayList<>();
+            for(int child = tree.firstChild(node); child != CompactNTree.NONE; child = tree.nextSibling(child)) {
+                assertEquals(node, tree.parent(child));
+                linked.add(child);
+            }
+            assertEquals(children.get(node), linked);
+            List<Integer> subtree = new ArrayList<>();
+            preOrder(children, node, subtree);
+            assertEquals(subtree.size(), tree.size(node));
+            // cursors visit the children in any order
+            Node<Integer> cursor = tree.node(node);
+            assertEquals(linked.size(), cursor.childCount());
+            for(int i = linked.size() - 1; i >= 0; i--) {
+                assertEquals(linked.get(i), cursor.child(i).getValue());
+            }
+            assertEquals(subtree, cursor.subtree().traverse());
+        }
+        assertEquals(CompactNTree.NONE, tree.parent(0));
+        assertNull(tree.getRoot().getParent());
+    }
+
+    @Test
+    public void compactRestoresPreOrder() {
+        List<List<Integer>> children = new ArrayList<>();
+        CompactNTree<Integer> tree = random(1000, false, 3, children);
+        List<Integer> before = tree.traverse();
+        int height = tree.getHeight();
+        tree.compact();
+        assertTrue(tree.isPreOrdered());
+        assertEquals(before, tree.traverse());
+        assertEquals(height, tree.getHeight());
+        // the values are now stored in pre-order
+        for(int i = 0; i < tree.size(); i++) {
+            assertEquals(before.get(i), tree.get(i));
+        }
+        // nodes added after compacting keep the pre-order while they follow the last subtree
+        int last = tree.size() - 1;
+        tree.add(last, -1);
+        assertTrue(tree.isPreOrdered());
+        tree.add(0, -2);
+        tree.add(last, -3);
+        assertFalse(tree.isPreOrdered());
+    }
+
+    @Test
+    public void cursorsForTheSameNodeAreEqual() {
+        CompactNTree<String> tree = new CompactNTree<>("root");
+        int child = tree.add(0, "child");
+        assertEquals(tree.node(child), tree.getRoot().child(0));
+        assertEquals(tree.node(child).hashCode(), tree.getRoot().child(0).hashCode());
+        assertFalse(tree.node(0).equals(tree.node(child)));
+        tree.node(child).update("updated");
+        assertEquals("updated", tree.get(child));
+        assertEquals(List.of("root", "updated"), tree.traverse());
+    }
+
+    @Test
+    public void emptyTree() {
+        CompactNTree<Integer> tree = CompactNTree.withCapacity(0);
+        assertTrue(tree.isEmpty());
+        assertNull(tree.getRoot());
+        assertEquals(-1, tree.getHeight());
+        assertEquals(List.of(), tree.traverse());
+        assertEquals(0, tree.setRoot(1));
+        assertEquals(List.of(1), tree.traverse());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullValues() {
+        new CompactNTree<>("root").add(0, null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsASecondRoot() {
+        new CompactNTree<>("root").setRoot("again");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsMissingNodes() {
+        new CompactNTree<>("root").add(1, "child");
+    }
+}
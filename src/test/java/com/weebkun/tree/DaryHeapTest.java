@@ -0,0 +1,119 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link DaryHeap} against a {@link PriorityQueue}.
+ */
+public class DaryHeapTest {
+
+    private static final int[] ARITIES = {2, 3, 4, 8};
+
+    @Test
+    public void pollsInPriorityOrder() {
+        Random random = new Random(1);
+        for(int arity : ARITIES) {
+            DaryHeap<Long> heap = new DaryHeap<>(arity);
+            PriorityQueue<Long> reference = new PriorityQueue<>();
+            for(int i = 0; i < 20_000; i++) {
+                // mostly adds, with polls in between, and many equal priorities
+                if(random.nextInt(3) > 0 || reference.isEmpty()) {
+                    long priority = random.nextInt(1000) - 500;
+                    heap.add(priority, priority);
+                    reference.add(priority);
+                } else {
+                    assertEquals(reference.peek().longValue(), heap.peekPriority());
+                    assertEquals(reference.poll(), heap.poll());
+                }
+                assertEquals(reference.size(), heap.size());
+            }
+            while(!reference.isEmpty()) {
+                assertEquals(reference.poll(), heap.poll());
+            }
+            assertTrue(heap.isEmpty());
+            assertNull(heap.poll());
+            assertNull(heap.peek());
+        }
+    }
+
+    @Test
+    public void heapifiesAList() {
+        Random random = new Random(2);
+        for(int arity : ARITIES) {
+            for(int size : new int[] {0, 1, 2, arity, arity + 1, 1000}) {
+                List<Long> values = new ArrayList<>();
+                for(int i = 0; i < size; i++) {
+                    values.add(random.nextLong());
+                }
+                DaryHeap<Long> heap = new DaryHeap<>(arity, values, value -> value);
+                assertEquals(size, heap.size());
+                Collections.sort(values);
+                for(long value : values) {
+                    assertEquals(value, heap.peekPriority());
+                    assertEquals(Long.valueOf(value), heap.poll());
+                }
+                assertTrue(heap.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void keepsValuesWithTheirPriorities() {
+        DaryHeap<String> heap = new DaryHeap<>(4);
+        heap.add("c", 3);
+        heap.add("a", Long.MIN_VALUE);
+        heap.add("d", Long.MAX_VALUE);
+        heap.add("b", -2);
+        assertEquals("a", heap.peek());
+        assertEquals(Long.MIN_VALUE, heap.peekPriority());
+        assertEquals("a", heap.poll());
+        assertEquals("b", heap.poll());
+        assertEquals("c", heap.poll());
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        heap.add("e", 0);
+        assertEquals("e", heap.poll());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void peekPriorityRejectsAnEmptyHeap() {
+        new DaryHeap<String>(2).peekPriority();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullValues() {
+        new DaryHeap<String>(2).add(null, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnArityBelowTwo() {
+        new DaryHeap<String>(1);
+    }
+}
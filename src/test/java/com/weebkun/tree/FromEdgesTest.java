@@ -0,0 +1,58 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * tests for building an {@link NTree} with {@link NTree#fromEdges(Object[], int[], int[])}.
+ */
+public class FromEdgesTest {
+
+    private static final Integer[] VALUES = {0, 1, 2, 3};
+
+    @Test
+    public void buildsTree() {
+        NTree<Integer> tree = NTree.fromEdges(VALUES, new int[] {0, 0, 1}, new int[] {1, 2, 3});
+        assertEquals(List.of(0, 1, 3, 2), tree.traverse());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsParentOutOfRange() {
+        NTree.fromEdges(VALUES, new int[] {0, 0, 4}, new int[] {1, 2, 3});
+    }
+
+    // a parent of -1 used to leave the child looking unlinked, so a second edge to it was accepted
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeParent() {
+        NTree.fromEdges(VALUES, new int[] {-1, 0, 0, 1}, new int[] {3, 1, 2, 3});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSelfLoop() {
+        NTree.fromEdges(VALUES, new int[] {0, 0, 3}, new int[] {1, 2, 3});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSecondParent() {
+        NTree.fromEdges(VALUES, new int[] {0, 0, 1, 2}, new int[] {1, 2, 3, 3});
+    }
+}
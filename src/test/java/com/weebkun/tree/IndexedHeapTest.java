@@ -0,0 +1,156 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link IndexedHeap}.
+ */
+public class IndexedHeapTest {
+
+    @Test
+    public void findsShortestPathsWithDecreaseKey() {
+        Random random = new Random(1);
+        int n = 500;
+        List<List<int[]>> edges = new ArrayList<>();
+        for(int i = 0; i < n; i++) {
+            edges.add(new ArrayList<>());
+        }
+        for(int i = 0; i < 4000; i++) {
+            edges.get(random.nextInt(n)).add(new int[] {random.nextInt(n), random.nextInt(100)});
+        }
+        for(int arity : new int[] {2, 4, 16}) {
+            // dijkstra with the heap
+            long[] distances = new long[n];
+            Arrays.fill(distances, Long.MAX_VALUE);
+            distances[0] = 0;
+            IndexedHeap heap = new IndexedHeap(n, arity);
+            heap.add(0, 0);
+            while(!heap.isEmpty()) {
+                long distance = heap.peekPriority();
+                int node = heap.poll();
+                assertEquals(distances[node], distance);
+                for(int[] edge : edges.get(node)) {
+                    long through = distance + edge[1];
+                    if(through >= distances[edge[0]]) continue;
+                    distances[edge[0]] = through;
+                    if(heap.contains(edge[0])) heap.decreaseKey(edge[0], through);
+                    else heap.add(edge[0], through);
+                }
+            }
+            // bellman-ford as the reference
+            long[] expected = new long[n];
+            Arrays.fill(expected, Long.MAX_VALUE);
+            expected[0] = 0;
+            for(boolean changed = true; changed; ) {
+                changed = false;
+                for(int node = 0; node < n; node++) {
+                    if(expected[node] == Long.MAX_VALUE) continue;
+                    for(int[] edge : edges.get(node)) {
+                        if(expected[node] + edge[1] < expected[edge[0]]) {
+                            expected[edge[0]] = expected[node] + edge[1];
+                            changed = true;
+                        }
+                    }
+                }
+            }
+            assertArrayEquals(expected, distances);
+        }
+    }
+
+    @Test
+    public void pollsInPriorityOrderAfterUpdates() {
+        Random random = new Random(2);
+        int n = 1000;
+        IndexedHeap heap = new IndexedHeap(n);
+        // the reference priority of every index, or null if it is not in the heap
+        Long[] priorities = new Long[n];
+        for(int i = 0; i < 20_000; i++) {
+            int index = random.nextInt(n);
+            if(random.nextInt(4) > 0) {
+                // raises or lowers the priority, or adds the index
+                long priority = random.nextInt(10_000);
+                heap.update(index, priority);
+                priorities[index] = priority;
+            } else if(!heap.isEmpty()) {
+                long min = Long.MAX_VALUE;
+                for(Long priority : priorities) {
+                    if(priority != null) min = Math.min(min, priority);
+                }
+                assertEquals(min, heap.peekPriority());
+                int polled = heap.poll();
+                assertEquals(min, priorities[polled].longValue());
+                priorities[polled] = null;
+                assertFalse(heap.contains(polled));
+            }
+            assertEquals(priorities[index] != null, heap.contains(index));
+            if(priorities[index] != null) assertEquals(priorities[index].longValue(), heap.priority(index));
+        }
+    }
+
+    @Test
+    public void decreaseKeyKeepsAnEqualPriority() {
+        IndexedHeap heap = new IndexedHeap(3);
+        heap.add(0, 5);
+        heap.add(1, 7);
+        heap.decreaseKey(1, 7);
+        heap.decreaseKey(1, 4);
+        assertEquals(1, heap.peek());
+        assertEquals(4, heap.priority(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decreaseKeyRejectsAGreaterPriority() {
+        IndexedHeap heap = new IndexedHeap(2);
+        heap.add(0, 5);
+        heap.decreaseKey(0, 6);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void decreaseKeyRejectsMissingIndices() {
+        new IndexedHeap(2).decreaseKey(1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsIndicesAlreadyInTheHeap() {
+        IndexedHeap heap = new IndexedHeap(2);
+        heap.add(0, 1);
+        heap.add(0, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndicesOutOfRange() {
+        new IndexedHeap(2).add(2, 0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void pollRejectsAnEmptyHeap() {
+        new IndexedHeap(2).poll();
+    }
+}
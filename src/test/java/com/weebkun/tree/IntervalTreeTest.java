@@ -0,0 +1,156 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import com.weebkun.tuples.Tuple;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link IntervalTree} against a linear scan over the intervals.
+ */
+public class IntervalTreeTest {
+
+    @Test
+    public void overlappingMatchesScan() {
+        Random random = new Random(1);
+        for(int size : new int[] {0, 1, 2, 7, 100, 5000}) {
+            List<long[]> intervals = random(random, size, 1000, 50);
+            IntervalTree<long[]> tree = new IntervalTree<>(intervals, i -> i[0], i -> i[1]);
+            assertEquals(size, tree.size());
+            for(int query = 0; query < 500; query++) {
+                long lo = random.nextInt(1100) - 50;
+                long hi = lo + random.nextInt(query % 2 == 0 ? 5 : 200);
+                assertEquals(scan(intervals, lo, hi), ids(tree.overlapping(lo, hi)));
+            }
+        }
+    }
+
+    @Test
+    public void stabbingMatchesScan() {
+        Random random = new Random(2);
+        // long intervals nest deeply, short ones barely overlap
+        for(int length : new int[] {1, 20, 2000}) {
+            List<long[]> intervals = random(random, 3000, 1000, length);
+            IntervalTree<long[]> tree = new IntervalTree<>(intervals, i -> i[0], i -> i[1]);
+            for(long point = -10; point <= 3010; point += 7) {
+                assertEquals(scan(intervals, point, point), ids(tree.stabbing(point)));
+            }
+        }
+    }
+
+    @Test
+    public void findsEndpointsAndDuplicates() {
+        List<long[]> intervals = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            intervals.add(new long[] {5, 5, i});
+            intervals.add(new long[] {5, 9, 10 + i});
+            intervals.add(new long[] {Long.MIN_VALUE, Long.MAX_VALUE, 20 + i});
+        }
+        IntervalTree<long[]> tree = new IntervalTree<>(intervals, i -> i[0], i -> i[1]);
+        for(long point : new long[] {Long.MIN_VALUE, 4, 5, 6, 9, 10, Long.MAX_VALUE}) {
+            assertEquals(scan(intervals, point, point), ids(tree.stabbing(point)));
+        }
+        assertEquals(scan(intervals, 9, Long.MAX_VALUE), ids(tree.overlapping(9, Long.MAX_VALUE)));
+        assertEquals(scan(intervals, Long.MIN_VALUE, 5), ids(tree.overlapping(Long.MIN_VALUE, 5)));
+    }
+
+    @Test
+    public void yieldsLaterIntervalsInOrder() {
+        Random random = new Random(3);
+        List<long[]> intervals = random(random, 2000, 1000, 30);
+        IntervalTree<long[]> tree = new IntervalTree<>(intervals, i -> i[0], i -> i[1]);
+        Iterator<long[]> iterator = tree.overlapping(300, 700);
+        long previous = Long.MIN_VALUE;
+        boolean containing = true;
+        while(iterator.hasNext()) {
+            long[] interval = iterator.next();
+            if(containing && interval[0] <= 300) continue;
+            containing = false;
+            assertTrue(interval[0] > 300 && interval[0] >= previous);
+            previous = interval[0];
+        }
+    }
+
+    @Test
+    public void emptyRangeOverlapsNothing() {
+        List<long[]> intervals = List.of(new long[] {0, 10, 0});
+        IntervalTree<long[]> tree = new IntervalTree<>(intervals, i -> i[0], i -> i[1]);
+        assertFalse(tree.overlapping(6, 4).hasNext());
+    }
+
+    @Test
+    public void loadsTuples() {
+        List<Tuple> tuples = List.of(Tuple.create("a", 1, 4L), Tuple.create("b", 3, 8L), Tuple.create("c", 9, 9L));
+        IntervalTree<Tuple> tree = IntervalTree.ofTuples(tuples, 1, 2);
+        List<String> names = new ArrayList<>();
+        tree.stabbing(4).forEachRemaining(t -> names.add((String) t.get(0)));
+        Collections.sort(names);
+        assertEquals(List.of("a", "b"), names);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsReversedInterval() {
+        new IntervalTree<>(List.of(new long[] {2, 1}), i -> i[0], i -> i[1]);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void throwsPastTheLastResult() {
+        IntervalTree<long[]> tree = new IntervalTree<>(List.of(new long[] {0, 1, 0}), i -> i[0], i -> i[1]);
+        Iterator<long[]> iterator = tree.stabbing(1);
+        iterator.next();
+        iterator.next();
+    }
+
+    /**
+     * random intervals {@code [lo, lo + length)} with their index as the third element.
+     */
+    private static List<long[]> random(Random random, int size, int range, int length) {
+        List<long[]> intervals = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            long lo = random.nextInt(range);
+            intervals.add(new long[] {lo, lo + random.nextInt(length), i});
+        }
+        return intervals;
+    }
+
+    private static List<Long> scan(List<long[]> intervals, long lo, long hi) {
+        List<Long> ids = new ArrayList<>();
+        for(long[] interval : intervals) {
+            if(interval[0] <= hi && interval[1] >= lo) ids.add(interval[2]);
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static List<Long> ids(Iterator<long[]> iterator) {
+        List<Long> ids = new ArrayList<>();
+        iterator.forEachRemaining(interval -> ids.add(interval[2]));
+        Collections.sort(ids);
+        return ids;
+    }
+}
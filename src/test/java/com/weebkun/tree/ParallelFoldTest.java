@@ -0,0 +1,120 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * tests for {@link Tree#parallelFold} on degenerate trees, which must not overflow the stack.
+ */
+public class ParallelFoldTest {
+
+    private static final int DEPTH = 200_000;
+
+    /**
+     * builds a tree where node {@code i} is the only child of node {@code i - 1}.
+     */
+    private static NTree<Integer> chain(int n) {
+        Integer[] values = new Integer[n];
+        int[] parent = new int[n];
+        for(int i = 0; i < n; i++) {
+            values[i] = i;
+            parent[i] = i - 1;
+        }
+        return NTree.fromParentArray(values, parent);
+    }
+
+    /**
+     * builds a tree where every node on a spine of {@code n} nodes also has a leaf child,
+     * before or after the next node on the spine.
+     */
+    private static NTree<Integer> caterpillar(int n, boolean leafFirst) {
+        Integer[] values = new Integer[2 * n - 1];
+        int[] parent = new int[2 * n - 1];
+        parent[0] = -1;
+        values[0] = 0;
+        for(int i = 1; i < n; i++) {
+            // spine node i has index 2i - 1 or 2i, its leaf the other one
+            int spine = leafFirst ? 2 * i : 2 * i - 1;
+            int leaf = leafFirst ? 2 * i - 1 : 2 * i;
+            int previous = i == 1 ? 0 : (leafFirst ? 2 * i - 2 : 2 * i - 3);
+            parent[spine] = previous;
+            parent[leaf] = previous;
+            values[spine] = spine;
+            values[leaf] = leaf;
+        }
+        return NTree.fromParentArray(values, parent);
+    }
+
+    private static List<Integer> foldToList(Tree<Integer> tree, int cutoff) {
+        return tree.<List<Integer>>parallelFold(new ArrayList<>(), (list, x) -> {
+            List<Integer> result = new ArrayList<>(list);
+            result.add(x);
+            return result;
+        }, (a, b) -> {
+            List<Integer> result = new ArrayList<>(a);
+            result.addAll(b);
+            return result;
+        }, cutoff, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    public void foldsSingleChildChain() {
+        NTree<Integer> tree = chain(DEPTH);
+        long expected = (long) DEPTH * (DEPTH - 1) / 2;
+        assertEquals(expected, (long) tree.parallelFold(0L, (sum, x) -> sum + x, Long::sum));
+        assertEquals(expected, (long) tree.parallelFold(0L, (sum, x) -> sum + x, Long::sum, 1));
+    }
+
+    @Test
+    public void foldsCaterpillars() {
+        for(boolean leafFirst : new boolean[] {true, false}) {
+            NTree<Integer> tree = caterpillar(DEPTH / 2, leafFirst);
+            long sequential = tree.fold(0L, (sum, x) -> sum + x, Long::sum);
+            assertEquals(sequential, (long) tree.parallelFold(0L, (sum, x) -> sum + x, Long::sum, 16));
+        }
+    }
+
+    @Test
+    public void foldsDegenerateSearchTree() {
+        int n = 20_000;
+        int[] sorted = new int[n];
+        for(int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        BinarySearchTree tree = new BinarySearchTree(sorted);
+        assertEquals((long) n * (n - 1) / 2, (long) tree.parallelFold(0L, (sum, x) -> sum + x, Long::sum));
+    }
+
+    @Test
+    public void keepsPreOrder() {
+        NTree<Integer> tree = caterpillar(2_000, true);
+        List<Integer> expected = tree.fold(new ArrayList<>(), (list, x) -> {
+            list.add(x);
+            return list;
+        }, (a, b) -> a);
+        for(int cutoff : new int[] {1, 7, 100, 10_000}) {
+            assertEquals(expected, foldToList(tree, cutoff));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests that {@link PersistentSearchTree} streams its values in sorted order, like its iterator.
+ */
+public class PersistentSearchTreeTest {
+
+    private static List<Integer> iterated(PersistentSearchTree<Integer> tree) {
+        List<Integer> values = new ArrayList<>();
+        tree.forEach(values::add);
+        return values;
+    }
+
+    @Test
+    public void streamsInSortedOrder() {
+        PersistentSearchTree<Integer> tree = PersistentSearchTree.of(List.of(5, 3, 8, 1, 4, 7, 9));
+        assertEquals(List.of(1, 3, 4, 5, 7, 8, 9), iterated(tree));
+        assertEquals(iterated(tree), tree.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void parallelStreamKeepsSortedOrder() {
+        List<Integer> values = new ArrayList<>();
+        for(int i = 0; i < 10_000; i++) {
+            values.add((i * 7919) % 10_007);
+        }
+        PersistentSearchTree<Integer> tree = PersistentSearchTree.of(values);
+        List<Integer> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        assertEquals(sorted, tree.stream().collect(Collectors.toList()));
+        assertEquals(sorted, tree.parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void splitsIntoSizedHalves() {
+        PersistentSearchTree<Integer> tree = PersistentSearchTree.of(List.of(5, 3, 8, 1, 4, 7, 9, 2));
+        Spliterator<Integer> suffix = tree.spliterator();
+        assertTrue(suffix.hasCharacteristics(Spliterator.SORTED | Spliterator.SIZED | Spliterator.SUBSIZED));
+        Spliterator<Integer> prefix = suffix.trySplit();
+        assertEquals(4, prefix.estimateSize());
+        assertEquals(4, suffix.estimateSize());
+        List<Integer> values = new ArrayList<>();
+        prefix.forEachRemaining(values::add);
+        suffix.forEachRemaining(values::add);
+        assertEquals(List.of(1, 2, 3, 4, 5, 7, 8, 9), values);
+    }
+
+    @Test
+    public void reportsComparator() {
+        assertNull(PersistentSearchTree.<Integer>empty().spliterator().getComparator());
+        Comparator<Integer> reverse = Comparator.reverseOrder();
+        PersistentSearchTree<Integer> tree = PersistentSearchTree.empty(reverse).insert(1).insert(3).insert(2);
+        assertSame(reverse, tree.spliterator().getComparator());
+        assertEquals(List.of(3, 2, 1), tree.stream().collect(Collectors.toList()));
+    }
+}
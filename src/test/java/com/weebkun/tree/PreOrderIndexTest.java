@@ -0,0 +1,73 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for looking up nodes by their pre-order number through {@link AncestorIndex}.
+ */
+public class PreOrderIndexTest {
+
+    private static final int SIZE = 10_000;
+
+    @Test
+    public void findsHeapNodes() {
+        Integer[] values = new Integer[SIZE];
+        int[] parent = new int[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            // equal values in different nodes must not be confused
+            values[i] = i % 3;
+            parent[i] = (i - 1) / 2;
+        }
+        parent[0] = -1;
+        NTree<Integer> tree = NTree.fromParentArray(values, parent);
+        AncestorIndex<Integer> index = new AncestorIndex<>(tree);
+        Node<Integer> node = tree.getRoot();
+        for(int depth = 0; node.childCount() > 0; depth++) {
+            assertEquals(depth, index.depth(node));
+            assertTrue(index.isAncestor(tree.getRoot(), node));
+            node = node.child(node.childCount() - 1);
+        }
+        assertFalse(index.isAncestor(tree.getRoot().child(0), tree.getRoot().child(1)));
+    }
+
+    @Test
+    public void findsCursorsCreatedLater() {
+        CompactNTree<Integer> tree = CompactNTree.withCapacity(SIZE);
+        int root = tree.setRoot(0);
+        int[] path = new int[SIZE];
+        path[0] = root;
+        for(int i = 1; i < SIZE; i++) {
+            path[i] = tree.add(path[i - 1], i);
+        }
+        AncestorIndex<Integer> index = new AncestorIndex<>(tree);
+        for(int i = 0; i < SIZE; i += 97) {
+            assertEquals(i, index.depth(tree.node(path[i])));
+        }
+        assertEquals(tree.node(path[10]), index.lca(tree.node(path[10]), tree.node(path[SIZE - 1])));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNodeFromAnotherTree() {
+        new AncestorIndex<>(new NTree<>(1)).depth(new GenericNode<>(1));
+    }
+}
@@ -0,0 +1,226 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tests for {@link RadixTree} against a {@link TreeMap}.
+ */
+public class RadixTreeTest {
+
+    private static List<String> keys(Iterator<Map.Entry<String, Integer>> entries) {
+        List<String> keys = new ArrayList<>();
+        entries.forEachRemaining(entry -> keys.add(entry.getKey()));
+        return keys;
+    }
+
+    private static List<String> keysWithPrefix(TreeMap<String, Integer> map, String prefix) {
+        List<String> keys = new ArrayList<>();
+        for(String key : map.tailMap(prefix).keySet()) {
+            if(!key.startsWith(prefix)) break;
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private static String randomKey(Random random, String alphabet, int maxLength) {
+        StringBuilder key = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for(int i = 0; i < length; i++) {
+            key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return key.toString();
+    }
+
+    @Test
+    public void matchesTreeMap() {
+        Random random = new Random(1);
+        RadixTree<Integer> tree = new RadixTree<>();
+        TreeMap<String, Integer> map = new TreeMap<>();
+        // a small alphabet gives long shared prefixes, so edges are split often
+        for(int i = 0; i < 5000; i++) {
+            String key = randomKey(random, "abc", 8);
+            assertEquals(map.put(key, i), tree.put(key, i));
+            assertEquals(map.size(), tree.size());
+        }
+        for(int i = 0; i < 2000; i++) {
+            String key = randomKey(random, "abcd", 9);
+            assertEquals(map.get(key), tree.get(key));
+            assertEquals(map.containsKey(key), tree.containsKey(key));
+            assertEquals(keysWithPrefix(map, key), keys(tree.prefixScan(key)));
+        }
+        assertEquals(new ArrayList<>(map.keySet()), keys(tree.prefixScan("")));
+    }
+
+    @Test
+    public void switchesToTheDenseTable() {
+        RadixTree<Integer> tree = new RadixTree<>();
+        TreeMap<String, Integer> map = new TreeMap<>();
+        // first characters below 256, and a few above that stay in the sorted array
+        List<Character> firsts = new ArrayList<>();
+        for(char c = 'A'; c < 'A' + 30; c++) {
+            firsts.add(c);
+        }
+        firsts.add((char) 0);
+        firsts.add((char) 255);
+        firsts.add((char) 256);
+        firsts.add('\u4e00');
+        firsts.add('\uffff');
+        Collections.shuffle(firsts, new Random(2));
+        int value = 0;
+        for(char first : firsts) {
+            for(String rest : new String[] {"", "x", "xy"}) {
+                String key = first + rest;
+                tree.put(key, value);
+                map.put(key, value++);
+            }
+            // every key is still found, and the scan stays in character order across the table and the array
+            for(Map.Entry<String, Integer> entry : map.entrySet()) {
+                assertEquals(entry.getValue(), tree.get(entry.getKey()));
+            }
+            assertEquals(new ArrayList<>(map.keySet()), keys(tree.prefixScan("")));
+        }
+        assertNull(tree.get("Bz"));
+        assertNull(tree.get("\u4e01"));
+        assertEquals(List.of("\u4e00", "\u4e00x", "\u4e00xy"), keys(tree.prefixScan("\u4e00")));
+        // the same again for a node below the root
+        RadixTree<Integer> nested = new RadixTree<>();
+        for(int c = 0; c < 300; c += 7) {
+            nested.put("prefix" + (char) c, c);
+        }
+        for(int c = 0; c < 300; c++) {
+            assertEquals(c % 7 == 0 ? Integer.valueOf(c) : null, nested.get("prefix" + (char) c));
+        }
+    }
+
+    @Test
+    public void findsTheLongestPrefixMatch() {
+        Random random = new Random(3);
+        RadixTree<Integer> tree = new RadixTree<>();
+        TreeMap<String, Integer> map = new TreeMap<>();
+        for(int i = 0; i < 500; i++) {
+            String key = randomKey(random, "01", 12);
+            tree.put(key, i);
+            map.put(key, i);
+        }
+        for(int i = 0; i < 2000; i++) {
+            String key = randomKey(random, "01", 16);
+            String expected = null;
+            for(int length = key.length(); length >= 0 && expected == null; length--) {
+                if(map.containsKey(key.substring(0, length))) expected = key.substring(0, length);
+            }
+            Map.Entry<String, Integer> match = tree.longestPrefixMatch(key);
+            if(expected == null) {
+                assertNull(match);
+            } else {
+                assertEquals(expected, match.getKey());
+                assertEquals(map.get(expected), match.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void longestPrefixMatchNeedsAWholeEdge() {
+        RadixTree<String> tree = new RadixTree<>();
+        tree.put("10.0", "net");
+        tree.put("10.0.0.1", "host");
+        assertEquals("net", tree.longestPrefixMatch("10.0.0").getValue());
+        assertEquals("host", tree.longestPrefixMatch("10.0.0.12").getValue());
+        assertNull(tree.longestPrefixMatch("10."));
+        tree.put("", "default");
+        assertEquals("", tree.longestPrefixMatch("10.").getKey());
+    }
+
+    @Test
+    public void mapsBytesLikeIso88591() {
+        RadixTree<Integer> tree = new RadixTree<>();
+        byte[] high = {(byte) 0xFF, 0x00, (byte) 0x80};
+        byte[] low = {0x7F, 0x01};
+        tree.put(high, 1);
+        tree.put(low, 2);
+        tree.put(new byte[] {(byte) 0xFF}, 3);
+        assertEquals(Integer.valueOf(1), tree.get(high));
+        assertEquals(Integer.valueOf(2), tree.get(low));
+        assertEquals(Integer.valueOf(1), tree.get(new String(high, StandardCharsets.ISO_8859_1)));
+        assertNull(tree.get(new byte[] {(byte) 0xFF, 0x00}));
+        // bytes are unsigned, so 0xFF sorts after 0x7F
+        assertEquals(List.of("\u007f\u0001", "\u00ff", "\u00ff\u0000\u0080"), keys(tree.prefixScan(new byte[0])));
+        assertEquals(List.of("\u00ff", "\u00ff\u0000\u0080"), keys(tree.prefixScan(new byte[] {(byte) 0xFF})));
+    }
+
+    @Test
+    public void replacesValuesWithoutGrowing() {
+        RadixTree<String> tree = new RadixTree<>();
+        assertTrue(tree.isEmpty());
+        assertNull(tree.put("key", "a"));
+        assertEquals("a", tree.put("key", "b"));
+        // a split creates a node without a value, which does not count as a key
+        tree.put("kez", "c");
+        assertEquals(2, tree.size());
+        assertFalse(tree.containsKey("ke"));
+        assertEquals("b", tree.get("key"));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void throwsPastTheLastEntry() {
+        RadixTree<String> tree = new RadixTree<>();
+        tree.put("a", "a");
+        Iterator<Map.Entry<String, String>> entries = tree.prefixScan("b");
+        entries.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getRejectsNullKeys() {
+        new RadixTree<String>().get((CharSequence) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getRejectsNullByteKeys() {
+        new RadixTree<String>().get((byte[]) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putRejectsNullKeys() {
+        new RadixTree<String>().put((CharSequence) null, "value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixScanRejectsNullPrefixes() {
+        new RadixTree<String>().prefixScan((CharSequence) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void longestPrefixMatchRejectsNullKeys() {
+        new RadixTree<String>().longestPrefixMatch(null);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * tests for {@link SubtreeAggregator}, {@link LongSubtreeAggregator} and {@link DoubleSubtreeAggregator}
+ * against aggregating the subtrees by walking them.
+ */
+public class SubtreeAggregatorTest {
+
+    private static final int SIZE = 1000;
+
+    /**
+     * a random tree of {@code SIZE} nodes, each valued by its index.
+     */
+    private static NTree<Integer> tree(long seed) {
+        Random random = new Random(seed);
+        Integer[] values = new Integer[SIZE];
+        int[] parent = new int[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            values[i] = i;
+            // mostly recent parents, for deep subtrees
+            parent[i] = i == 0 ? -1 : Math.max(0, i - 1 - random.nextInt(random.nextBoolean() ? 3 : i));
+        }
+        return NTree.fromParentArray(values, parent);
+    }
+
+    /**
+     * the nodes of a subtree in pre-order.
+     */
+    private static List<Node<Integer>> subtree(Node<Integer> root) {
+        List<Node<Integer>> nodes = new ArrayList<>();
+        collect(root, nodes);
+        return nodes;
+    }
+
+    private static void collect(Node<Integer> node, List<Node<Integer>> nodes) {
+        nodes.add(node);
+        for(int i = 0; i < node.childCount(); i++) {
+            collect(node.child(i), nodes);
+        }
+    }
+
+    @Test
+    public void keepsOrderOfNonCommutativeOperators() {
+        NTree<Integer> tree = tree(1);
+        List<Node<Integer>> nodes = subtree(tree.getRoot());
+        SubtreeAggregator<Integer, String> concat = new SubtreeAggregator<>(tree, i -> i + ",", "", String::concat);
+        Random random = new Random(2);
+        String[] values = new String[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            values[i] = i + ",";
+        }
+        for(int round = 0; round < 200; round++) {
+            Node<Integer> updated = nodes.get(random.nextInt(SIZE));
+            values[updated.getValue()] = round + "/" + updated.getValue() + ",";
+            concat.update(updated, values[updated.getValue()]);
+            assertEquals(values[updated.getValue()], concat.get(updated));
+            for(int query = 0; query < 5; query++) {
+                Node<Integer> root = nodes.get(random.nextInt(SIZE));
+                StringBuilder expected = new StringBuilder();
+                for(Node<Integer> node : subtree(root)) {
+                    expected.append(values[node.getValue()]);
+                }
+                assertEquals(expected.toString(), concat.query(root));
+            }
+        }
+    }
+
+    @Test
+    public void aggregatesLongs() {
+        NTree<Integer> tree = tree(3);
+        List<Node<Integer>> nodes = subtree(tree.getRoot());
+        LongSubtreeAggregator<Integer> sum = LongSubtreeAggregator.sum(tree, i -> i);
+        LongSubtreeAggregator<Integer> max = LongSubtreeAggregator.max(tree, i -> i);
+        LongSubtreeAggregator<Integer> min = LongSubtreeAggregator.min(tree, i -> i);
+        // keeps the first value in pre-order, which is not commutative
+        LongSubtreeAggregator<Integer> first = new LongSubtreeAggregator<>(tree, i -> i, Long.MIN_VALUE,
+                (a, b) -> a == Long.MIN_VALUE ? b : a);
+        long[] values = new long[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(4);
+        for(int round = 0; round < 200; round++) {
+            Node<Integer> updated = nodes.get(random.nextInt(SIZE));
+            long value = random.nextInt(2001) - 1000;
+            values[updated.getValue()] = value;
+            for(LongSubtreeAggregator<Integer> aggregator : List.of(sum, max, min, first)) {
+                aggregator.update(updated, value);
+                assertEquals(value, aggregator.get(updated));
+            }
+            for(int query = 0; query < 5; query++) {
+                Node<Integer> root = nodes.get(random.nextInt(SIZE));
+                long expectedSum = 0;
+                long expectedMax = Long.MIN_VALUE;
+                long expectedMin = Long.MAX_VALUE;
+                for(Node<Integer> node : subtree(root)) {
+                    long v = values[node.getValue()];
+                    expectedSum += v;
+                    expectedMax = Math.max(expectedMax, v);
+                    expectedMin = Math.min(expectedMin, v);
+                }
+                assertEquals(expectedSum, sum.query(root));
+                assertEquals(expectedMax, max.query(root));
+                assertEquals(expectedMin, min.query(root));
+                assertEquals(values[root.getValue()], first.query(root));
+            }
+        }
+    }
+
+    @Test
+    public void aggregatesDoubles() {
+        NTree<Integer> tree = tree(5);
+        List<Node<Integer>> nodes = subtree(tree.getRoot());
+        DoubleSubtreeAggregator<Integer> sum = DoubleSubtreeAggregator.sum(tree, i -> i / 4.0);
+        DoubleSubtreeAggregator<Integer> max = DoubleSubtreeAggregator.max(tree, i -> i / 4.0);
+        DoubleSubtreeAggregator<Integer> min = DoubleSubtreeAggregator.min(tree, i -> i / 4.0);
+        double[] values = new double[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            values[i] = i / 4.0;
+        }
+        Random random = new Random(6);
+        for(int round = 0; round < 200; round++) {
+            Node<Integer> updated = nodes.get(random.nextInt(SIZE));
+            // quarters are exact, so sums do not depend on the order of additions
+            double value = (random.nextInt(2001) - 1000) / 4.0;
+            values[updated.getValue()] = value;
+            for(DoubleSubtreeAggregator<Integer> aggregator : List.of(sum, max, min)) {
+                aggregator.update(updated, value);
+                assertEquals(value, aggregator.get(updated), 0);
+            }
+            for(int query = 0; query < 5; query++) {
+                Node<Integer> root = nodes.get(random.nextInt(SIZE));
+                double expectedSum = 0;
+                double expectedMax = Double.NEGATIVE_INFINITY;
+                double expectedMin = Double.POSITIVE_INFINITY;
+                for(Node<Integer> node : subtree(root)) {
+                    double v = values[node.getValue()];
+                    expectedSum += v;
+                    expectedMax = Math.max(expectedMax, v);
+                    expectedMin = Math.min(expectedMin, v);
+                }
+                assertEquals(expectedSum, sum.query(root), 0);
+                assertEquals(expectedMax, max.query(root), 0);
+                assertEquals(expectedMin, min.query(root), 0);
+            }
+        }
+    }
+
+    @Test
+    public void aggregatesASingleNode() {
+        NTree<Integer> tree = NTree.fromParentArray(new Integer[] {7}, new int[] {-1});
+        LongSubtreeAggregator<Integer> sum = LongSubtreeAggregator.sum(tree, i -> i);
+        assertEquals(7, sum.query(tree.getRoot()));
+        sum.update(tree.getRoot(), 3);
+        assertEquals(3, sum.query(tree.getRoot()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNodesOfOtherTrees() {
+        LongSubtreeAggregator<Integer> sum = LongSubtreeAggregator.sum(tree(7), i -> i);
+        sum.query(tree(7).getRoot());
+    }
+}
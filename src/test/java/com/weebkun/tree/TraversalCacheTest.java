@@ -0,0 +1,91 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * tests for the traversal cache of {@link NTree}, which must stay correct whether the cache is cold, warm or disabled.
+ */
+public class TraversalCacheTest {
+
+    private static NTree<Integer> tree() {
+        return NTree.fromParentArray(new Integer[] {0, 1, 2, 3, 4, 5}, new int[] {-1, 0, 0, 1, 1, 2});
+    }
+
+    private static List<Integer> iterated(Iterator<Integer> iterator) {
+        List<Integer> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+        return values;
+    }
+
+    @Test
+    public void iteratesInOrderWithColdAndWarmCache() {
+        NTree<Integer> tree = tree();
+        for(TraversalOrder order : TraversalOrder.values()) {
+            List<Integer> cold = iterated(tree.iterator(order));
+            assertEquals(tree.traverse(order), cold);
+            assertEquals(cold, iterated(tree.iterator(order)));
+        }
+    }
+
+    @Test
+    public void seesModifications() {
+        NTree<Integer> tree = tree();
+        assertEquals(List.of(0, 1, 3, 4, 2, 5), tree.traverse());
+        tree.getRoot().add(6);
+        assertEquals(List.of(0, 1, 3, 4, 2, 5, 6), iterated(tree.iterator()));
+        assertEquals(List.of(0, 1, 3, 4, 2, 5, 6), tree.traverse());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void coldIteratorFailsFast() {
+        NTree<Integer> tree = tree();
+        Iterator<Integer> iterator = tree.iterator();
+        iterator.next();
+        tree.getRoot().add(6);
+        iterator.next();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void warmIteratorFailsFast() {
+        NTree<Integer> tree = tree();
+        tree.traverse();
+        Iterator<Integer> iterator = tree.iterator();
+        iterator.next();
+        tree.getRoot().add(6);
+        iterator.next();
+    }
+
+    @Test
+    public void worksWithCachingDisabled() {
+        NTree<Integer> tree = tree();
+        tree.traverse();
+        tree.setTraversalCaching(false);
+        tree.getRoot().add(6);
+        assertEquals(List.of(0, 1, 3, 4, 2, 5, 6), tree.traverse());
+        assertEquals(List.of(0, 1, 3, 4, 2, 5, 6), iterated(tree.iterator()));
+        assertEquals(Integer.valueOf(21), tree.fold(0, Integer::sum, Integer::sum));
+    }
+}
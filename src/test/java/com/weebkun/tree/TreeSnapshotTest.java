@@ -0,0 +1,77 @@
+/*
+   Copyright 2020 weebkun
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.weebkun.tree;
+
+import com.weebkun.io.ValueCodec;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * tests for walking the children of {@link TreeSnapshot} nodes.
+ */
+public class TreeSnapshotTest {
+
+    private static final int CHILDREN = 200_000;
+
+    /**
+     * builds a tree where the root has {@code n} leaf children, and child {@code i} has the value {@code i + 1}.
+     */
+    private static NTree<Integer> star(int n) {
+        Integer[] values = new Integer[n + 1];
+        int[] parent = new int[n + 1];
+        for(int i = 0; i <= n; i++) {
+            values[i] = i;
+            parent[i] = i - 1 < 0 ? -1 : 0;
+        }
+        return NTree.fromParentArray(values, parent);
+    }
+
+    // visiting the children in order used to walk all earlier siblings for every child
+    @Test(timeout = 10_000)
+    public void walksWideNodesInLinearTime() throws IOException {
+        Path path = Files.createTempFile("list-utils-", ".snapshot");
+        try {
+            TreeSnapshot.write(star(CHILDREN), ValueCodec.INTEGER, path);
+            Node<Integer> root = TreeSnapshot.open(path, ValueCodec.INTEGER).getRoot();
+            assertEquals(CHILDREN, root.childCount());
+            for(int i = 0; i < root.childCount(); i++) {
+                assertEquals(Integer.valueOf(i + 1), root.child(i).getValue());
+            }
+            // going back restarts from the first child
+            assertEquals(Integer.valueOf(11), root.child(10).getValue());
+            assertEquals(Integer.valueOf(CHILDREN), root.child(CHILDREN - 1).getValue());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsMissingChild() throws IOException {
+        Path path = Files.createTempFile("list-utils-", ".snapshot");
+        try {
+            TreeSnapshot.write(star(3), ValueCodec.INTEGER, path);
+            TreeSnapshot.open(path, ValueCodec.INTEGER).getRoot().child(3);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}